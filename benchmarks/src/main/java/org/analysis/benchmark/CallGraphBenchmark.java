@@ -0,0 +1,25 @@
+package org.analysis.benchmark;
+
+import org.analysis.graph.CallGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+
+// Construction complète du graphe d'appel : parsing, extraction et insertion des arcs
+public class CallGraphBenchmark extends ProjectBenchmark {
+
+    @Param({"1"})
+    public int threadCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        setUpProject();
+        analyzer.setThreadCount(threadCount);
+    }
+
+    @Benchmark
+    public CallGraph buildCallGraph() throws IOException {
+        analyzer.buildCallGraph();
+        return analyzer.getCallGraph();
+    }
+}
@@ -0,0 +1,40 @@
+package org.analysis.benchmark;
+
+import org.analysis.clustering.Cluster;
+import org.analysis.clustering.ClusteringStrategy;
+import org.analysis.clustering.Dendrogram;
+import org.analysis.clustering.ModuleClusterer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Clustering hiérarchique et identification des modules à partir de l'index de couplage déjà construit.
+// Chaque opération part d'un ModuleClusterer neuf, le clusterer gardant le résultat de son dernier clustering.
+public class ClusteringBenchmark extends ProjectBenchmark {
+
+    @Param({"0.001"})
+    public double minimumCoupling;
+
+    @Param({"agglomerative", "louvain"})
+    public String strategy;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        setUpProject();
+        analyzer.setClusteringStrategy(ClusteringStrategy.forName(strategy));
+        analyzer.buildCallGraph();
+        analyzer.getCouplingIndex();
+    }
+
+    @Benchmark
+    public Dendrogram buildClusters() throws IOException {
+        return new ModuleClusterer(analyzer).buildClusters().getDendrogram();
+    }
+
+    // Clustering puis parcours du dendrogramme, comme l'option 5 du menu
+    @Benchmark
+    public Set<Cluster> getIdentifiedModules() throws IOException {
+        return new ModuleClusterer(analyzer).getIdentifiedModules(minimumCoupling);
+    }
+}
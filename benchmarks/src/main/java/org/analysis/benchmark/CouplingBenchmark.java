@@ -0,0 +1,51 @@
+package org.analysis.benchmark;
+
+import org.analysis.graph.CouplingIndex;
+import org.analysis.graph.DependencyKind;
+import org.analysis.graph.WeightedGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+// Métrique de couplage sur un graphe d'appel déjà construit : requêtes entre deux classes,
+// construction de l'index et du graphe de couplage pondéré
+public class CouplingBenchmark extends ProjectBenchmark {
+
+    private static final int PAIR_COUNT = 1024;
+
+    private final String[] classNamesA = new String[PAIR_COUNT];
+    private final String[] classNamesB = new String[PAIR_COUNT];
+    private int nextPair;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        setUpProject();
+        analyzer.buildCallGraph();
+        analyzer.getCouplingIndex();
+
+        Random random = new Random(42);
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            classNamesA[i] = "C" + random.nextInt(classCount);
+            classNamesB[i] = "C" + random.nextInt(classCount);
+        }
+    }
+
+    // Une requête par opération, sur des paires de classes tirées au hasard
+    @Benchmark
+    public double calculateCouplingMetric() throws IOException {
+        int pair = nextPair;
+        nextPair = (pair + 1) & (PAIR_COUNT - 1);
+        return analyzer.calculateCouplingMetric(classNamesA[pair], classNamesB[pair]);
+    }
+
+    @Benchmark
+    public CouplingIndex buildCouplingIndex() {
+        return new CouplingIndex(analyzer.getCallGraph(), DependencyKind.weightsFromSystemProperties());
+    }
+
+    @Benchmark
+    public WeightedGraph buildWeightedCouplingGraph() throws IOException {
+        return analyzer.createWeightedCouplingGraph();
+    }
+}
@@ -0,0 +1,28 @@
+package org.analysis.benchmark;
+
+import org.analysis.parser.BatchASTParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+// Parsing JDT avec résolution des bindings de toutes les sources du projet, en un seul lot
+public class ParseBenchmark extends ProjectBenchmark {
+
+    private BatchASTParser parser;
+    private List<File> files;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        setUpProject();
+        files = analyzer.getJavaFiles();
+        parser = new BatchASTParser(new String[0], new String[]{new File(projectDir, "src").getAbsolutePath()});
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        parser.parse(files, (ast, index) -> blackhole.consume(ast));
+    }
+}
@@ -0,0 +1,64 @@
+package org.analysis.benchmark;
+
+import org.analysis.core.AnalysisEnvironment;
+import org.analysis.core.Analyzer;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Base des benchmarks : un projet synthétique est généré pour chaque combinaison de paramètres et analysé par son
+// propre Analyzer, dans un environnement à lui : les sources des projets précédents du même fork ne servent pas
+// à résoudre ses types. Seul le classpath du JDK, résolu une fois, est repris de l'environnement commun.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public abstract class ProjectBenchmark {
+
+    @Param({"200", "1000"})
+    public int classCount;
+
+    @Param({"10"})
+    public int methodsPerClass;
+
+    // Densité d'appels : nombre d'invocations dans chaque méthode
+    @Param({"3"})
+    public int callsPerMethod;
+
+    protected File projectDir;
+    protected Analyzer analyzer;
+
+    // Génère le projet et prépare l'analyseur, sans instantané ni cache pour mesurer l'analyse complète
+    protected void setUpProject() throws IOException {
+        // Les messages de progression de l'analyse ne doivent ni coûter ni polluer la sortie de JMH
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) { }
+
+            @Override
+            public void write(byte[] b, int off, int len) { }
+        }));
+
+        projectDir = SyntheticProject.generate(Files.createTempDirectory("analysis-benchmark").toFile(),
+                classCount, methodsPerClass, callsPerMethod, 42);
+
+        AnalysisEnvironment environment = new AnalysisEnvironment(Arrays.asList(AnalysisEnvironment.getDefault().getClasspath()));
+        analyzer = new Analyzer(projectDir.getAbsolutePath(), environment);
+        analyzer.setSnapshotEnabled(false);
+        analyzer.setIncremental(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteProject() throws IOException {
+        FileUtils.deleteDirectory(projectDir);
+    }
+}
@@ -0,0 +1,243 @@
+package org.analysis.benchmark;
+
+import org.analysis.core.Analyzer;
+import org.analysis.metrics.LatencyHistogram;
+import org.analysis.server.AnalysisServer;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Test de charge du serveur d'analyse : des clients concurrents envoient un mélange de requêtes (couplage, voisins,
+// graphe d'appel, modules d'une classe, dendrogramme) tirées au hasard avec une graine fixe, puis les latences
+// p50, p99 et max et le débit sont écrits par requête. La liste complète des modules, un export de plusieurs Mo
+// sur les grands projets, n'est demandée qu'une fois avant la mesure. La cible est un serveur déjà lancé (URL) ou un projet analysé
+// et servi dans ce processus.
+//   java -cp benchmarks/target/benchmarks.jar org.analysis.benchmark.ServerLoadTest <projet>|<url>
+//        [--clients <n>] [--requests <n>] [--warmup <n>] [--server-threads <n>] [--cp <valeur>]
+public final class ServerLoadTest {
+
+    // Part de chaque requête dans le mélange, sur 100
+    private static final String[] QUERIES = {"coupling", "neighbours", "callgraph", "module", "dendrogram"};
+    private static final int[] SHARES = {35, 25, 25, 14, 1};
+
+    private static final Pattern STRING = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private final String baseUrl;
+    private final double minimumCoupling;
+    private final List<String> classes = new ArrayList<>();
+    private final List<String> methods = new ArrayList<>();
+
+    private ServerLoadTest(String baseUrl, double minimumCoupling) {
+        this.baseUrl = baseUrl;
+        this.minimumCoupling = minimumCoupling;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage : ServerLoadTest <projet>|<url> [--clients <n>] [--requests <n>] [--warmup <n>]"
+                    + " [--server-threads <n>] [--cp <valeur>]");
+            System.exit(2);
+        }
+
+        int clients = 16, requests = 20000, warmup = 2000;
+        int serverThreads = Runtime.getRuntime().availableProcessors();
+        double minimumCoupling = 0.0;
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Valeur manquante pour " + args[i]);
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--clients": clients = Integer.parseInt(value); break;
+                case "--requests": requests = Integer.parseInt(value); break;
+                case "--warmup": warmup = Integer.parseInt(value); break;
+                case "--server-threads": serverThreads = Integer.parseInt(value); break;
+                case "--cp": minimumCoupling = Double.parseDouble(value); break;
+                default: throw new IllegalArgumentException("Argument inattendu : " + args[i]);
+            }
+        }
+
+        // Le rapport garde la sortie standard, la progression de l'analyse passe sur la sortie d'erreur
+        PrintStream report = System.out;
+        System.setOut(System.err);
+
+        AnalysisServer server = null;
+        String baseUrl = args[0];
+        if (!baseUrl.startsWith("http://")) {
+            Analyzer analyzer = Analyzer.getInstance(new File(baseUrl).getAbsolutePath());
+            analyzer.buildCallGraph();
+            server = new AnalysisServer(analyzer.getSession(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), serverThreads);
+            server.start();
+            baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        try {
+            ServerLoadTest test = new ServerLoadTest(baseUrl.replaceAll("/+$", ""), minimumCoupling);
+            test.discover();
+            test.run(clients, warmup, 1);
+            Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+            long start = System.nanoTime();
+            int errors = test.run(clients, requests, 2, latencies);
+            test.report(report, latencies, errors, clients, System.nanoTime() - start);
+        } finally {
+            if (server != null)
+                server.close();
+        }
+    }
+
+    // Classes du projet et méthodes d'un échantillon de classes, cibles des requêtes
+    private void discover() throws IOException {
+        classes.addAll(strings(get("/classes")));
+        if (classes.isEmpty())
+            throw new IllegalStateException("Aucune classe servie par " + baseUrl);
+
+        Random random = new Random(0);
+        for (int i = 0; i < Math.min(200, classes.size()); i++)
+            methods.addAll(strings(get("/methods?class=" + encode(classes.get(random.nextInt(classes.size()))))));
+        if (methods.isEmpty())
+            throw new IllegalStateException("Aucune méthode servie par " + baseUrl);
+
+        // Les modules sont calculés à la première demande : hors mesure
+        get("/modules?cp=" + minimumCoupling);
+        System.err.printf("%d classes, %d méthodes échantillonnées%n", classes.size(), methods.size());
+    }
+
+    private void run(int clients, int requests, long seed) throws Exception {
+        run(clients, requests, seed, null);
+    }
+
+    // Répartit les requêtes entre les clients ; retourne le nombre de réponses en erreur
+    private int run(int clients, int requests, long seed, Map<String, LatencyHistogram> latencies) throws Exception {
+        if (latencies != null)
+            for (String query : QUERIES)
+                latencies.put(query, new LatencyHistogram());
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int client = 0; client < clients; client++) {
+                int count = requests / clients + (client < requests % clients ? 1 : 0);
+                Random random = new Random(seed * 1_000_003 + client);
+                results.add(pool.submit(() -> {
+                    int errors = 0;
+                    for (int i = 0; i < count; i++) {
+                        String query = pick(random);
+                        long start = System.nanoTime();
+                        int status = status(path(query, random));
+                        if (latencies != null)
+                            latencies.get(query).record(System.nanoTime() - start);
+                        if (status != 200)
+                            errors++;
+                    }
+                    return errors;
+                }));
+            }
+
+            int errors = 0;
+            for (Future<Integer> result : results)
+                errors += result.get();
+            return errors;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void report(PrintStream out, Map<String, LatencyHistogram> latencies, int errors, int clients, long nanos) {
+        out.printf("%-12s %9s %10s %10s %10s%n", "Requête", "Nombre", "p50 (ms)", "p99 (ms)", "max (ms)");
+        for (Map.Entry<String, LatencyHistogram> query : latencies.entrySet()) {
+            LatencyHistogram histogram = query.getValue();
+            out.printf(Locale.ROOT, "%-12s %9d %10.3f %10.3f %10.3f%n", query.getKey(), histogram.getCount(),
+                    millis(histogram.getPercentile(0.5)), millis(histogram.getPercentile(0.99)), millis(histogram.getMax()));
+        }
+
+        long count = 0;
+        for (LatencyHistogram histogram : latencies.values())
+            count += histogram.getCount();
+        out.printf(Locale.ROOT, "%d requêtes, %d clients, %d erreurs, %.0f requêtes/s%n", count, clients, errors, count / (nanos / 1e9));
+    }
+
+    private static String pick(Random random) {
+        int draw = random.nextInt(100);
+        for (int i = 0; i < QUERIES.length; i++) {
+            draw -= SHARES[i];
+            if (draw < 0)
+                return QUERIES[i];
+        }
+        return QUERIES[0];
+    }
+
+    private String path(String query, Random random) {
+        switch (query) {
+            case "coupling":
+                return "/coupling?a=" + encode(randomClass(random)) + "&b=" + encode(randomClass(random));
+            case "neighbours":
+                return "/neighbours?class=" + encode(randomClass(random)) + "&limit=20";
+            case "callgraph":
+                return "/callgraph?method=" + encode(methods.get(random.nextInt(methods.size())));
+            case "module":
+                return "/module?class=" + encode(randomClass(random)) + "&cp=" + minimumCoupling;
+            default:
+                return "/dendrogram";
+        }
+    }
+
+    private String randomClass(Random random) {
+        return classes.get(random.nextInt(classes.size()));
+    }
+
+    // Code de la réponse, dont le corps est lu entièrement pour réutiliser la connexion
+    private int status(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) { }
+            }
+        }
+        return status;
+    }
+
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        if (connection.getResponseCode() != 200)
+            throw new IOException("Réponse " + connection.getResponseCode() + " pour " + path);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) >= 0)
+                body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // Chaînes d'un tableau JSON de chaînes
+    private static List<String> strings(String jsonArray) {
+        List<String> values = new ArrayList<>();
+        Matcher matcher = STRING.matcher(jsonArray);
+        while (matcher.find())
+            values.add(matcher.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+        return values;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,61 @@
+package org.analysis.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// Génère un projet Java synthétique : classes C0..Cn-1 réparties en paquetages de 50, chaque méthode appelant
+// callsPerMethod méthodes tirées au hasard dans tout le projet. La graine fixe rend la génération reproductible.
+public final class SyntheticProject {
+
+    public static final int CLASSES_PER_PACKAGE = 50;
+
+    private SyntheticProject() { }
+
+    // Écrit le projet dans projectDir/src et retourne projectDir
+    public static File generate(File projectDir, int classCount, int methodsPerClass, int callsPerMethod, long seed) throws IOException {
+        Random random = new Random(seed);
+        File sourceDir = new File(projectDir, "src");
+
+        for (int c = 0; c < classCount; c++) {
+            File packageDir = new File(sourceDir, packageOf(c));
+            if (!packageDir.isDirectory() && !packageDir.mkdirs())
+                throw new IOException("Impossible de créer le dossier " + packageDir);
+
+            try (PrintWriter out = new PrintWriter(new File(packageDir, "C" + c + ".java"), StandardCharsets.UTF_8.name())) {
+                out.println("package " + packageOf(c) + ";");
+                out.println();
+                out.println("public class C" + c + " {");
+                for (int m = 0; m < methodsPerClass; m++) {
+                    out.println("    public int m" + m + "(int x) {");
+                    for (int k = 0; k < callsPerMethod; k++) {
+                        int target = random.nextInt(classCount);
+                        out.println("        x += new " + packageOf(target) + ".C" + target + "().m" + random.nextInt(methodsPerClass) + "(x);");
+                    }
+                    out.println("        return x;");
+                    out.println("    }");
+                }
+                out.println("}");
+            }
+        }
+        return projectDir;
+    }
+
+    private static String packageOf(int classIndex) {
+        return "pkg" + classIndex / CLASSES_PER_PACKAGE;
+    }
+
+    // Génère un projet sur disque : SyntheticProject <dossier> <classes> <méthodes par classe> <appels par méthode> [graine]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage : SyntheticProject <dossier> <classes> <méthodes par classe> <appels par méthode> [graine]");
+            System.exit(2);
+        }
+
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+        File projectDir = generate(new File(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), seed);
+        System.out.println("Projet généré dans " + projectDir.getAbsolutePath());
+    }
+}
@@ -0,0 +1,534 @@
+package org.analysis;
+
+import org.analysis.clustering.Cluster;
+import org.analysis.clustering.ClusteringStrategy;
+import org.analysis.clustering.ModuleClusterer;
+import org.analysis.core.AnalysisEnvironment;
+import org.analysis.core.Analyzer;
+import org.analysis.core.SourceWatcher;
+import org.analysis.core.Workspace;
+import org.analysis.export.AnalysisExporter;
+import org.analysis.export.GraphWriter;
+import org.analysis.graph.CouplingLevel;
+import org.analysis.graph.DependencyKind;
+import org.analysis.graph.WeightedGraph;
+import org.analysis.metrics.AnalysisMetrics;
+import org.analysis.render.DetailLevel;
+import org.analysis.render.ForceLayout;
+import org.analysis.render.GraphCollapser;
+import org.analysis.server.AnalysisServer;
+import org.analysis.source.SourceScanner;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Mode non interactif : le projet et les opérations sont passés en arguments, les résultats sont écrits
+// en JSON ou en CSV dans un dossier ou sur la sortie standard. Aucune saisie ni affichage graphique ;
+// les messages de progression de l'analyse sont renvoyés sur la sortie d'erreur.
+public class BatchCLI {
+
+    private static final List<String> OPERATIONS = Arrays.asList("callgraph", "coupling", "hierarchy", "dendrogram", "modules", "size");
+
+    private static final String USAGE = "Usage : BatchCLI <projet> [--ops " + String.join(",", OPERATIONS) + "]"
+            + " [--cp <valeur>] [--top <n>] [--threads <n>] [--format json|csv] [--out <dossier>|-] [--include <globs>] [--exclude <globs>]\n"
+            + "         [--incremental] [--no-snapshot] [--off-heap] [--metrics <fichier>|-] [--weights <nature>=<poids>,...]\n"
+            + "         [--workspace] [--module-threads <n>] [--clustering " + String.join("|", ClusteringStrategy.NAMES) + "]\n"
+            + "         [--cluster-level class|package|subsystem] [--watch] [--debounce <ms>]\n"
+            + "         [--serve <port>] [--server-threads <n>]\n"
+            + "         [--render <fichier>.graphml|dot|gexf|svg|png] [--level method|class|package] [--min-weight <poids>]\n"
+            + "         [--max-edges <n>] [--layout-iterations <n>]\n"
+            + "  --ops          opérations à exporter (toutes par défaut)\n"
+            + "  --cp           couplage interne minimal des modules (0 par défaut)\n"
+            + "  --top          classes et méthodes les plus longues listées par size en JSON (10 par défaut)\n"
+            + "  --threads      threads d'extraction du graphe d'appel et du clustering (1 par défaut)\n"
+            + "  --format       format de sortie (json par défaut)\n"
+            + "  --out          dossier de sortie, un fichier par opération ; - pour la sortie standard (défaut)\n"
+            + "  --include      globs des sources retenues, relatifs au dossier src, séparés par des virgules\n"
+            + "  --exclude      globs des sources et dossiers ignorés, par exemple **/generated/**\n"
+            + "  --incremental  ne reparse que les fichiers modifiés depuis la dernière analyse\n"
+            + "  --no-snapshot  ni chargement ni enregistrement de l'instantané du graphe d'appel\n"
+            + "  --off-heap     graphe d'appel hors tas, dans des fichiers projetés en mémoire (dossier .analysis/graph)\n"
+            + "  --metrics      rapport des mesures par étape, en JSON dans un fichier ou lisible sur la sortie d'erreur (-)\n"
+            + "  --weights      poids des dépendances dans le couplage, par nature : call, super_call, constructor,\n"
+            + "                 field_access, type_reference (1,1,1,0,0 par défaut), par exemple field_access=1\n"
+            + "  --workspace    analyse chaque module du dossier (modules Maven du pom.xml, sinon sous-dossiers avec des sources)\n"
+            + "                 et ajoute le couplage entre modules (crossmodule) ; avec --out, un dossier par module\n"
+            + "  --module-threads  modules analysés en même temps avec --workspace (nombre de processeurs par défaut)\n"
+            + "  --clustering   algorithme du dendrogramme et des modules : fusions exactes par couplage maximal\n"
+            + "                 (agglomerative, par défaut) ou communautés par modularité, plus rapide (louvain)\n"
+            + "  --cluster-level  éléments regroupés en modules : classes (par défaut), paquetages ou sous-systèmes\n"
+            + "                 (premier niveau de paquetage sous le préfixe commun, -Danalysis.subsystem.depth)\n"
+            + "  --watch        après les résultats, suit les modifications des sources et écrit une ligne JSON par mise à jour\n"
+            + "                 (fichiers, arcs et modules apparus et disparus) ; JSON uniquement, sans --workspace\n"
+            + "  --debounce     accalmie attendue avant de traiter une rafale de modifications, en ms (" + SourceWatcher.DEFAULT_DEBOUNCE_MILLIS + " par défaut)\n"
+            + "  --serve        au lieu d'écrire les résultats, les sert en JSON sur http://127.0.0.1:<port>/ (couplage,\n"
+            + "                 voisins dans le graphe d'appel, dendrogramme, modules) ; sans --workspace ni --watch\n"
+            + "  --server-threads  threads de réponse du serveur (nombre de processeurs par défaut)\n"
+            + "  --render       vue du graphe disposée sans affichage, au format de l'extension ; avec --workspace,\n"
+            + "                 un fichier par module suffixé par son nom\n"
+            + "  --level        noeuds de la vue : méthodes (appels), classes ou paquetages (couplage) ; class par défaut\n"
+            + "  --min-weight   poids minimal des arêtes de la vue (0 par défaut)\n"
+            + "  --max-edges    arêtes les plus lourdes gardées dans la vue (0 : toutes, par défaut)\n"
+            + "  --layout-iterations  itérations de la disposition par forces (" + ForceLayout.DEFAULT_ITERATIONS + " par défaut)";
+
+    private String projectPath;
+    private final Set<String> operations = new LinkedHashSet<>();
+    private double minimumCoupling = 0.0;
+    private int top = 10;
+    private int threadCount = 1;
+    private AnalysisExporter.Format format = AnalysisExporter.Format.JSON;
+    private String output = "-";
+    private boolean incremental = false;
+    private boolean snapshotEnabled = true;
+    private boolean offHeap = false;
+    private boolean workspace = false;
+    private int moduleThreadCount = Runtime.getRuntime().availableProcessors();
+    private String metricsOutput;
+    private int[] dependencyWeights;
+    private List<String> includeGlobs = new ArrayList<>();
+    private List<String> excludeGlobs = new ArrayList<>();
+    private ClusteringStrategy clusteringStrategy;
+    private CouplingLevel clusteringLevel;
+    private String renderOutput;
+    private DetailLevel renderLevel = DetailLevel.CLASS;
+    private double minimumWeight = 0.0;
+    private int maxEdges = 0;
+    private int layoutIterations = ForceLayout.DEFAULT_ITERATIONS;
+    private boolean watch = false;
+    private long debounceMillis = SourceWatcher.DEFAULT_DEBOUNCE_MILLIS;
+    private int serverPort = -1;
+    private int serverThreadCount = Runtime.getRuntime().availableProcessors();
+
+    // Vrai tant qu'aucun tableau CSV n'a été écrit sur la sortie standard
+    private boolean firstStandardTable = true;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        BatchCLI batch = new BatchCLI();
+        try {
+            batch.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        // Les résultats gardent la sortie standard, la progression de l'analyse passe sur la sortie d'erreur
+        PrintStream standardOutput = System.out;
+        System.setOut(System.err);
+        try {
+            batch.run(standardOutput);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Échec de l'analyse : " + e);
+            System.exit(1);
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--ops":
+                    for (String operation : value(args, ++i, arg).split(",")) {
+                        if (!OPERATIONS.contains(operation.trim()))
+                            throw new IllegalArgumentException("Opération inconnue : " + operation);
+                        operations.add(operation.trim());
+                    }
+                    break;
+                case "--cp":
+                    minimumCoupling = parseNumber(value(args, ++i, arg), arg);
+                    break;
+                case "--top":
+                    top = parseCount(value(args, ++i, arg), arg);
+                    break;
+                case "--threads":
+                    threadCount = parseThreadCount(value(args, ++i, arg), arg);
+                    break;
+                case "--module-threads":
+                    moduleThreadCount = parseThreadCount(value(args, ++i, arg), arg);
+                    break;
+                case "--workspace":
+                    workspace = true;
+                    break;
+                case "--format":
+                    try {
+                        format = AnalysisExporter.Format.valueOf(value(args, ++i, arg).toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Format inconnu : " + args[i]);
+                    }
+                    break;
+                case "--out":
+                    output = value(args, ++i, arg);
+                    break;
+                case "--incremental":
+                    incremental = true;
+                    break;
+                case "--no-snapshot":
+                    snapshotEnabled = false;
+                    break;
+                case "--off-heap":
+                    offHeap = true;
+                    break;
+                case "--include":
+                    includeGlobs = SourceScanner.globs(value(args, ++i, arg));
+                    break;
+                case "--exclude":
+                    excludeGlobs = SourceScanner.globs(value(args, ++i, arg));
+                    break;
+                case "--metrics":
+                    metricsOutput = value(args, ++i, arg);
+                    break;
+                case "--weights":
+                    try {
+                        dependencyWeights = DependencyKind.parseWeights(value(args, ++i, arg));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Poids entier attendu pour " + arg + " : " + args[i]);
+                    }
+                    break;
+                case "--clustering":
+                    clusteringStrategy = ClusteringStrategy.forName(value(args, ++i, arg));
+                    break;
+                case "--cluster-level":
+                    clusteringLevel = CouplingLevel.fromLabel(value(args, ++i, arg));
+                    break;
+                case "--watch":
+                    watch = true;
+                    break;
+                case "--debounce":
+                    debounceMillis = parseCount(value(args, ++i, arg), arg);
+                    break;
+                case "--serve":
+                    serverPort = parseCount(value(args, ++i, arg), arg);
+                    if (serverPort > 65535)
+                        throw new IllegalArgumentException("Port invalide : " + serverPort);
+                    break;
+                case "--server-threads":
+                    serverThreadCount = parseThreadCount(value(args, ++i, arg), arg);
+                    break;
+                case "--render":
+                    renderOutput = value(args, ++i, arg);
+                    GraphWriter.Format.fromFileName(renderOutput);
+                    break;
+                case "--level":
+                    renderLevel = DetailLevel.fromLabel(value(args, ++i, arg));
+                    break;
+                case "--min-weight":
+                    minimumWeight = parseNumber(value(args, ++i, arg), arg);
+                    break;
+                case "--max-edges":
+                    maxEdges = parseCount(value(args, ++i, arg), arg);
+                    break;
+                case "--layout-iterations":
+                    layoutIterations = parseCount(value(args, ++i, arg), arg);
+                    break;
+                default:
+                    if (arg.startsWith("--") || projectPath != null)
+                        throw new IllegalArgumentException("Argument inattendu : " + arg);
+                    projectPath = arg;
+            }
+        }
+
+        if (projectPath == null)
+            throw new IllegalArgumentException("Chemin du projet manquant");
+        if (!new File(projectPath).isDirectory())
+            throw new IllegalArgumentException("Le dossier est introuvable : " + projectPath);
+        if (operations.isEmpty())
+            operations.addAll(OPERATIONS);
+        if (watch && (workspace || format != AnalysisExporter.Format.JSON))
+            throw new IllegalArgumentException("--watch n'accepte ni --workspace ni --format csv");
+        if (serverPort >= 0 && (workspace || watch))
+            throw new IllegalArgumentException("--serve n'accepte ni --workspace ni --watch");
+    }
+
+    private void run(PrintStream standardOutput) throws IOException {
+        PrintWriter standardWriter = new PrintWriter(new BufferedWriter(new OutputStreamWriter(standardOutput, StandardCharsets.UTF_8)));
+
+        if (workspace) {
+            runWorkspace(standardWriter);
+        } else if (serverPort >= 0) {
+            Analyzer analyzer = Analyzer.getInstance(new File(projectPath).getAbsolutePath());
+            configure(analyzer);
+            analyzer.buildCallGraph();
+            serve(analyzer);
+        } else {
+            Analyzer analyzer = Analyzer.getInstance(new File(projectPath).getAbsolutePath());
+            configure(analyzer);
+            analyze(analyzer);
+            writeOperations(analyzer, standardWriter, new File(output), "");
+            if (renderOutput != null)
+                render(analyzer, new File(renderOutput));
+            if (watch) {
+                standardWriter.flush();
+                watch(analyzer, standardWriter);
+            }
+        }
+        standardWriter.flush();
+
+        // En mode surveillance ou serveur, le rapport est écrit à l'arrêt
+        if (!watch && serverPort < 0)
+            writeMetrics();
+    }
+
+    // Sert l'analyse sur l'interface locale jusqu'à l'arrêt du programme ; le rapport des mesures, latences
+    // des requêtes comprises, est produit à l'arrêt
+    private void serve(Analyzer analyzer) throws IOException {
+        AnalysisServer server = new AnalysisServer(analyzer.getSession(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), serverPort), serverThreadCount);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                writeMetrics();
+            } catch (IOException e) {
+                System.err.println("Échec de l'écriture des mesures : " + e);
+            }
+        }));
+
+        server.start();
+        System.err.printf("Serveur d'analyse à l'écoute sur http://%s:%d/%n",
+                server.getAddress().getHostString(), server.getAddress().getPort());
+        try {
+            server.awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Suit les sources jusqu'à l'arrêt du programme ; chaque mise à jour qui change des arcs ou des modules est écrite
+    // sur une ligne de la sortie standard et le rapport des mesures est produit à l'arrêt
+    private void watch(Analyzer analyzer, PrintWriter standardWriter) throws IOException {
+        SourceWatcher watcher = new SourceWatcher(analyzer.getSession(), minimumCoupling, debounceMillis);
+        watcher.addListener(update -> {
+            System.err.println("Mise à jour : " + update);
+            // Fichier enregistré sans changement des dépendances : rien à écrire
+            if (update.isEmpty())
+                return;
+            synchronized (standardWriter) {
+                try {
+                    new AnalysisExporter(standardWriter, format).writeAnalysisUpdate(update);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                standardWriter.flush();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                watcher.close();
+                writeMetrics();
+            } catch (IOException e) {
+                System.err.println("Échec de l'arrêt de la surveillance : " + e);
+            }
+        }));
+
+        watcher.start();
+        try {
+            watcher.awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Analyse les modules en parallèle puis écrit les résultats de chacun et le couplage entre modules.
+    // Sur la sortie standard en JSON : {"modules":{"<module>":{...}},"crossmodule":[...]}
+    private void runWorkspace(PrintWriter standardWriter) throws IOException {
+        Workspace modules = new Workspace(new File(projectPath), AnalysisEnvironment.getDefault());
+        modules.getModules().values().forEach(this::configure);
+        modules.analyze(moduleThreadCount, this::analyze);
+
+        boolean toStandardOutput = output.equals("-");
+        boolean jsonObject = toStandardOutput && format == AnalysisExporter.Format.JSON;
+        if (jsonObject)
+            standardWriter.print("{\"modules\":{");
+
+        String separator = "";
+        for (Map.Entry<String, Analyzer> module : modules.getModules().entrySet()) {
+            if (jsonObject)
+                standardWriter.print(separator + "\"" + module.getKey().replace("\\", "\\\\").replace("\"", "\\\"") + "\":");
+            separator = ",";
+            writeOperations(module.getValue(), standardWriter, new File(output, module.getKey()), module.getKey() + "/");
+            if (renderOutput != null)
+                render(module.getValue(), moduleRenderFile(module.getKey()));
+        }
+
+        PrintWriter writer = toStandardOutput ? standardWriter : openOutputFile(new File(output), "crossmodule");
+        if (jsonObject)
+            standardWriter.print("},\"crossmodule\":");
+        else if (toStandardOutput)
+            standardWriter.println("\n# crossmodule");
+        new AnalysisExporter(writer, format).writeModuleCoupling(modules.getCrossModuleCoupling());
+
+        if (jsonObject)
+            standardWriter.println("}");
+        else if (!toStandardOutput)
+            writer.close();
+    }
+
+    private void configure(Analyzer analyzer) {
+        analyzer.setThreadCount(threadCount);
+        // La surveillance s'appuie sur le cache d'extraction, rempli dès la première analyse
+        analyzer.setIncremental(incremental || watch);
+        analyzer.setSnapshotEnabled(snapshotEnabled);
+        if (offHeap)
+            analyzer.setOffHeap(true);
+        if (dependencyWeights != null)
+            analyzer.setDependencyWeights(dependencyWeights);
+        if (!includeGlobs.isEmpty() || !excludeGlobs.isEmpty())
+            analyzer.setSourceFilters(includeGlobs, excludeGlobs);
+        if (clusteringStrategy != null)
+            analyzer.setClusteringStrategy(clusteringStrategy);
+        if (clusteringLevel != null)
+            analyzer.setClusteringLevel(clusteringLevel);
+    }
+
+    private void analyze(Analyzer analyzer) throws IOException {
+        analyzer.buildCallGraph();
+
+        ModuleClusterer clusterer = analyzer.getClusterer();
+        if ((operations.contains("dendrogram") || operations.contains("modules")) && clusterer.getDendrogram() == null)
+            clusterer.buildClusters();
+    }
+
+    // Écrit les opérations demandées sur la sortie standard, ou un fichier par opération dans le dossier ;
+    // le préfixe distingue les tableaux CSV des différents modules sur la sortie standard
+    private void writeOperations(Analyzer analyzer, PrintWriter standardWriter, File directory, String prefix) throws IOException {
+        boolean toStandardOutput = output.equals("-");
+
+        // Sur la sortie standard, les résultats JSON forment un seul objet et les tableaux CSV sont précédés de leur nom
+        if (toStandardOutput && format == AnalysisExporter.Format.JSON)
+            standardWriter.print("{");
+
+        String separator = "";
+        for (String operation : operations) {
+            PrintWriter writer = toStandardOutput ? standardWriter : openOutputFile(directory, operation);
+            if (toStandardOutput && format == AnalysisExporter.Format.JSON) {
+                writer.print(separator + "\"" + operation + "\":");
+                separator = ",";
+            } else if (toStandardOutput) {
+                writer.println((firstStandardTable ? "" : "\n") + "# " + prefix + operation);
+                firstStandardTable = false;
+            }
+
+            export(analyzer, analyzer.getClusterer(), operation, new AnalysisExporter(writer, format));
+
+            if (toStandardOutput)
+                writer.flush();
+            else
+                writer.close();
+        }
+
+        if (toStandardOutput && format == AnalysisExporter.Format.JSON)
+            standardWriter.println("}");
+    }
+
+    // Rapport de fin d'exécution : lisible sur la sortie d'erreur, ou JSON dans le fichier demandé
+    private void writeMetrics() throws IOException {
+        if (metricsOutput == null)
+            return;
+
+        if (metricsOutput.equals("-")) {
+            AnalysisMetrics.getInstance().printReport(System.err);
+            return;
+        }
+
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(metricsOutput), StandardCharsets.UTF_8))) {
+            AnalysisMetrics.getInstance().writeJson(writer);
+        }
+    }
+
+    private void export(Analyzer analyzer, ModuleClusterer clusterer, String operation, AnalysisExporter exporter) throws IOException {
+        switch (operation) {
+            case "callgraph":
+                exporter.writeCallGraph(analyzer.getCallGraph());
+                break;
+            case "coupling":
+                exporter.writeCouplingMatrix(analyzer.getCouplingIndex());
+                break;
+            case "hierarchy":
+                exporter.writeCouplingHierarchy(analyzer.getCouplingHierarchy());
+                break;
+            case "dendrogram":
+                exporter.writeDendrogram(clusterer.getDendrogram());
+                break;
+            case "modules":
+                Set<Cluster> modules = clusterer.getIdentifiedModules(minimumCoupling);
+                exporter.writeModules(modules);
+                break;
+            case "size":
+                exporter.writeCodeMetrics(analyzer.getCodeMetrics(), top);
+                break;
+        }
+    }
+
+    // Vue du graphe au niveau demandé, filtrée par poids puis disposée sans affichage, écrite dans le fichier
+    private void render(Analyzer analyzer, File file) throws IOException {
+        long start = System.nanoTime();
+        WeightedGraph view = GraphCollapser.collapse(analyzer.getCallGraph(), analyzer.getCouplingIndex(), renderLevel);
+        view = GraphCollapser.filter(view, minimumWeight, maxEdges);
+        ForceLayout layout = new ForceLayout(view).run(layoutIterations);
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Impossible de créer le dossier " + directory);
+        new GraphWriter(layout).write(file);
+        System.err.printf("Vue par %s écrite dans %s en %d ms (%d noeuds, %d arêtes)%n", renderLevel.getLabel(), file,
+                (System.nanoTime() - start) / 1_000_000, view.getNodeCount(), view.getEdgeCount());
+    }
+
+    // Fichier de la vue d'un module : nom du module inséré avant l'extension
+    private File moduleRenderFile(String module) {
+        int dot = renderOutput.lastIndexOf('.');
+        return new File(renderOutput.substring(0, dot) + "-" + module.replace('/', '_').replace('\\', '_') + renderOutput.substring(dot));
+    }
+
+    private PrintWriter openOutputFile(File directory, String operation) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Impossible de créer le dossier " + directory);
+
+        File file = new File(directory, operation + "." + format.name().toLowerCase(Locale.ROOT));
+        System.err.println("Écriture de " + file);
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)));
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length)
+            throw new IllegalArgumentException("Valeur manquante pour " + option);
+        return args[index];
+    }
+
+    private static int parseThreadCount(String value, String option) {
+        int count;
+        try {
+            count = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Nombre entier attendu pour " + option + " : " + value);
+        }
+        if (count < 1)
+            throw new IllegalArgumentException("Le nombre de threads doit être positif : " + count);
+        return count;
+    }
+
+    // Entier positif ou nul
+    private static int parseCount(String value, String option) {
+        int count;
+        try {
+            count = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Nombre entier attendu pour " + option + " : " + value);
+        }
+        if (count < 0)
+            throw new IllegalArgumentException("Valeur positive ou nulle attendue pour " + option + " : " + count);
+        return count;
+    }
+
+    private static double parseNumber(String value, String option) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valeur numérique attendue pour " + option + " : " + value);
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package org.analysis;
 
 import org.analysis.cli.AbstractCLI;
+import org.analysis.core.AnalysisSession;
 import org.analysis.core.Analyzer;
+import org.analysis.graph.CouplingHierarchy;
+import org.analysis.graph.CouplingLevel;
+import org.analysis.metrics.AnalysisMetrics;
+import org.analysis.metrics.CodeMetrics;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 public class MainCLI extends AbstractCLI {
 
     private static Analyzer analyzer;
+    // Session partagée par les commandes du menu : chaque étape de l'analyse n'est calculée qu'une fois
+    private static AnalysisSession session;
     // Ensemble pour stocker les choix valides de l'utilisateur
     private static final Set<String> validChoices = new LinkedHashSet<>();
 
@@ -38,9 +47,10 @@ public class MainCLI extends AbstractCLI {
             }
 
             analyzer = Analyzer.getInstance(projectPath);
+            session = analyzer.getSession();
 
             // Remplissage de l'ensemble des choix valides
-            for (int i = 0; i <= 5; i++) validChoices.add(String.valueOf(i));
+            for (int i = 0; i <= 8; i++) validChoices.add(String.valueOf(i));
 
             // Création et exécution de l'interface CLI
             MainCLI mainCLI = new MainCLI();
@@ -62,6 +72,9 @@ public class MainCLI extends AbstractCLI {
         stringBuilder.append("\n3. Visualiser le graphe d'appel.");
         stringBuilder.append("\n4. Clustering - Identification des clusters.");
         stringBuilder.append("\n5. Identification des groupes de classes couplées (Modules / Service /...).");
+        stringBuilder.append("\n6. Prendre en compte les modifications des sources.");
+        stringBuilder.append("\n7. Métriques de taille (plus grandes classes, plus longues méthodes).");
+        stringBuilder.append("\n8. Couplage entre deux paquetages ou sous-systèmes, détaillé au niveau inférieur.");
         stringBuilder.append("\n---------------------------------");
 
         System.out.println(stringBuilder);
@@ -72,6 +85,9 @@ public class MainCLI extends AbstractCLI {
     protected void processUserInput(String userInput) throws IOException {
 
         if (userInput.equals(QUIT)) {
+            // Rapport des mesures de la session, avec -Danalysis.metrics.report=true
+            if (Boolean.getBoolean("analysis.metrics.report"))
+                AnalysisMetrics.getInstance().printReport(System.out);
             System.out.println("À très bientôt !");
             return;
         }
@@ -101,9 +117,77 @@ public class MainCLI extends AbstractCLI {
             case "5":
                 analyzer.identifyModules();
                 break;
+            case "6":
+                session.refresh();
+                break;
+            case "7":
+                showCodeMetrics();
+                break;
+            case "8":
+                handleChoice8();
+                break;
         }
     }
 
+    // Totaux puis les dix classes ayant le plus de lignes, de méthodes et d'attributs, et les dix méthodes les plus longues
+    private void showCodeMetrics() throws IOException {
+        CodeMetrics metrics = session.getCodeMetrics();
+        System.out.printf("%d classes, %d méthodes, %d attributs, %d paquetages, %d lignes dans les méthodes%n",
+                metrics.getClassCount(), metrics.getMethodCount(), metrics.getAttributeCount(), metrics.getPackageCount(), metrics.getTotalLines());
+
+        System.out.println("Classes les plus longues :");
+        for (int classId : metrics.topClasses(CodeMetrics.ClassMeasure.LINES, 10))
+            System.out.printf("  %6d lignes  %s%n", metrics.getClassLines(classId), metrics.getClassName(classId));
+        System.out.println("Classes ayant le plus de méthodes :");
+        for (int classId : metrics.topClasses(CodeMetrics.ClassMeasure.METHODS, 10))
+            System.out.printf("  %6d méthodes  %s%n", metrics.getClassMethodCount(classId), metrics.getClassName(classId));
+        System.out.println("Classes ayant le plus d'attributs :");
+        for (int classId : metrics.topClasses(CodeMetrics.ClassMeasure.ATTRIBUTES, 10))
+            System.out.printf("  %6d attributs  %s%n", metrics.getClassAttributeCount(classId), metrics.getClassName(classId));
+        System.out.println("Méthodes les plus longues :");
+        for (int methodId : metrics.topMethodsByLines(10))
+            System.out.printf("  %6d lignes  %s%n", metrics.getMethodLines(methodId), metrics.getMethodName(methodId));
+    }
+
+    // Couplage entre deux groupes d'un niveau agrégé, puis les dix paires de sous-groupes qui y contribuent le plus
+    private void handleChoice8() throws IOException {
+        System.out.print("Niveau (package, subsystem) : ");
+        CouplingLevel level;
+        try {
+            level = CouplingLevel.fromLabel(inputReader.readLine());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (level == CouplingLevel.CLASS) {
+            System.out.println("Le couplage entre classes est donné par le choix 1.");
+            return;
+        }
+
+        System.out.print("Nom du groupe A : ");
+        String groupNameA = inputReader.readLine().trim();
+        System.out.print("Nom du groupe B : ");
+        String groupNameB = inputReader.readLine().trim();
+
+        CouplingHierarchy hierarchy = session.getCouplingHierarchy();
+        int groupA = hierarchy.getGroupId(level, groupNameA), groupB = hierarchy.getGroupId(level, groupNameB);
+        if (groupA < 0 || groupB < 0) {
+            System.out.println("Groupe inconnu : " + (groupA < 0 ? groupNameA : groupNameB));
+            return;
+        }
+
+        double coupling = hierarchy.getCoupling(level, groupNameA, groupNameB);
+        System.out.printf("Le couplage entre %s et %s vaut %f (%.2f%%). %n", groupNameA, groupNameB, coupling, coupling * 100);
+
+        List<int[]> pairs = new ArrayList<>();
+        hierarchy.forEachChildPair(level, groupA, groupB, (childA, childB, count) -> pairs.add(new int[]{childA, childB, count}));
+        pairs.sort((a, b) -> Integer.compare(b[2], a[2]));
+        CouplingLevel childLevel = level.child();
+        System.out.printf("Principales paires (%s) :%n", childLevel.getLabel());
+        for (int[] pair : pairs.subList(0, Math.min(10, pairs.size())))
+            System.out.printf("  %6d  %s - %s%n", pair[2], hierarchy.getGroupName(childLevel, pair[0]), hierarchy.getGroupName(childLevel, pair[1]));
+    }
+
     // Gestion du choix 1 du menu principal
     private void handleChoice1() throws IOException {
         System.out.print("Nom de la classe A : ");
@@ -112,7 +196,13 @@ public class MainCLI extends AbstractCLI {
         System.out.print("Nom de la classe B : ");
         String classNameB = inputReader.readLine();
 
-        double couplingWeight = analyzer.calculateCouplingMetric(classNameA, classNameB);
+        double couplingWeight;
+        try {
+            couplingWeight = session.getCoupling(classNameA, classNameB);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + ", merci de préciser le paquetage.");
+            return;
+        }
 
         System.out.printf("Le couplage entre %s et %s vaut %f (%.2f%%). %n", classNameA, classNameB, couplingWeight, couplingWeight*100);
     }
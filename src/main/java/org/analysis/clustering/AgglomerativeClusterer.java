@@ -0,0 +1,362 @@
+package org.analysis.clustering;
+
+import org.analysis.graph.CouplingIndex;
+import org.analysis.util.IntIntHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+// Clustering hiérarchique ascendant par couplage cumulé (somme des appels entre les classes des deux clusters).
+// La similarité entre clusters est tenue dans des lignes creuses (voisins couplés seulement) mises à jour après
+// chaque fusion (ligne fusionnée = ligne1 + ligne2) et la meilleure paire est trouvée par une file de priorité
+// des meilleurs voisins. Une fusion ne visite que les voisins des deux clusters : le coût total suit le nombre
+// de paires couplées et non le carré du nombre de classes.
+// Les fusions sont celles du parcours naïf de toutes les paires : à similarité égale, la paire retenue est
+// la première dans l'ordre de la liste des clusters, où chaque cluster fusionné est ajouté en fin de liste.
+// Avec plusieurs threads, le calcul initial des similarités et la mise à jour des voisins après une fusion sont
+// répartis sur un ForkJoinPool ; chaque emplacement est traité indépendamment et les candidats à remettre en file
+// sont notés par position puis ajoutés dans l'ordre, les fusions restent donc identiques au mode séquentiel.
+// Les clusters initiaux sont supposés disjoints. Quand les classes de l'index sont des groupes (paquetages,
+// sous-systèmes), les appels internes à chaque groupe, rangés dans la paire (groupe, groupe), comptent dans le
+// couplage interne des feuilles.
+public class AgglomerativeClusterer {
+
+    // En dessous de ce nombre de voisins, la mise à jour des lignes coûte moins que sa répartition
+    private static final int PARALLEL_ROW_THRESHOLD = 1 << 12;
+
+    private final CouplingIndex index;
+    private final int threadCount;
+    private final boolean internalPairs;
+    private ForkJoinPool pool;
+
+    // Similarités non nulles de chaque emplacement avec les autres (symétriques), un cluster fusionné reprenant
+    // l'emplacement de son premier membre
+    private IntIntHashMap[] similarities;
+
+    // Rang de chaque emplacement dans la liste des clusters (croissant avec l'ordre de création)
+    private int[] ranks;
+    private boolean[] active;
+
+    // Noeud du dendrogramme porté par chaque emplacement
+    private int[] nodes;
+
+    // Meilleur voisin de rang supérieur ayant une similarité strictement positive (-1 si aucun).
+    // La similarité est toujours exacte ; quand le voisin est marqué incertain, un autre voisin de même
+    // similarité et de rang plus faible peut exister, il n'est recherché que si l'emplacement arrive en tête de file.
+    private int[] bestPartner;
+    private int[] bestSimilarity;
+    private boolean[] uncertainPartner;
+
+    // Liste doublement chaînée des emplacements actifs par rang croissant
+    private int[] previous;
+    private int[] next;
+    private int head, tail;
+
+    // Emplacement à remettre en file, noté à la position de l'emplacement parmi les voisins de la fusion (-1 sinon)
+    private int[] requeued = new int[0];
+
+    private PriorityQueue<Candidate> queue;
+
+    public AgglomerativeClusterer(CouplingIndex index) {
+        this(index, 1);
+    }
+
+    public AgglomerativeClusterer(CouplingIndex index, int threadCount) {
+        this(index, threadCount, false);
+    }
+
+    // internalPairs : la paire (classe, classe) de l'index compte dans le couplage interne du cluster qui la contient
+    public AgglomerativeClusterer(CouplingIndex index, int threadCount, boolean internalPairs) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("Le nombre de threads doit être positif : " + threadCount);
+
+        this.index = index;
+        this.threadCount = threadCount;
+        this.internalPairs = internalPairs;
+    }
+
+    // Fusionne les clusters jusqu'à n'en garder qu'un et retourne le dendrogramme des fusions
+    public Dendrogram cluster(List<Cluster> initialClusters) {
+        int size = initialClusters.size();
+        int[][] classIds = new int[size][];
+        int[] intraCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            classIds[i] = initialClusters.get(i).getClasses().stream().mapToInt(index::getClassId).toArray();
+            intraCounts[i] = countWithin(classIds[i]);
+        }
+
+        Dendrogram dendrogram = new Dendrogram(initialClusters, intraCounts, index.getTotalEdges());
+        if (size < 2)
+            return dendrogram;
+
+        if (threadCount > 1)
+            pool = new ForkJoinPool(threadCount);
+        try {
+            initialize(classIds);
+            merge(dendrogram, size);
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+            pool = null;
+        }
+        return dendrogram;
+    }
+
+    private void merge(Dendrogram dendrogram, int size) {
+
+        int nextRank = size;
+        for (int remaining = size; remaining > 1; remaining--) {
+            int first = pollBestSlot(), second;
+
+            if (first != -1) {
+                second = bestPartner[first];
+            } else {
+                // Plus aucune paire couplée : le parcours naïf fusionne les deux premiers clusters de la liste
+                first = head;
+                second = next[head];
+            }
+
+            int node = dendrogram.addMerge(nodes[first], nodes[second], similarities[first].get(second, 0));
+            merge(first, second, node, nextRank++);
+        }
+    }
+
+    private void initialize(int[][] classIds) {
+        int size = classIds.length;
+        similarities = new IntIntHashMap[size];
+        ranks = new int[size];
+        active = new boolean[size];
+        nodes = new int[size];
+        bestPartner = new int[size];
+        bestSimilarity = new int[size];
+        uncertainPartner = new boolean[size];
+        previous = new int[size];
+        next = new int[size];
+        queue = new PriorityQueue<>(size);
+
+        for (int i = 0; i < size; i++) {
+            nodes[i] = i;
+            ranks[i] = i;
+            active[i] = true;
+            bestPartner[i] = -1;
+            previous[i] = i - 1;
+            next[i] = i + 1 < size ? i + 1 : -1;
+        }
+        head = 0;
+        tail = size - 1;
+
+        // Les lignes sont remplies à partir des voisins de chaque classe dans l'index
+        int[] slotOfClass = new int[index.getClassCount()];
+        Arrays.fill(slotOfClass, -1);
+        for (int i = 0; i < size; i++)
+            for (int classId : classIds[i])
+                if (classId >= 0)
+                    slotOfClass[classId] = i;
+
+        forEachSlot(size, i -> {
+            IntIntHashMap row = new IntIntHashMap();
+            for (int classId : classIds[i]) {
+                if (classId < 0) continue;
+                index.forEachNeighbour(classId, (neighbourId, count) -> {
+                    int j = slotOfClass[neighbourId];
+                    if (j >= 0 && j != i)
+                        row.addTo(j, count);
+                });
+            }
+            similarities[i] = row;
+        });
+
+        // Les meilleurs voisins sont calculés indépendamment, puis mis en file dans l'ordre des emplacements
+        forEachSlot(size, this::findBestPartner);
+        for (int i = 0; i < size; i++)
+            if (bestPartner[i] != -1)
+                queue.add(new Candidate(i, ranks[i], bestSimilarity[i]));
+    }
+
+    // Applique l'action à chaque entier de [0, count), par tranches réparties sur le pool s'il existe
+    private void forEachSlot(int count, IntConsumer action) {
+        if (pool == null || count <= RangeAction.CHUNK_SIZE) {
+            for (int i = 0; i < count; i++)
+                action.accept(i);
+            return;
+        }
+        pool.invoke(new RangeAction(0, count, action));
+    }
+
+    // Nombre d'appels entre les classes d'un même cluster, prises deux à deux, et internes à chaque classe
+    // si les paires (classe, classe) sont comptées
+    private int countWithin(int[] classes) {
+        int count = 0;
+        for (int a = 0; a < classes.length; a++)
+            for (int b = internalPairs ? a : a + 1; b < classes.length; b++)
+                if (classes[a] >= 0 && classes[b] >= 0)
+                    count += index.getCount(classes[a], classes[b]);
+        return count;
+    }
+
+    // Fusionne l'emplacement second dans first, le cluster résultant prenant le rang le plus élevé
+    private void merge(int first, int second, int node, int rank) {
+        active[second] = false;
+        unlink(first);
+        unlink(second);
+
+        nodes[first] = node;
+        ranks[first] = rank;
+        append(first);
+
+        // Le cluster fusionné a le rang le plus élevé : il n'a aucun voisin de rang supérieur
+        bestPartner[first] = -1;
+        uncertainPartner[first] = false;
+
+        // Ligne fusionnée : la plus petite des deux lignes est ajoutée à la plus grande
+        IntIntHashMap merged = similarities[first], absorbed = similarities[second];
+        merged.remove(second);
+        absorbed.remove(first);
+        if (absorbed.size() > merged.size()) {
+            IntIntHashMap swap = merged;
+            merged = absorbed;
+            absorbed = swap;
+        }
+        IntIntHashMap mergedRow = merged;
+        absorbed.forEach(mergedRow::addTo);
+        similarities[first] = mergedRow;
+        similarities[second] = null;
+
+        // Un cluster sans voisin dans aucun des deux membres garde une similarité nulle : seuls les voisins changent
+        int[] neighbours = mergedRow.keys();
+        if (pool == null || neighbours.length < PARALLEL_ROW_THRESHOLD) {
+            for (int k : neighbours)
+                if (updateRow(k, first, second, mergedRow))
+                    queue.add(new Candidate(k, ranks[k], bestSimilarity[k]));
+        } else {
+            if (requeued.length < neighbours.length)
+                requeued = new int[neighbours.length];
+            forEachSlot(neighbours.length, position -> {
+                int k = neighbours[position];
+                requeued[position] = updateRow(k, first, second, mergedRow) ? k : -1;
+            });
+            for (int position = 0; position < neighbours.length; position++)
+                if (requeued[position] != -1)
+                    queue.add(new Candidate(requeued[position], ranks[requeued[position]], bestSimilarity[requeued[position]]));
+        }
+    }
+
+    // Reporte sur la ligne du voisin k sa similarité avec le cluster fusionné et met à jour le voisin de k.
+    // Seules les données de k sont modifiées ; retourne true si k doit être remis en file.
+    private boolean updateRow(int k, int first, int second, IntIntHashMap mergedRow) {
+        int similarity = mergedRow.get(k, 0);
+        IntIntHashMap row = similarities[k];
+        row.remove(second);
+        row.put(first, similarity);
+
+        if (bestPartner[k] == first || bestPartner[k] == second) {
+            // Les similarités ne font que croître : le cluster fusionné est au moins aussi couplé que l'ancien
+            // voisin. À égalité, un voisin de rang plus faible et de même similarité peut passer devant.
+            boolean uncertain = similarity == bestSimilarity[k];
+            boolean changed = assignBestPartner(k, first, similarity);
+            uncertainPartner[k] = uncertain;
+            return changed;
+        } else if (similarity > 0 && (bestPartner[k] == -1 || similarity > bestSimilarity[k])) {
+            // À similarité égale, le voisin actuel de rang plus faible reste prioritaire
+            return assignBestPartner(k, first, similarity);
+        }
+        return false;
+    }
+
+    // Recherche le voisin et remet l'emplacement en file si sa similarité a changé
+    private void updateBestPartner(int slot) {
+        int previousPartner = bestPartner[slot], previousSimilarity = bestSimilarity[slot];
+        findBestPartner(slot);
+        if (bestPartner[slot] != -1 && (previousPartner == -1 || previousSimilarity != bestSimilarity[slot]))
+            queue.add(new Candidate(slot, ranks[slot], bestSimilarity[slot]));
+    }
+
+    // Recherche le voisin de rang supérieur le plus couplé à l'emplacement (le plus petit rang à égalité)
+    private void findBestPartner(int slot) {
+        int[] best = {-1, 0};
+        int rank = ranks[slot];
+
+        similarities[slot].forEach((k, similarity) -> {
+            if (ranks[k] <= rank || similarity <= 0) return;
+            if (similarity > best[1] || (similarity == best[1] && ranks[k] < ranks[best[0]])) {
+                best[0] = k;
+                best[1] = similarity;
+            }
+        });
+
+        if (best[0] == -1) {
+            bestPartner[slot] = -1;
+            uncertainPartner[slot] = false;
+        } else {
+            assignBestPartner(slot, best[0], best[1]);
+        }
+    }
+
+    // Met à jour le voisin ; retourne true si la similarité change, l'emplacement devant alors être remis en file
+    private boolean assignBestPartner(int slot, int partner, int similarity) {
+        boolean changed = bestPartner[slot] == -1 || bestSimilarity[slot] != similarity;
+
+        bestPartner[slot] = partner;
+        bestSimilarity[slot] = similarity;
+        uncertainPartner[slot] = false;
+        return changed;
+    }
+
+    // Retire de la file les candidats périmés et retourne l'emplacement de la meilleure paire (-1 si aucune).
+    // L'ordre entre emplacements ne dépend que de la similarité et du rang de l'emplacement, un voisin
+    // incertain n'est donc recherché qu'au moment où son emplacement arrive en tête.
+    private int pollBestSlot() {
+        while (!queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            int slot = candidate.slot;
+            if (!active[slot] || ranks[slot] != candidate.rank
+                    || bestPartner[slot] == -1 || bestSimilarity[slot] != candidate.similarity)
+                continue;
+
+            if (uncertainPartner[slot]) {
+                updateBestPartner(slot);
+                if (bestPartner[slot] == -1 || bestSimilarity[slot] != candidate.similarity)
+                    continue;
+            }
+            return slot;
+        }
+        return -1;
+    }
+
+    private void unlink(int slot) {
+        if (previous[slot] == -1) head = next[slot];
+        else next[previous[slot]] = next[slot];
+
+        if (next[slot] == -1) tail = previous[slot];
+        else previous[next[slot]] = previous[slot];
+    }
+
+    private void append(int slot) {
+        previous[slot] = tail;
+        next[slot] = -1;
+        if (tail == -1) head = slot;
+        else next[tail] = slot;
+        tail = slot;
+    }
+
+    // Emplacement candidat : ordonné par similarité décroissante puis par rang croissant, comme le parcours naïf
+    private static class Candidate implements Comparable<Candidate> {
+        final int slot, rank, similarity;
+
+        Candidate(int slot, int rank, int similarity) {
+            this.slot = slot;
+            this.rank = rank;
+            this.similarity = similarity;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (similarity != other.similarity)
+                return Integer.compare(other.similarity, similarity);
+            return Integer.compare(rank, other.rank);
+        }
+    }
+}
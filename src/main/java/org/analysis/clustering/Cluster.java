@@ -1,13 +1,13 @@
 package org.analysis.clustering;
 
-import org.analysis.core.Analyzer;
-
-import java.io.IOException;
 import java.util.*;
 
 public class Cluster {
     private Set<String> classes;
 
+    // Couplage interne renseigné par le dendrogramme qui a produit le cluster, null tant qu'il ne l'a pas été
+    private Double avgCoupling;
+
     public Cluster(String className) {
         this.classes = new LinkedHashSet<>();
         this.classes.add(className);
@@ -18,7 +18,8 @@ public class Cluster {
     }
 
     public Cluster(Cluster cluster1, Cluster cluster2) {
-        this.classes = new LinkedHashSet<>();
+        int size = cluster1.getClasses().size() + cluster2.getClasses().size();
+        this.classes = new LinkedHashSet<>(size * 4 / 3 + 1);
         this.classes.addAll(cluster1.getClasses());
         this.classes.addAll(cluster2.getClasses());
     }
@@ -28,6 +29,7 @@ public class Cluster {
     }
 
     public void merge(Cluster other) {
+        this.avgCoupling = null;
         this.classes.addAll(other.getClasses());
     }
 
@@ -39,15 +41,14 @@ public class Cluster {
         return new Cluster();
     }
 
-    public double getAVGCoupling() throws IOException {
-        Analyzer analyzer = Analyzer.getInstance();
-
-        double coupling = 0.0;
-        Object[] allClasses = classes.toArray();
-        for (int i = 0; i < classes.size(); i++)
-            for (int j = i + 1; j < classes.size(); j++)
-                coupling += analyzer.calculateCouplingMetric((String)allClasses[i], (String)allClasses[j]);
+    public void setAVGCoupling(double avgCoupling) {
+        this.avgCoupling = avgCoupling;
+    }
 
-        return coupling;
+    // Le couplage dépend de l'index de l'analyse qui a produit le cluster : il n'est pas recalculé ici
+    public double getAVGCoupling() {
+        if (avgCoupling == null)
+            throw new IllegalStateException("Couplage interne non renseigné pour le cluster " + classes);
+        return avgCoupling;
     }
 }
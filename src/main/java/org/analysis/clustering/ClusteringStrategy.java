@@ -0,0 +1,41 @@
+package org.analysis.clustering;
+
+import org.analysis.graph.CouplingIndex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Algorithme qui regroupe les clusters initiaux d'après l'index de couplage et retourne le dendrogramme des fusions,
+// dont ModuleClusterer tire les modules. Choisi par -Danalysis.clustering (agglomerative par défaut).
+// internalPairs est vrai quand les classes de l'index sont des groupes (paquetages, sous-systèmes) dont les appels
+// internes, rangés dans la paire (groupe, groupe), font partie du couplage interne.
+public interface ClusteringStrategy {
+
+    Dendrogram cluster(CouplingIndex index, List<Cluster> initialClusters, int threadCount, boolean internalPairs);
+
+    // Fusions exactes par couplage cumulé maximal
+    ClusteringStrategy AGGLOMERATIVE = (index, clusters, threadCount, internalPairs) ->
+            new AgglomerativeClusterer(index, threadCount, internalPairs).cluster(clusters);
+
+    // Communautés par modularité, plus rapide sur les grands projets
+    ClusteringStrategy LOUVAIN = (index, clusters, threadCount, internalPairs) ->
+            new LouvainClusterer(index, threadCount, internalPairs).cluster(clusters);
+
+    List<String> NAMES = Arrays.asList("agglomerative", "louvain");
+
+    static ClusteringStrategy forName(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "agglomerative":
+                return AGGLOMERATIVE;
+            case "louvain":
+                return LOUVAIN;
+            default:
+                throw new IllegalArgumentException("Algorithme de clustering inconnu : " + name);
+        }
+    }
+
+    static ClusteringStrategy fromSystemProperties() {
+        return forName(System.getProperty("analysis.clustering", "agglomerative"));
+    }
+}
@@ -0,0 +1,192 @@
+package org.analysis.clustering;
+
+import java.util.*;
+
+// Dendrogramme du clustering hiérarchique : les feuilles 0..n-1 sont les clusters initiaux, le noeud n+t est
+// créé par la t-ième fusion. Chaque noeud connaît ses enfants, sa taille, le couplage entre ses deux enfants
+// au moment de la fusion et son couplage interne (somme des couplages entre ses classes deux à deux).
+public class Dendrogram {
+
+    private final int leafCount;
+    private final int totalEdges;
+    private final List<Cluster> leaves;
+
+    private final int[] left, right, parent, size;
+
+    // Nombre d'appels entre les deux enfants (hauteur de fusion) et entre les classes du noeud
+    private final int[] mergeCount, intraCount;
+
+    // Plus petite hauteur de fusion du sous-arbre, pour les coupes par seuil
+    private final int[] minMergeCount;
+
+    private int nodeCount;
+
+    // Clusters déjà matérialisés, par noeud
+    private final Cluster[] clusters;
+
+    public Dendrogram(List<Cluster> leaves, int[] leafIntraCounts, int totalEdges) {
+        this.leaves = leaves;
+        this.leafCount = leaves.size();
+        this.totalEdges = totalEdges;
+
+        int capacity = Math.max(0, 2 * leafCount - 1);
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        size = new int[capacity];
+        mergeCount = new int[capacity];
+        intraCount = new int[capacity];
+        minMergeCount = new int[capacity];
+        clusters = new Cluster[capacity];
+
+        Arrays.fill(left, -1);
+        Arrays.fill(right, -1);
+        Arrays.fill(parent, -1);
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            size[leaf] = leaves.get(leaf).getClasses().size();
+            intraCount[leaf] = leafIntraCounts[leaf];
+            minMergeCount[leaf] = Integer.MAX_VALUE;
+        }
+        nodeCount = leafCount;
+    }
+
+    // Enregistre la fusion de deux noeuds et retourne le noeud créé
+    int addMerge(int first, int second, int count) {
+        int node = nodeCount++;
+        left[node] = first;
+        right[node] = second;
+        parent[first] = node;
+        parent[second] = node;
+        size[node] = size[first] + size[second];
+        mergeCount[node] = count;
+        intraCount[node] = intraCount[first] + intraCount[second] + count;
+        minMergeCount[node] = Math.min(count, Math.min(minMergeCount[first], minMergeCount[second]));
+        return node;
+    }
+
+    public int getLeafCount() { return leafCount; }
+
+    public int getNodeCount() { return nodeCount; }
+
+    public int getMergeCount() { return nodeCount - leafCount; }
+
+    // Racine du dendrogramme, -1 s'il est vide
+    public int getRoot() { return nodeCount - 1; }
+
+    public boolean isLeaf(int node) { return node < leafCount; }
+
+    public int getLeft(int node) { return left[node]; }
+
+    public int getRight(int node) { return right[node]; }
+
+    public int getParent(int node) { return parent[node]; }
+
+    // Nombre de classes du noeud
+    public int getSize(int node) { return size[node]; }
+
+    // Couplage entre les deux enfants du noeud au moment de leur fusion
+    public double getMergeCoupling(int node) {
+        return share(mergeCount[node]);
+    }
+
+    // Couplage interne du noeud (équivalent de Cluster.getAVGCoupling)
+    public double getIntraCoupling(int node) {
+        return share(intraCount[node]);
+    }
+
+    // Part des arcs du projet, nulle pour un projet sans arc
+    private double share(int count) {
+        return totalEdges == 0 ? 0.0 : count / (double) totalEdges;
+    }
+
+    // Noeud créé par la t-ième fusion
+    public int getMergeNode(int merge) {
+        return leafCount + merge;
+    }
+
+    // Cluster formé par les classes des feuilles du noeud, dans l'ordre gauche puis droite
+    public Cluster getCluster(int node) {
+        if (clusters[node] != null)
+            return clusters[node];
+
+        Cluster cluster;
+        if (isLeaf(node)) {
+            cluster = leaves.get(node);
+        } else {
+            cluster = Cluster.empty();
+            Deque<Integer> stack = new ArrayDeque<>();
+            stack.push(node);
+            while (!stack.isEmpty()) {
+                int current = stack.pop();
+                if (isLeaf(current)) {
+                    cluster.merge(leaves.get(current));
+                } else {
+                    stack.push(right[current]);
+                    stack.push(left[current]);
+                }
+            }
+        }
+
+        cluster.setAVGCoupling(getIntraCoupling(node));
+        clusters[node] = cluster;
+        return cluster;
+    }
+
+    // Clusters créés par les fusions, dans l'ordre des fusions
+    public List<Cluster> getMergedClusters() {
+        List<Cluster> result = new ArrayList<>(getMergeCount());
+        for (int node = leafCount; node < nodeCount; node++)
+            result.add(getCluster(node));
+        return result;
+    }
+
+    // Parcourt les fusions dans l'ordre et retient les clusters de couplage interne supérieur au seuil,
+    // dans la limite de maxModules
+    public List<Cluster> identifyModules(double minimumCoupling, int maxModules) {
+        List<Cluster> modules = new ArrayList<>();
+        for (int node = leafCount; node < nodeCount && modules.size() < maxModules; node++)
+            if (getIntraCoupling(node) > minimumCoupling)
+                modules.add(getCluster(node));
+        return modules;
+    }
+
+    // Coupe le dendrogramme au seuil : retourne les plus grands sous-arbres dont toutes les fusions
+    // ont un couplage entre enfants supérieur ou égal au seuil
+    public List<Cluster> cut(double minimumMergeCoupling) {
+        List<Cluster> result = new ArrayList<>();
+        if (nodeCount == 0)
+            return result;
+
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(getRoot());
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            if (isLeaf(node) || minMergeCount[node] / (double) totalEdges >= minimumMergeCoupling) {
+                result.add(getCluster(node));
+            } else {
+                stack.push(right[node]);
+                stack.push(left[node]);
+            }
+        }
+        return result;
+    }
+
+    // Retourne les k clusters obtenus en annulant les k-1 dernières fusions
+    public List<Cluster> topModules(int k) {
+        List<Cluster> result = new ArrayList<>();
+        if (nodeCount == 0 || k < 1)
+            return result;
+        if (k == 1) {
+            result.add(getCluster(getRoot()));
+            return result;
+        }
+
+        // Les racines restantes sont les enfants des k-1 dernières fusions créés avant celles-ci
+        int firstUndone = Math.max(leafCount, nodeCount - (k - 1));
+        for (int node = firstUndone; node < nodeCount; node++) {
+            if (left[node] < firstUndone) result.add(getCluster(left[node]));
+            if (right[node] < firstUndone) result.add(getCluster(right[node]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,400 @@
+package org.analysis.clustering;
+
+import org.analysis.graph.CouplingIndex;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+// Clustering par optimisation de la modularité (Louvain) sur le graphe pondéré du couplage entre clusters initiaux.
+// Chaque niveau déplace les noeuds vers la communauté voisine qui augmente le plus la modularité jusqu'à ce
+// qu'aucun déplacement ne l'améliore, puis réduit chaque communauté à un noeud pour le niveau suivant.
+// Graphes en CSR, communautés et totaux dans des tableaux primitifs : un niveau coûte quelques passes sur les arêtes.
+// Une passe évalue d'abord le meilleur déplacement de chaque noeud sur l'état du début de passe (réparti sur un
+// ForkJoinPool avec plusieurs threads), puis applique dans l'ordre des noeuds ceux qui restent profitables sur
+// l'état courant. La modularité ne fait que croître et le résultat ne dépend pas du nombre de threads.
+// Le résultat est un dendrogramme : les membres de chaque communauté sont fusionnés un à un, le plus couplé aux
+// membres déjà fusionnés d'abord, niveau après niveau, puis les communautés restantes jusqu'à la racine.
+// Plus rapide que le clustering agglomératif, au prix de fusions qui ne suivent plus exactement le couplage maximal.
+// Les clusters initiaux sont supposés disjoints. Quand les classes de l'index sont des groupes (paquetages,
+// sous-systèmes), les appels internes à chaque groupe forment une boucle du noeud dans le calcul de la modularité.
+public class LouvainClusterer {
+
+    // Gain minimal d'un déplacement, en poids d'arcs, en deçà duquel il est attribué aux arrondis
+    private static final double MIN_GAIN = 1e-9;
+
+    // Passes au plus par niveau
+    private static final int MAX_PASSES = Integer.getInteger("analysis.louvain.passes", 50);
+
+    private final CouplingIndex index;
+    private final int threadCount;
+    private final boolean internalPairs;
+    private ForkJoinPool pool;
+
+    // Tableaux de travail de l'évaluation des déplacements, un jeu par thread
+    private ThreadLocal<Scratch> scratch;
+
+    public LouvainClusterer(CouplingIndex index) {
+        this(index, 1);
+    }
+
+    public LouvainClusterer(CouplingIndex index, int threadCount) {
+        this(index, threadCount, false);
+    }
+
+    // internalPairs : la paire (classe, classe) de l'index compte dans le poids interne du noeud qui la contient
+    public LouvainClusterer(CouplingIndex index, int threadCount, boolean internalPairs) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("Le nombre de threads doit être positif : " + threadCount);
+
+        this.index = index;
+        this.threadCount = threadCount;
+        this.internalPairs = internalPairs;
+    }
+
+    // Regroupe les clusters par niveaux de communautés jusqu'à n'en garder qu'un et retourne le dendrogramme des fusions
+    public Dendrogram cluster(List<Cluster> initialClusters) {
+        int size = initialClusters.size();
+        int[][] classIds = new int[size][];
+        for (int i = 0; i < size; i++)
+            classIds[i] = initialClusters.get(i).getClasses().stream().mapToInt(index::getClassId).toArray();
+
+        Level level = leafLevel(classIds);
+        Dendrogram dendrogram = new Dendrogram(initialClusters, level.loops, index.getTotalEdges());
+        if (size < 2)
+            return dendrogram;
+
+        int[] nodes = new int[size];
+        for (int i = 0; i < size; i++)
+            nodes[i] = i;
+
+        if (threadCount > 1)
+            pool = new ForkJoinPool(threadCount);
+        try {
+            while (level.size > 1) {
+                int[] communities = moveNodes(level);
+                int communityCount = renumber(communities);
+                if (communityCount == level.size)
+                    break;
+
+                nodes = mergeCommunities(dendrogram, level, nodes, communities, communityCount);
+                level = aggregate(level, communities, communityCount);
+            }
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+            pool = null;
+            scratch = null;
+        }
+
+        // Les communautés du dernier niveau sont fusionnées entre elles jusqu'à la racine
+        mergeCommunities(dendrogram, level, nodes, new int[level.size], 1);
+        return dendrogram;
+    }
+
+    // Graphe d'un niveau : voisins en CSR avec le poids des arcs, poids interne de chaque noeud (paires de classes
+    // du noeud) et degré pondéré (arcs vers les voisins plus deux fois le poids interne)
+    private static class Level {
+        final int size;
+        final int[] offsets, targets, weights, loops;
+        final long[] strengths;
+        long totalStrength;
+
+        Level(int size, int[] offsets, int[] targets, int[] weights, int[] loops) {
+            this.size = size;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.loops = loops;
+            strengths = new long[size];
+            for (int node = 0; node < size; node++) {
+                long strength = 2L * loops[node];
+                for (int e = offsets[node]; e < offsets[node + 1]; e++)
+                    strength += weights[e];
+                strengths[node] = strength;
+                totalStrength += strength;
+            }
+        }
+    }
+
+    // Poids accumulés vers chaque communauté voisine d'un noeud
+    private static class Scratch {
+        final int[] weightTo;
+        final int[] touched;
+
+        Scratch(int size) {
+            weightTo = new int[size];
+            touched = new int[size];
+        }
+    }
+
+    // Premier niveau : un noeud par cluster initial, les arcs sommant les couplages entre leurs classes
+    private Level leafLevel(int[][] classIds) {
+        int size = classIds.length;
+        int[] slotOfClass = new int[index.getClassCount()];
+        Arrays.fill(slotOfClass, -1);
+        for (int i = 0; i < size; i++)
+            for (int classId : classIds[i])
+                if (classId >= 0)
+                    slotOfClass[classId] = i;
+
+        EdgeBuffer buffer = new EdgeBuffer(size);
+        Scratch row = new Scratch(size);
+        int[] loops = new int[size];
+        for (int i = 0; i < size; i++) {
+            int slot = i;
+            int[] touchedCount = {0}, within = {0};
+            int internal = 0;
+            for (int classId : classIds[i]) {
+                if (classId < 0) continue;
+                if (internalPairs)
+                    internal += index.getCount(classId, classId);
+                index.forEachNeighbour(classId, (neighbourId, count) -> {
+                    int j = slotOfClass[neighbourId];
+                    if (j == slot) {
+                        within[0] += count;
+                    } else if (j >= 0) {
+                        if (row.weightTo[j] == 0)
+                            row.touched[touchedCount[0]++] = j;
+                        row.weightTo[j] += count;
+                    }
+                });
+            }
+            // Chaque paire interne est vue depuis ses deux classes
+            loops[i] = within[0] / 2 + internal;
+            buffer.addRow(row, touchedCount[0]);
+        }
+        return buffer.toLevel(loops);
+    }
+
+    // Communauté de chaque noeud après les passes de déplacements, en partant d'une communauté par noeud
+    private int[] moveNodes(Level level) {
+        int size = level.size;
+        int[] communities = new int[size];
+        long[] totals = level.strengths.clone();
+        for (int node = 0; node < size; node++)
+            communities[node] = node;
+
+        if (scratch == null || scratch.get().weightTo.length < size)
+            scratch = ThreadLocal.withInitial(() -> new Scratch(size));
+
+        int[] proposals = new int[size];
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            // Évaluation sur l'état du début de passe : seuls les tableaux propres à chaque noeud sont écrits
+            forEachNode(size, node -> proposals[node] = bestCommunity(level, node, communities, totals, scratch.get()));
+
+            int moves = 0;
+            for (int node = 0; node < size; node++) {
+                if (proposals[node] == communities[node])
+                    continue;
+
+                // Les déplacements déjà appliqués ont pu changer le meilleur choix
+                int target = bestCommunity(level, node, communities, totals, scratch.get());
+                if (target != communities[node]) {
+                    totals[communities[node]] -= level.strengths[node];
+                    totals[target] += level.strengths[node];
+                    communities[node] = target;
+                    moves++;
+                }
+            }
+            if (moves == 0)
+                break;
+        }
+        return communities;
+    }
+
+    // Communauté voisine qui augmente le plus la modularité si le noeud la rejoint, ou sa communauté actuelle
+    // si aucun déplacement ne l'améliore ; à gain égal, la communauté de plus petit numéro
+    private static int bestCommunity(Level level, int node, int[] communities, long[] totals, Scratch row) {
+        int current = communities[node];
+        int touchedCount = 0;
+        for (int e = level.offsets[node]; e < level.offsets[node + 1]; e++) {
+            int community = communities[level.targets[e]];
+            if (row.weightTo[community] == 0)
+                row.touched[touchedCount++] = community;
+            row.weightTo[community] += level.weights[e];
+        }
+
+        // Gain de modularité (multiplié par le poids total) d'un noeud retiré de sa communauté qui rejoint c :
+        // poids vers c moins le poids attendu entre le noeud et c au hasard
+        double strength = level.strengths[node], scale = strength / level.totalStrength;
+        double stayGain = row.weightTo[current] - (totals[current] - strength) * scale;
+
+        int best = current;
+        double bestGain = stayGain;
+        for (int t = 0; t < touchedCount; t++) {
+            int community = row.touched[t];
+            if (community != current) {
+                double gain = row.weightTo[community] - totals[community] * scale;
+                if (gain > bestGain || (gain == bestGain && best != current && community < best)) {
+                    best = community;
+                    bestGain = gain;
+                }
+            }
+            row.weightTo[community] = 0;
+        }
+        return bestGain > stayGain + MIN_GAIN ? best : current;
+    }
+
+    // Numérote les communautés de 0 à k - 1 dans l'ordre de leur premier noeud et retourne k
+    private static int renumber(int[] communities) {
+        int[] numbers = new int[communities.length];
+        Arrays.fill(numbers, -1);
+        int count = 0;
+        for (int node = 0; node < communities.length; node++) {
+            int community = communities[node];
+            if (numbers[community] == -1)
+                numbers[community] = count++;
+            communities[node] = numbers[community];
+        }
+        return count;
+    }
+
+    // Noeuds de chaque communauté par communauté puis par noeud croissants (tri par comptage) ;
+    // la communauté c occupe les positions starts[c] à starts[c + 1] - 1
+    private static int[] membersByCommunity(int[] communities, int communityCount, int[] starts) {
+        for (int community : communities)
+            starts[community + 1]++;
+        for (int c = 0; c < communityCount; c++)
+            starts[c + 1] += starts[c];
+
+        int[] members = new int[communities.length];
+        int[] fill = Arrays.copyOf(starts, communityCount);
+        for (int node = 0; node < communities.length; node++)
+            members[fill[communities[node]]++] = node;
+        return members;
+    }
+
+    // Fusionne dans le dendrogramme les noeuds de chaque communauté : le noeud le plus lourd d'abord, puis
+    // à chaque étape le noeud le plus couplé aux noeuds déjà fusionnés (le plus petit à égalité).
+    // Retourne le noeud du dendrogramme de chaque communauté.
+    private static int[] mergeCommunities(Dendrogram dendrogram, Level level, int[] nodes, int[] communities, int communityCount) {
+        int[] starts = new int[communityCount + 1];
+        int[] members = membersByCommunity(communities, communityCount, starts);
+
+        int[] merged = new int[communityCount];
+        int[] connection = new int[level.size];
+        boolean[] added = new boolean[level.size];
+
+        // Clé de file : couplage aux noeuds fusionnés dans les bits de poids fort, puis le plus petit noeud d'abord
+        PriorityQueue<Long> queue = new PriorityQueue<>(Collections.reverseOrder());
+        for (int c = 0; c < communityCount; c++) {
+            int first = members[starts[c]];
+            for (int p = starts[c] + 1; p < starts[c + 1]; p++)
+                if (level.strengths[members[p]] > level.strengths[first])
+                    first = members[p];
+
+            int node = first, next = starts[c];
+            int dendrogramNode = nodes[first];
+            for (int remaining = starts[c + 1] - starts[c] - 1; ; remaining--) {
+                added[node] = true;
+                for (int e = level.offsets[node]; e < level.offsets[node + 1]; e++) {
+                    int neighbour = level.targets[e];
+                    if (communities[neighbour] == c && !added[neighbour]) {
+                        connection[neighbour] += level.weights[e];
+                        queue.add(((long) connection[neighbour] << 32) | (Integer.MAX_VALUE - neighbour));
+                    }
+                }
+                if (remaining == 0)
+                    break;
+
+                node = -1;
+                while (!queue.isEmpty()) {
+                    long key = queue.poll();
+                    int candidate = Integer.MAX_VALUE - (int) key;
+                    if (!added[candidate] && connection[candidate] == (int) (key >>> 32)) {
+                        node = candidate;
+                        break;
+                    }
+                }
+                // Plus aucun membre couplé aux noeuds fusionnés : le premier membre restant
+                if (node == -1) {
+                    while (added[members[next]])
+                        next++;
+                    node = members[next];
+                }
+                dendrogramNode = dendrogram.addMerge(dendrogramNode, nodes[node], connection[node]);
+            }
+            queue.clear();
+            merged[c] = dendrogramNode;
+        }
+        return merged;
+    }
+
+    // Niveau suivant : un noeud par communauté, dont le poids interne reprend celui de ses membres et des arcs
+    // qui les relient, les arcs entre communautés étant sommés
+    private static Level aggregate(Level level, int[] communities, int communityCount) {
+        int[] starts = new int[communityCount + 1];
+        int[] members = membersByCommunity(communities, communityCount, starts);
+
+        EdgeBuffer buffer = new EdgeBuffer(communityCount);
+        Scratch row = new Scratch(communityCount);
+        int[] loops = new int[communityCount];
+        for (int c = 0; c < communityCount; c++) {
+            int touchedCount = 0;
+            long within = 0;
+            for (int p = starts[c]; p < starts[c + 1]; p++) {
+                int member = members[p];
+                loops[c] += level.loops[member];
+                for (int e = level.offsets[member]; e < level.offsets[member + 1]; e++) {
+                    int community = communities[level.targets[e]];
+                    if (community == c) {
+                        within += level.weights[e];
+                    } else {
+                        if (row.weightTo[community] == 0)
+                            row.touched[touchedCount++] = community;
+                        row.weightTo[community] += level.weights[e];
+                    }
+                }
+            }
+            // Chaque arc interne est vu depuis ses deux extrémités
+            loops[c] += (int) (within / 2);
+            buffer.addRow(row, touchedCount);
+        }
+        return buffer.toLevel(loops);
+    }
+
+    // Applique l'action à chaque noeud de [0, count), par tranches réparties sur le pool s'il existe
+    private void forEachNode(int count, IntConsumer action) {
+        if (pool == null || count <= RangeAction.CHUNK_SIZE) {
+            for (int i = 0; i < count; i++)
+                action.accept(i);
+            return;
+        }
+        pool.invoke(new RangeAction(0, count, action));
+    }
+
+    // Lignes CSR ajoutées noeud par noeud, dans des tableaux agrandis au besoin
+    private static class EdgeBuffer {
+        private final int[] offsets;
+        private int[] targets = new int[16], weights = new int[16];
+        private int rowCount = 0, edgeCount = 0;
+
+        EdgeBuffer(int size) {
+            offsets = new int[size + 1];
+        }
+
+        // Ajoute la ligne accumulée dans les tableaux de travail et les remet à zéro
+        void addRow(Scratch row, int touchedCount) {
+            if (edgeCount + touchedCount > targets.length) {
+                int capacity = Math.max(targets.length << 1, edgeCount + touchedCount);
+                targets = Arrays.copyOf(targets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                int target = row.touched[t];
+                targets[edgeCount] = target;
+                weights[edgeCount++] = row.weightTo[target];
+                row.weightTo[target] = 0;
+            }
+            offsets[++rowCount] = edgeCount;
+        }
+
+        Level toLevel(int[] loops) {
+            return new Level(rowCount, offsets, targets, weights, loops);
+        }
+    }
+}
@@ -2,12 +2,16 @@ package org.analysis.clustering;
 
 import org.analysis.cli.processor.DoubleInputProcessor;
 import org.analysis.core.Analyzer;
-import org.eclipse.osgi.container.Module;
-import org.graphstream.graph.Element;
+import org.analysis.graph.CouplingHierarchy;
+import org.analysis.graph.CouplingIndex;
+import org.analysis.graph.CouplingLevel;
+import org.analysis.metrics.AnalysisMetrics;
+import org.analysis.metrics.Counter;
+import org.analysis.metrics.Phase;
+import org.analysis.metrics.PhaseTimer;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class ModuleClusterer {
 
@@ -19,58 +23,52 @@ public class ModuleClusterer {
 
     private Set<Cluster> dendro;
 
+    private Dendrogram dendrogram;
+
     public ModuleClusterer(Analyzer analyzer) {
         this.analyzer = analyzer;
-
-        candidates = analyzer
-                .getJavaFileNames()
-                .stream()
-                .map(c -> c.substring(0, c.lastIndexOf(".")))
-                .collect(Collectors.toList());
-
         this.clusters = new ArrayList<>();
-
-        for (String classe : candidates) {
-            Cluster cluster = new Cluster(classe);
-            clusters.add(cluster);
-        }
-
     }
 
+    // Les classes candidates sont les types déclarés dans les sources, connus une fois le graphe d'appel construit ;
+    // au niveau des paquetages ou des sous-systèmes, les candidats sont les groupes qui contiennent ces types
     public ModuleClusterer buildClusters() throws IOException {
         System.out.println("Démmarage du processus de Clustering ...........");
         System.out.println("Clustering en cours ...........");
 
-        dendro = new LinkedHashSet<>();
-
-
-        while (clusters.size() > 1) {
-            double bestMetric = -1.0;
-            Cluster cluster1 = Cluster.empty();
-            Cluster cluster2 = Cluster.empty();
-
-            for (int i = 0; i < clusters.size(); i++) {
-                for (int j = i + 1; j < clusters.size(); j++) {
-                    Cluster c1 = clusters.get(i);
-                    Cluster c2 = clusters.get(j);
-
-                    double metric = analyzer.calculateCouplingMetric(c1, c2);
+        CouplingLevel level = analyzer.getClusteringLevel();
+        CouplingIndex index;
+        if (level == CouplingLevel.CLASS) {
+            candidates = new ArrayList<>(analyzer.getProjectTypes().getNames());
+            index = analyzer.getCouplingIndex();
+        } else {
+            CouplingHierarchy hierarchy = analyzer.getCouplingHierarchy();
+            Set<String> groups = new LinkedHashSet<>();
+            for (String className : analyzer.getProjectTypes().getNames())
+                groups.add(hierarchy.groupOf(className, level));
+            candidates = new ArrayList<>(groups);
+            index = hierarchy.getIndex(level);
+        }
 
-                    if (metric > bestMetric) {
-                        bestMetric = metric;
-                        cluster1 = c1;
-                        cluster2 = c2;
-                    }
-                }
-            }
+        clusters = new ArrayList<>();
+        for (String classe : candidates)
+            clusters.add(new Cluster(classe));
 
-            //cluster1.merge(cluster2);
-            clusters.remove(cluster1);
-            clusters.remove(cluster2);
+        ClusteringStrategy strategy = analyzer.getClusteringStrategy();
+        try (PhaseTimer timer = AnalysisMetrics.getInstance().start(Phase.CLUSTERING)) {
+            dendrogram = strategy.cluster(index, clusters, analyzer.getThreadCount(), level != CouplingLevel.CLASS);
+            timer.count(Counter.CLASSES, dendrogram.getLeafCount());
+            timer.count(Counter.MERGES, dendrogram.getMergeCount());
+        }
 
-            Cluster result = new Cluster(cluster1, cluster2);
-            clusters.add(result);
-            dendro.add(result);
+        // Les clusters rendus viennent du dendrogramme, qui renseigne leur couplage interne
+        dendro = null;
+        if (dendrogram.getMergeCount() > 0) {
+            clusters = new ArrayList<>(Collections.singletonList(dendrogram.getCluster(dendrogram.getRoot())));
+        } else {
+            clusters = new ArrayList<>(dendrogram.getLeafCount());
+            for (int leaf = 0; leaf < dendrogram.getLeafCount(); leaf++)
+                clusters.add(dendrogram.getCluster(leaf));
         }
 
         return this;
@@ -79,38 +77,37 @@ public class ModuleClusterer {
     public Set<Cluster> getIdentifiedModules() throws IOException {
         // get the minimum coupling average value (CP)
         DoubleInputProcessor processor = new DoubleInputProcessor("Saisir la valeur de CP >> ");
-        double minimumCouplingValue = processor.process();
-        Set<Cluster> result = new LinkedHashSet<>();
-
-        int createdModules = 0;
+        return getIdentifiedModules(processor.process());
+    }
 
-        if (dendro == null || dendro.isEmpty())
+    // Parcourt le dendrogramme dans l'ordre des fusions, les couplages internes y sont déjà calculés
+    public Set<Cluster> getIdentifiedModules(double minimumCouplingValue) throws IOException {
+        if (dendrogram == null)
             this.buildClusters();
 
 
         System.out.println("Démmarage du processus de detection des modules ..........");
         System.out.println("Détection des modules en cours ........ ");
 
-        List<Cluster> clonedDendro = new ArrayList<>(this.dendro);
-        int i = 0;
-        while (createdModules < (this.candidates.size() / 2) && i < clonedDendro.size()) {
-            Cluster potentialModule = clonedDendro.get(i);
-            if (potentialModule.getAVGCoupling() > minimumCouplingValue) {
-                result.add(potentialModule);
-                createdModules++;
-            }
-            i++;
+        try (PhaseTimer timer = AnalysisMetrics.getInstance().start(Phase.MODULES)) {
+            Set<Cluster> modules = new LinkedHashSet<>(dendrogram.identifyModules(minimumCouplingValue, this.candidates.size() / 2));
+            timer.count(Counter.MODULES, modules.size());
+            return modules;
         }
-
-
-        return result;
     }
 
     public List<Cluster> getClusters() {
         return clusters;
     }
 
+    // Clusters créés par les fusions, matérialisés à la première demande
     public Set<Cluster> getDendro() {
+        if (dendro == null && dendrogram != null)
+            dendro = new LinkedHashSet<>(dendrogram.getMergedClusters());
         return dendro;
     }
+
+    public Dendrogram getDendrogram() {
+        return dendrogram;
+    }
 }
@@ -0,0 +1,33 @@
+package org.analysis.clustering;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Découpe récursive d'un intervalle en tranches de CHUNK_SIZE entiers, traitées sur le pool qui l'invoque
+class RangeAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    // Nombre d'entiers traités par tâche
+    static final int CHUNK_SIZE = 1 << 11;
+
+    private final int from, to;
+    private final IntConsumer action;
+
+    RangeAction(int from, int to, IntConsumer action) {
+        this.from = from;
+        this.to = to;
+        this.action = action;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= CHUNK_SIZE) {
+            for (int i = from; i < to; i++)
+                action.accept(i);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new RangeAction(from, middle, action), new RangeAction(middle, to, action));
+    }
+}
@@ -0,0 +1,87 @@
+package org.analysis.core;
+
+import org.analysis.parser.JdkClasspath;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Environnement partagé par les analyses d'un même processus : classpath de résolution des bindings (classes du JDK,
+// résolues une seule fois, et bibliothèques communes de -Danalysis.classpath), dossiers sources de tous les projets
+// de l'espace de travail, pour résoudre les types d'un module depuis un autre, et pool des threads de parsing.
+public class AnalysisEnvironment {
+
+    private static AnalysisEnvironment defaultEnvironment;
+
+    private final String[] classpath;
+    private final Set<String> sourceRoots = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    private ThreadPoolExecutor parserPool;
+
+    public AnalysisEnvironment(List<String> classpath) {
+        this.classpath = classpath.toArray(new String[0]);
+    }
+
+    // Environnement commun, créé à la première demande : JDK de -Danalysis.jdk (ou courant) et -Danalysis.classpath
+    public static synchronized AnalysisEnvironment getDefault() {
+        if (defaultEnvironment == null) {
+            File cacheDirectory = new File(System.getProperty("analysis.jdk.cache",
+                    System.getProperty("user.home") + File.separator + ".analysis" + File.separator + "jdk"));
+            List<String> classpath = new ArrayList<>(JdkClasspath.resolve(cacheDirectory));
+            for (String entry : System.getProperty("analysis.classpath", "").split(File.pathSeparator))
+                if (!entry.trim().isEmpty())
+                    classpath.add(new File(entry.trim()).getAbsolutePath());
+            defaultEnvironment = new AnalysisEnvironment(classpath);
+        }
+        return defaultEnvironment;
+    }
+
+    public String[] getClasspath() {
+        return classpath.clone();
+    }
+
+    // Déclare le dossier source d'un projet de l'espace de travail
+    public void addSourceRoot(String sourceRoot) {
+        sourceRoots.add(sourceRoot);
+    }
+
+    // Dossiers sources pour un projet : le sien d'abord, puis ceux des autres projets de l'espace de travail
+    public String[] getSourcePaths(String ownSourceRoot) {
+        List<String> paths = new ArrayList<>();
+        paths.add(ownSourceRoot);
+        synchronized (sourceRoots) {
+            for (String root : sourceRoots)
+                if (!root.equals(ownSourceRoot))
+                    paths.add(root);
+        }
+        return paths.toArray(new String[0]);
+    }
+
+    // Pool partagé des threads de parsing, agrandi au plus grand nombre de threads demandé ; ses threads ne
+    // bloquent pas l'arrêt du processus
+    public synchronized ExecutorService getParserPool(int threadCount) {
+        if (parserPool == null) {
+            AtomicInteger counter = new AtomicInteger();
+            parserPool = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "analysis-parser-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            parserPool.allowCoreThreadTimeOut(true);
+        } else if (threadCount > parserPool.getMaximumPoolSize()) {
+            parserPool.setMaximumPoolSize(threadCount);
+            parserPool.setCorePoolSize(threadCount);
+        }
+        return parserPool;
+    }
+
+    public synchronized void shutdown() {
+        if (parserPool != null)
+            parserPool.shutdown();
+        parserPool = null;
+    }
+}
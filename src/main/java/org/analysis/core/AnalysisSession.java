@@ -0,0 +1,130 @@
+package org.analysis.core;
+
+import org.analysis.clustering.Cluster;
+import org.analysis.clustering.Dendrogram;
+import org.analysis.graph.CallGraph;
+import org.analysis.graph.CallGraphDiff;
+import org.analysis.graph.CouplingHierarchy;
+import org.analysis.graph.CouplingIndex;
+import org.analysis.graph.WeightedGraph;
+import org.analysis.metrics.CodeMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+// Session d'analyse d'un projet pour les commandes interactives. Chaque étape est calculée à la première demande
+// puis réutilisée : graphe d'appel (parsing et extraction, en une passe), index de couplage, graphe pondéré,
+// dendrogramme et modules des dernières valeurs de CP demandées. Une commande ne calcule que les étapes dont elle dépend.
+// Les résultats mémorisés sont abandonnés quand la version de l'analyseur change (graphe reconstruit, poids modifiés).
+public class AnalysisSession {
+
+    // Valeurs de CP dont les modules sont gardés (-Danalysis.modules.cache), les moins récemment demandées étant abandonnées
+    public static final int MODULE_CACHE_SIZE = Math.max(1, Integer.getInteger("analysis.modules.cache", 8));
+
+    private final Analyzer analyzer;
+
+    // Version de l'analyseur pour laquelle les résultats mémorisés ont été calculés
+    private int version = -1;
+
+    private WeightedGraph weightedCouplingGraph;
+    private Dendrogram dendrogram;
+    private final Map<Double, Set<Cluster>> modulesByCoupling = newModuleCache();
+
+    public AnalysisSession(Analyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    public Analyzer getAnalyzer() { return analyzer; }
+
+    public synchronized CallGraph getCallGraph() throws IOException {
+        analyzer.ensureCallGraph();
+        return analyzer.getCallGraph();
+    }
+
+    public synchronized CouplingIndex getCouplingIndex() throws IOException {
+        return analyzer.getCouplingIndex();
+    }
+
+    // Couplage agrégé par paquetage et sous-système
+    public synchronized CouplingHierarchy getCouplingHierarchy() throws IOException {
+        return analyzer.getCouplingHierarchy();
+    }
+
+    // Couplage entre deux classes désignées par leur nom binaire ou par leur nom simple s'il n'est pas ambigu
+    public synchronized double getCoupling(String classNameA, String classNameB) throws IOException {
+        return analyzer.calculateCouplingMetric(classNameA, classNameB);
+    }
+
+    // Métriques de taille, remplies pendant la construction du graphe d'appel
+    public synchronized CodeMetrics getCodeMetrics() throws IOException {
+        return analyzer.getCodeMetrics();
+    }
+
+    public synchronized WeightedGraph getWeightedCouplingGraph() throws IOException {
+        synchronizeVersion();
+        if (weightedCouplingGraph == null)
+            weightedCouplingGraph = analyzer.createWeightedCouplingGraph();
+        return weightedCouplingGraph;
+    }
+
+    public synchronized Dendrogram getDendrogram() throws IOException {
+        synchronizeVersion();
+        if (dendrogram == null)
+            dendrogram = analyzer.getClusterer().buildClusters().getDendrogram();
+        return dendrogram;
+    }
+
+    // Clusters créés par les fusions du dendrogramme
+    public synchronized Set<Cluster> getClusters() throws IOException {
+        getDendrogram();
+        return analyzer.getClusterer().getDendro();
+    }
+
+    // Modules dont le couplage interne atteint la valeur de CP, mémorisés pour les dernières valeurs demandées
+    public synchronized Set<Cluster> getModules(double minimumCoupling) throws IOException {
+        getDendrogram();
+        Set<Cluster> modules = modulesByCoupling.get(minimumCoupling);
+        if (modules == null) {
+            modules = Collections.unmodifiableSet(analyzer.getClusterer().getIdentifiedModules(minimumCoupling));
+            modulesByCoupling.put(minimumCoupling, modules);
+        }
+        return modules;
+    }
+
+    // Table par valeur de CP limitée aux MODULE_CACHE_SIZE valeurs les plus récemment utilisées
+    public static <V> Map<Double, V> newModuleCache() {
+        return new LinkedHashMap<Double, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Double, V> eldest) {
+                return size() > MODULE_CACHE_SIZE;
+            }
+        };
+    }
+
+    // Reprend les modifications des sources ; les résultats ne sont recalculés que si le graphe d'appel a changé
+    public synchronized void refresh() throws IOException {
+        analyzer.buildCallGraph();
+    }
+
+    // Prend en compte les fichiers signalés comme modifiés, créés ou supprimés (null : toutes les sources)
+    // et retourne les arcs apparus et disparus ; les résultats ne sont recalculés que si le couplage a changé
+    public synchronized CallGraphDiff update(Collection<File> changedFiles) throws IOException {
+        analyzer.ensureCallGraph();
+        return analyzer.updateCallGraph(changedFiles);
+    }
+
+    // Construit le graphe d'appel s'il ne l'est pas encore, puis abandonne les résultats d'une version précédente
+    private void synchronizeVersion() throws IOException {
+        analyzer.ensureCallGraph();
+        if (version == analyzer.getVersion())
+            return;
+
+        weightedCouplingGraph = null;
+        dendrogram = null;
+        modulesByCoupling.clear();
+        version = analyzer.getVersion();
+    }
+}
@@ -0,0 +1,54 @@
+package org.analysis.core;
+
+import org.analysis.clustering.Cluster;
+import org.analysis.graph.CallGraphDiff;
+import org.analysis.incremental.ChangeSet;
+
+import java.util.List;
+
+// Résultat d'une mise à jour en mode surveillance : fichiers pris en compte, arcs du graphe d'appel apparus
+// et disparus, modules apparus et disparus pour la valeur de CP surveillée, et délai depuis le premier événement
+public class AnalysisUpdate {
+
+    private final int version;
+    private final ChangeSet changes;
+    private final CallGraphDiff edges;
+    private final List<Cluster> addedModules;
+    private final List<Cluster> removedModules;
+    private final long latencyMillis;
+
+    public AnalysisUpdate(int version, ChangeSet changes, CallGraphDiff edges, List<Cluster> addedModules,
+                          List<Cluster> removedModules, long latencyMillis) {
+        this.version = version;
+        this.changes = changes;
+        this.edges = edges;
+        this.addedModules = addedModules;
+        this.removedModules = removedModules;
+        this.latencyMillis = latencyMillis;
+    }
+
+    // Version de l'analyse après la mise à jour
+    public int getVersion() { return version; }
+
+    public ChangeSet getChanges() { return changes; }
+
+    public CallGraphDiff getEdges() { return edges; }
+
+    public List<Cluster> getAddedModules() { return addedModules; }
+
+    public List<Cluster> getRemovedModules() { return removedModules; }
+
+    // Délai entre le premier événement du lot et la fin de la mise à jour, attente de l'accalmie comprise
+    public long getLatencyMillis() { return latencyMillis; }
+
+    // Vrai si la mise à jour ne change ni arc ni module, par exemple après un enregistrement sans modification du code
+    public boolean isEmpty() {
+        return edges.isEmpty() && addedModules.isEmpty() && removedModules.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s ; %s ; %d module(s) apparu(s), %d disparu(s) en %d ms",
+                changes, edges, addedModules.size(), removedModules.size(), latencyMillis);
+    }
+}
@@ -1,81 +1,205 @@
 package org.analysis.core;
 
+import org.analysis.cli.processor.DoubleInputProcessor;
 import org.analysis.clustering.Cluster;
+import org.analysis.clustering.ClusteringStrategy;
 import org.analysis.clustering.ModuleClusterer;
-import org.analysis.visitor.*;
-import org.apache.commons.io.FileUtils;
-import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.dom.*;
-import org.graphstream.graph.Edge;
-import org.graphstream.graph.Node;
-import org.graphstream.graph.implementations.SingleGraph;
-import org.graphstream.ui.layout.springbox.implementations.LinLog;
+import org.analysis.parser.BatchASTParser;
+import org.analysis.parser.CallGraphExtractor;
+import org.analysis.parser.Dependency;
+import org.analysis.parser.FileExtraction;
+import org.analysis.parser.ParallelCallGraphExtractor;
+import org.analysis.graph.CallGraph;
+import org.analysis.graph.CallGraphDiff;
+import org.analysis.graph.CouplingHierarchy;
+import org.analysis.graph.CouplingIndex;
+import org.analysis.graph.CouplingLevel;
+import org.analysis.graph.DependencyKind;
+import org.analysis.graph.GraphStorage;
+import org.analysis.graph.MappedGraphStorage;
+import org.analysis.graph.WeightedGraph;
+import org.analysis.incremental.ChangeSet;
+import org.analysis.incremental.ExtractionCache;
+import org.analysis.incremental.FileRecord;
+import org.analysis.incremental.GraphSnapshot;
+import org.analysis.metrics.AnalysisMetrics;
+import org.analysis.metrics.CodeMetrics;
+import org.analysis.metrics.Counter;
+import org.analysis.metrics.Phase;
+import org.analysis.metrics.PhaseTimer;
+import org.analysis.render.DetailLevel;
+import org.analysis.render.GraphCollapser;
+import org.analysis.source.SourceLoader;
+import org.analysis.source.SourceScanner;
+import org.analysis.symbol.ProjectTypes;
+import org.analysis.ui.GraphRenderer;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 // Classe utilisé pour analyser le projet
 public class Analyzer {
 
-    // Chemins pour le projet et les sources Java, ainsi que le chemin JRE pour l'analyse
-    private static String projectPath;
-    private static String projectSourcePath;
-    private static final String jrePath = "/System/Library/Frameworks/JavaVM.framework/";
+    // Chemins du projet et de son dossier source (src/main/java pour un module Maven, sinon src)
+    private final String projectPath;
+    private final String projectSourcePath;
 
-    // Compteurs pour les classes et méthodes
-    private Integer classCount = null, methodCount = null;
+    // Classpath de résolution des bindings, sources de l'espace de travail et pool de parsing, partagés entre projets
+    private final AnalysisEnvironment environment;
 
-    // Structures de données pour maintenir les comptages par classe et par méthode
-    private final Map<String, Integer> methodCountByClass = new LinkedHashMap<>();
-    private final Map<String, Integer> attributeCountByClass = new LinkedHashMap<>();
-    private final Map<String, Integer> LOCountByMethod = new LinkedHashMap<>();
+    // Nombre de classes, de méthodes, d'attributs et de lignes par classe et par méthode, tirés des extractions du graphe d'appel
+    private CodeMetrics codeMetrics = new CodeMetrics();
+
+    // Stockage du graphe d'appel : sur le tas, ou hors tas dans des fichiers projetés (-Danalysis.offheap=true)
+    private GraphStorage graphStorage = GraphStorage.HEAP;
 
     // Graphes pour représenter les appels et le couplage entre les classes
-    private final SingleGraph callGraph = new SingleGraph("Call Graph");
-    private final SingleGraph weightedCouplingGraph = new SingleGraph("Coupling Graph");
+    private CallGraph callGraph = new CallGraph();
+
+    // Dépendances vers les types extérieurs au projet (autres modules, bibliothèques, JDK), suivies sur demande
+    private boolean externalDependenciesTracked = false;
+    private CallGraph externalGraph = new CallGraph();
+    private CouplingIndex externalCouplingIndex;
+    private WeightedGraph weightedCouplingGraph = new WeightedGraph();
+
+    // Index des appels entre paires de classes, construit à la demande à partir du graphe d'appel
+    private CouplingIndex couplingIndex;
+
+    // Arcs apparus et disparus pendant la mise à jour incrémentale en cours, null en dehors d'une mise à jour
+    private CallGraphDiff edgeChanges;
+
+    // Modifications des sources prises en compte par la dernière mise à jour incrémentale
+    private ChangeSet lastChanges;
+
+    // Couplage agrégé par paquetage et sous-système, valable pour la version où il a été calculé
+    private CouplingHierarchy couplingHierarchy;
+    private int couplingHierarchyVersion = -1;
+
+    // Vrai une fois le graphe d'appel construit ou chargé, faux après son abandon
+    private boolean callGraphBuilt = false;
+
+    // Version des résultats de l'analyse, incrémentée à chaque changement du graphe d'appel ou des poids du couplage
+    private int version = 0;
+
+    // Session des commandes interactives, créée à la première demande
+    private AnalysisSession session;
 
     // Listes pour stocker les fichiers Java et leurs noms
     private List<File> javaFiles = new ArrayList<>();
     private List<String> javaFileNames = new ArrayList<>();
 
-    // Instance unique de Analyzer pour le modèle Singleton
+    // Analyseurs créés par getInstance, un par projet, et dernier projet demandé
+    private static final Map<String, Analyzer> instances = new HashMap<>();
     private static Analyzer instance = null;
 
     // Instance de ModuleClusterer pour l'identification des clusters
-    private static ModuleClusterer clusterer;
+    private ModuleClusterer clusterer;
+
+    // Dossier des caches d'analyse
+    private File cacheDirectory;
+
+    // Parseur partagé par toutes les unités de compilation du projet
+    private final BatchASTParser parser;
+    private final CallGraphExtractor extractor;
+
+    // Nombre de threads pour l'extraction du graphe d'appel (1 = séquentiel)
+    private int threadCount = Integer.getInteger("analysis.threads", 1);
+
+    // Algorithme de regroupement des classes en modules (-Danalysis.clustering)
+    private ClusteringStrategy clusteringStrategy = ClusteringStrategy.fromSystemProperties();
+
+    // Niveau des éléments regroupés en modules : classes, paquetages ou sous-systèmes (-Danalysis.clustering.level)
+    private CouplingLevel clusteringLevel = CouplingLevel.fromLabel(System.getProperty("analysis.clustering.level", "class"));
+
+    // Mode incrémental : seules les sources modifiées depuis la dernière analyse sont reparsées
+    private boolean incremental = Boolean.getBoolean("analysis.incremental");
+    private ExtractionCache extractionCache;
+
+    // Vrai si le graphe d'appel a été assemblé à partir du cache d'extraction et peut être corrigé en place
+    private boolean graphMatchesExtractionCache = false;
+
+    // Instantané binaire du graphe d'appel, enregistré après chaque analyse et rechargé au démarrage
+    private boolean snapshotEnabled = Boolean.parseBoolean(System.getProperty("analysis.snapshot", "true"));
+
+    // Poids de chaque nature de dépendance dans le couplage, indexés par ordinal (-Danalysis.weight.<nature>)
+    private int[] dependencyWeights = DependencyKind.weightsFromSystemProperties();
 
-    // Constructeur privé pour empêcher l'instanciation directe
-    private Analyzer(String projectUrl) {
+    // Types déclarés dans les sources du projet, seules cibles d'appel retenues
+    private ProjectTypes projectTypes = new ProjectTypes();
+
+    // Découverte des sources du projet, filtrée par -Danalysis.include / -Danalysis.exclude
+    private SourceScanner sourceScanner;
+
+    // Nombre de fichiers lus d'avance par le parsing fichier par fichier
+    private static final int READ_AHEAD = Integer.getInteger("analysis.readAhead", 32);
+
+    // Mesures des étapes de l'analyse
+    private final AnalysisMetrics metrics = AnalysisMetrics.getInstance();
+
+    // Analyse isolée d'un projet ; l'environnement peut être partagé avec d'autres analyses du même processus
+    public Analyzer(String projectUrl, AnalysisEnvironment environment) {
+        this.environment = environment;
         projectPath = projectUrl.isEmpty() ? getDefaultProjectDirPath() : projectUrl;
-        projectSourcePath = projectPath + "/src";
-        final File folder = new File(projectSourcePath);
-        javaFiles = listJavaFilesForFolder(folder);
-        javaFileNames = javaFiles
-                .stream()
-                .map(File::getName)
-                .collect(Collectors.toList());
+        projectSourcePath = sourceRootOf(new File(projectPath)).getPath();
+        cacheDirectory = new File(System.getProperty("analysis.cache.dir", projectPath + "/.analysis"));
+        sourceScanner = SourceScanner.fromSystemProperties(Paths.get(projectSourcePath));
+        refreshJavaFiles();
+        environment.addSourceRoot(projectSourcePath);
+        parser = new BatchASTParser(environment.getClasspath(), environment.getSourcePaths(projectSourcePath));
+        extractor = new CallGraphExtractor();
+        clusterer = new ModuleClusterer(this);
+        if (Boolean.getBoolean("analysis.offheap"))
+            setOffHeap(true);
     }
 
-    public static Analyzer getInstance(String projectPath) {
-        if (instance == null) instance = new Analyzer(projectPath);
-
-        clusterer = new ModuleClusterer(instance);
+    // Retourne l'analyseur du projet, créé à la première demande dans l'environnement commun, et en fait le projet courant
+    public static synchronized Analyzer getInstance(String projectPath) {
+        String key = new File(projectPath).getAbsolutePath();
+        instance = instances.get(key);
+        if (instance == null) {
+            instance = new Analyzer(projectPath, AnalysisEnvironment.getDefault());
+            instances.put(key, instance);
+        }
         return instance;
     }
 
-    public static Analyzer getInstance() {
+    // Retourne l'analyseur du dernier projet demandé
+    public static synchronized Analyzer getInstance() {
         if (instance == null) throw new RuntimeException("Aucun singleton existant");
 
         return instance;
     }
 
+    // Dossier source d'un projet : src/main/java s'il existe (module Maven), sinon src
+    public static File sourceRootOf(File projectDirectory) {
+        File mavenSources = new File(projectDirectory, "src/main/java");
+        return mavenSources.isDirectory() ? mavenSources : new File(projectDirectory, "src");
+    }
+
+    public String getProjectPath() { return projectPath; }
+
+    // Dossier des sources analysées
+    public Path getSourceRoot() { return Paths.get(projectSourcePath); }
+
     // Retourne le graphe d'appel
-    public SingleGraph getCallGraph() { return callGraph; }
+    public CallGraph getCallGraph() { return callGraph; }
+
+    // Retourne le clusterer associé au projet
+    public ModuleClusterer getClusterer() { return clusterer; }
+
+    // Version des résultats de l'analyse : tant qu'elle ne change pas, les résultats déjà calculés restent valides
+    public int getVersion() { return version; }
+
+    // Retourne la session des commandes interactives, dont les étapes sont calculées une seule fois
+    public AnalysisSession getSession() {
+        if (session == null)
+            session = new AnalysisSession(this);
+        return session;
+    }
 
     // Retourne la liste des noms de fichiers Java
     public List<String> getJavaFileNames() { return javaFileNames; }
@@ -83,128 +207,487 @@ public class Analyzer {
     // Retourne la liste des fichiers Java
     public List<File> getJavaFiles() { return javaFiles; }
 
-    // Liste les fichiers Java dans un dossier
-    private ArrayList<File> listJavaFilesForFolder(final File folder) {
-        ArrayList<File> javaFiles = new ArrayList<>();
+    // Nombre de threads utilisés pour construire le graphe d'appel et pour le clustering
+    public int getThreadCount() { return threadCount; }
 
-        for (File fileEntry : Objects.requireNonNull(folder.listFiles())) {
-            if (fileEntry.isDirectory()) {
-                javaFiles.addAll(listJavaFilesForFolder(fileEntry));
-            } else if (fileEntry.getName().contains(".java")) {
-                javaFiles.add(fileEntry);
-            }
-        }
-        return javaFiles;
+    // Définit le nombre de threads utilisés pour construire le graphe d'appel et pour le clustering
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("Le nombre de threads doit être positif : " + threadCount);
+        this.threadCount = threadCount;
     }
 
-    // Parse les sources Java pour créer l'AST
-    private CompilationUnit parse(char[] classSource) {
-        ASTParser parser = ASTParser.newParser(AST.JLS4); // java +1.6
-        parser.setResolveBindings(true);
-        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+    public ClusteringStrategy getClusteringStrategy() { return clusteringStrategy; }
 
-        parser.setBindingsRecovery(true);
+    // Remplace l'algorithme de clustering ; le dendrogramme et les modules seront recalculés
+    public void setClusteringStrategy(ClusteringStrategy clusteringStrategy) {
+        if (clusteringStrategy == this.clusteringStrategy)
+            return;
+        this.clusteringStrategy = clusteringStrategy;
+        clusterer = new ModuleClusterer(this);
+        version++;
+    }
 
-        Map options = JavaCore.getOptions();
-        parser.setCompilerOptions(options);
+    public CouplingLevel getClusteringLevel() { return clusteringLevel; }
 
-        parser.setUnitName("");
+    // Change le niveau des éléments regroupés en modules ; le dendrogramme et les modules seront recalculés
+    public void setClusteringLevel(CouplingLevel clusteringLevel) {
+        if (clusteringLevel == this.clusteringLevel)
+            return;
+        this.clusteringLevel = clusteringLevel;
+        clusterer = new ModuleClusterer(this);
+        version++;
+    }
 
-        String[] sources = {projectSourcePath};
-        String[] classpath = {jrePath};
+    // Active ou désactive l'analyse incrémentale
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
 
-        parser.setEnvironment(classpath, sources, new String[]{"UTF-8"}, true);
-        parser.setSource(classSource);
+    // Active ou désactive l'enregistrement et le rechargement de l'instantané du graphe d'appel
+    public void setSnapshotEnabled(boolean snapshotEnabled) {
+        this.snapshotEnabled = snapshotEnabled;
+    }
 
-        return (CompilationUnit) parser.createAST(null);
+    // Remplace les poids des natures de dépendance (indexés par ordinal) ; le couplage et les clusters seront recalculés
+    public void setDependencyWeights(int[] weights) {
+        if (weights.length != DependencyKind.values().length)
+            throw new IllegalArgumentException("Un poids est attendu par nature de dépendance : " + weights.length);
+        dependencyWeights = weights.clone();
+        couplingIndex = null;
+        externalCouplingIndex = null;
+        clusterer = new ModuleClusterer(this);
+        version++;
     }
 
-    // Construit et affiche le graphe d'appel
-    public void buildAndShowCallGraph() throws IOException {
+    // Place le graphe d'appel hors tas, dans des fichiers projetés en mémoire du dossier graph des caches,
+    // ou le ramène sur le tas ; le graphe courant est abandonné et sera reconstruit
+    public void setOffHeap(boolean offHeap) {
+        if (offHeap == graphStorage instanceof MappedGraphStorage)
+            return;
+
+        graphStorage = offHeap ? new MappedGraphStorage(new File(getCacheDirectory(), "graph")) : GraphStorage.HEAP;
+        callGraph.release();
+        callGraph = new CallGraph(graphStorage, 64, 64);
+        externalGraph.release();
+        externalGraph = new CallGraph(graphStorage, 64, 64);
+        externalCouplingIndex = null;
+        couplingIndex = null;
+        graphMatchesExtractionCache = false;
+        callGraphBuilt = false;
+        clusterer = new ModuleClusterer(this);
+        version++;
+    }
+
+    public File getSnapshotFile() {
+        return new File(getCacheDirectory(), "callgraph.snapshot");
+    }
+
+    // Dossier des caches d'analyse, dans le projet analysé sauf si -Danalysis.cache.dir est défini
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    // Change le dossier des caches, par exemple pour séparer ceux des modules d'un espace de travail
+    public void setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
 
-        buildCallGraph();
+    // Active le suivi des dépendances vers les types extérieurs au projet ; le graphe d'appel sera reconstruit
+    public void setExternalDependenciesTracked(boolean tracked) {
+        if (tracked == externalDependenciesTracked)
+            return;
+
+        externalDependenciesTracked = tracked;
+        clearCallGraph();
+        graphMatchesExtractionCache = false;
+    }
+
+    // Graphe des dépendances des méthodes du projet vers les types extérieurs (vide si elles ne sont pas suivies)
+    public CallGraph getExternalGraph() throws IOException {
+        ensureCallGraph();
+        return externalGraph;
+    }
 
-        String css = "text-alignment: at-right; text-padding: 3px, 2px; text-background-mode: rounded-box; text-background-color: #EB2; text-color: #222;";
+    // Poids des dépendances entre les classes du projet et les types extérieurs, pondérés comme le couplage
+    public CouplingIndex getExternalCouplingIndex() throws IOException {
+        if (externalCouplingIndex == null)
+            externalCouplingIndex = new CouplingIndex(getExternalGraph(), dependencyWeights);
+        return externalCouplingIndex;
+    }
 
-        for (Node node : this.callGraph.nodes().collect(Collectors.toList())) {
-            //node.setAttribute("ui.style", "shape:circle; fill-color: cyan;size: 30px; text-alignment: center;");
-            node.setAttribute("ui.style", css);
-            node.setAttribute("ui.label", node.getId());
-            if (!node.neighborNodes().findAny().isPresent())
-                node.setAttribute("ui.hide");
+    // Restreint l'analyse aux sources retenues par les globs (relatifs au dossier src) et relance la découverte
+    public void setSourceFilters(List<String> includeGlobs, List<String> excludeGlobs) {
+        sourceScanner = new SourceScanner(Paths.get(projectSourcePath), includeGlobs, excludeGlobs);
+        refreshJavaFiles();
+        callGraphBuilt = false;
+        clusterer = new ModuleClusterer(this);
+        version++;
+    }
 
+    // Liste à nouveau les fichiers Java du projet, pour prendre en compte les ajouts et suppressions
+    private void refreshJavaFiles() {
+        try (PhaseTimer timer = metrics.start(Phase.DISCOVERY)) {
+            setJavaFiles(sourceScanner.scan());
+            timer.count(Counter.FILES, javaFiles.size());
         }
+    }
+
+    private void setJavaFiles(List<File> files) {
+        javaFiles = files;
+        javaFileNames = javaFiles
+                .stream()
+                .map(File::getName)
+                .collect(Collectors.toList());
+    }
 
-        for (Edge edge : this.callGraph.edges().collect(Collectors.toList())) {
-            edge.setAttribute("layout.weight", 20.0);
+    // Métriques de taille tirées des extractions déjà faites pour le graphe d'appel
+    private CodeMetrics codeMetricsOf(List<FileExtraction> extractions) {
+        try (PhaseTimer timer = metrics.start(Phase.CODE_METRICS)) {
+            CodeMetrics result = CodeMetrics.of(extractions);
+            timer.count(Counter.CLASSES, result.getClassCount());
+            timer.count(Counter.METHODS, result.getMethodCount());
+            return result;
         }
+    }
 
-        callGraph.setAttribute("ui.quality");
-        callGraph.setAttribute("ui.style", "padding: 40px;");
+    // Réunit les types déclarés par les extractions, dans leur ordre
+    private static ProjectTypes projectTypesOf(Iterable<FileExtraction> extractions) {
+        ProjectTypes types = new ProjectTypes();
+        for (FileExtraction extraction : extractions)
+            if (extraction != null)
+                extraction.getDeclaredTypes().forEach(types::add);
+        return types;
+    }
 
-        LinLog layout = new LinLog();
-        layout.setStabilizationLimit(0.001); // Valeur de stabilisation
-        layout.setQuality(1.0); // Qualité de la disposition
-        callGraph.display().enableAutoLayout(layout);
+    // Affiche le graphe d'appel, construit seulement s'il ne l'a pas déjà été
+    // Au-delà de GraphRenderer.MAX_INTERACTIVE_NODES méthodes, une vue d'ensemble du couplage entre classes est affichée à la place
+    public void buildAndShowCallGraph() throws IOException {
+        CallGraph graph = getSession().getCallGraph();
+        if (graph.getNodeCount() <= GraphRenderer.MAX_INTERACTIVE_NODES)
+            GraphRenderer.show(graph);
+        else
+            GraphRenderer.showOverview(GraphCollapser.classGraph(getSession().getCouplingIndex()), DetailLevel.CLASS, "Call Graph");
+    }
 
+    // Construit le graphe d'appel s'il ne l'a pas encore été ; buildCallGraph reprend en plus les modifications des sources
+    public void ensureCallGraph() throws IOException {
+        if (!callGraphBuilt)
+            buildCallGraph();
     }
 
-    // Construit le graphe d'appel à partir des sources Java
+    // Construit le graphe d'appel, repris de l'instantané s'il correspond encore aux sources, sinon
+    // mis à jour incrémentalement ou reconstruit entièrement, puis enregistre le nouvel instantané
     public void buildCallGraph() throws IOException {
-        for (File fileEntry : javaFiles) {
-            String content = FileUtils.readFileToString(fileEntry, StandardCharsets.UTF_8);
-            CompilationUnit ast = parse(content.toCharArray());
-
-            MethodDeclarationVisitor visitor = new MethodDeclarationVisitor();
-            ast.accept(visitor);
-
-            for (MethodDeclaration method : visitor.getMethodDeclarations()) {
-
-                String fullMethodName = getFullMethodName(method);
-                if (callGraph.nodes().noneMatch(n -> n.getId().equals(fullMethodName)))
-                    this.callGraph.addNode(fullMethodName);
-
-                MethodInvocationVisitor miVisitor = new MethodInvocationVisitor();
-                method.accept(miVisitor);
-
-                if (!miVisitor.getMethodInvocations().isEmpty()) {
-                    for (MethodInvocation mi : miVisitor.getMethodInvocations()) {
-                        String invokedMethodName = getFullMethodName(mi);
-                        Pattern regex = Pattern.compile("^(\\w+)\\.(\\w+)$");
-                        Matcher matcher = regex.matcher(invokedMethodName);
-                        if (callGraph.nodes().noneMatch(n -> n.getId().equals(invokedMethodName)) && matcher.matches() && javaFileNames.contains(matcher.group(1) + ".java")) {
-                            this.callGraph.addNode(invokedMethodName);
-
-                            String edgeID = fullMethodName + "-" + invokedMethodName;
-                            if (callGraph.edges().noneMatch(e -> e.getId().equals(edgeID)))
-                                this.callGraph.addEdge(edgeID, fullMethodName, invokedMethodName, true);
-                        }
-                    }
-                }
+        try (PhaseTimer timer = metrics.start(Phase.CALL_GRAPH)) {
+            if (callGraphBuilt || !loadSnapshot()) {
+                if (incremental)
+                    updateCallGraph();
+                else
+                    rebuildCallGraph();
+
+                if (snapshotEnabled)
+                    saveSnapshot();
             }
+            timer.count(Counter.METHODS, callGraph.getNodeCount());
+            timer.count(Counter.EDGES, callGraph.getEdgeCount());
         }
     }
 
-    // Retourne le nom complet d'une méthode invoquée
-    private String getFullMethodName(MethodInvocation mi) {
-        if (mi.getExpression() != null)
-            if (mi.getExpression().resolveTypeBinding() != null)
-                return mi.getExpression().resolveTypeBinding().getName() + "." + mi.getName().toString();
+    // Construit le graphe d'appel à partir des sources Java, en un seul lot de parsing
+    // ou en parallèle sur plusieurs lots selon le nombre de threads configuré. Les appels ne sont
+    // insérés qu'une fois tous les fichiers extraits, quand l'ensemble des types du projet est connu.
+    public void rebuildCallGraph() {
+        long start = System.nanoTime();
+        clearCallGraph();
+        graphMatchesExtractionCache = false;
+
+        List<FileExtraction> extractions = extractFiles(javaFiles);
+        projectTypes = projectTypesOf(extractions);
+        extractions.forEach(this::addToCallGraph);
+        codeMetrics = codeMetricsOf(extractions);
+        callGraphBuilt = true;
+
+        System.out.printf("Graphe d'appel construit en %d ms (%d fichiers, %d thread(s))%n",
+                (System.nanoTime() - start) / 1_000_000, javaFiles.size(), threadCount);
+    }
 
-        if (mi.resolveMethodBinding() != null)
-            return mi.resolveMethodBinding().getDeclaringClass().getName() + "." + mi.getName().toString();
+    // Met à jour le graphe d'appel à partir du cache d'extraction : seuls les fichiers ajoutés ou modifiés
+    // sont reparsés, leurs anciennes contributions au graphe et à l'index de couplage étant remplacées en place.
+    // Les fichiers inchangés ne sont pas reparsés, même si les bindings qu'ils résolvent dépendent d'un fichier modifié.
+    public void updateCallGraph() throws IOException {
+        updateCallGraph(null, null);
+    }
+
+    // Met à jour le graphe d'appel pour les fichiers signalés comme modifiés, créés ou supprimés, sans parcourir
+    // les autres sources tant que le cache d'extraction les couvre (null : toutes les sources sont comparées).
+    // Retourne les arcs apparus et disparus ; l'instantané n'est pas enregistré.
+    public CallGraphDiff updateCallGraph(Collection<File> changedFiles) throws IOException {
+        CallGraphDiff diff = new CallGraphDiff();
+        try (PhaseTimer timer = metrics.start(Phase.CALL_GRAPH)) {
+            updateCallGraph(changedFiles, diff);
+            timer.count(Counter.EDGES, diff.getAdded().size() + diff.getRemoved().size());
+        }
+        return diff;
+    }
+
+    // Modifications des sources prises en compte par la dernière mise à jour incrémentale
+    public ChangeSet getLastChanges() { return lastChanges; }
+
+    private void updateCallGraph(Collection<File> changedFiles, CallGraphDiff diff) throws IOException {
+        long start = System.nanoTime();
+        File cacheFile = new File(getCacheDirectory(), "extractions.dat");
+        if (extractionCache == null)
+            extractionCache = ExtractionCache.load(cacheFile);
+
+        // La comparaison limitée aux fichiers signalés suppose que le cache décrit déjà toutes les sources ;
+        // la liste des sources n'est reprise que si un fichier est apparu ou a disparu
+        boolean targeted = changedFiles != null && graphMatchesExtractionCache;
+        if (!targeted || structureChanged(changedFiles))
+            refreshJavaFiles();
+
+        ChangeSet changes;
+        try (PhaseTimer timer = metrics.start(Phase.CHANGE_DETECTION)) {
+            changes = targeted ? extractionCache.detectChanges(javaFiles, changedFiles) : extractionCache.detectChanges(javaFiles);
+            timer.count(Counter.FILES, changes.getFilesToParse().size() + changes.getDeleted().size());
+        }
+        lastChanges = changes;
+        List<File> filesToParse = changes.getFilesToParse();
+        List<FileExtraction> extractions = extractFiles(filesToParse);
+
+        List<FileExtraction> removed = new ArrayList<>();
+        for (String path : changes.getDeleted())
+            removed.add(extractionCache.remove(path).getExtraction());
+
+        List<FileExtraction> added = new ArrayList<>(filesToParse.size());
+        for (int i = 0; i < filesToParse.size(); i++) {
+            FileExtraction extraction = extractions.get(i) != null ? extractions.get(i) : new FileExtraction();
+            FileRecord previous = extractionCache.put(filesToParse.get(i), extraction);
+            added.add(extraction);
+            if (previous != null)
+                removed.add(previous.getExtraction());
+        }
+
+        List<FileExtraction> cachedExtractions = new ArrayList<>(javaFiles.size());
+        for (File file : javaFiles)
+            cachedExtractions.add(extractionCache.get(file.getAbsolutePath()).getExtraction());
+
+        // Le filtre des types du projet dépend de l'ensemble des fichiers : s'il change, tout le graphe est réassemblé.
+        // Sinon les nouvelles contributions sont ajoutées avant le retrait des anciennes, pour garder les méthodes communes.
+        ProjectTypes types = projectTypesOf(cachedExtractions);
+        boolean reassemble = !graphMatchesExtractionCache || !types.equals(projectTypes);
+        projectTypes = types;
+
+        if (reassemble) {
+            Set<CallGraphDiff.Edge> edgesBefore = diff != null && callGraphBuilt ? CallGraphDiff.edgesOf(callGraph) : null;
+            clearCallGraph();
+            cachedExtractions.forEach(this::addToCallGraph);
+            if (edgesBefore != null) {
+                CallGraphDiff reassembled = CallGraphDiff.between(edgesBefore, callGraph);
+                reassembled.getAdded().forEach(edge -> diff.addEdge(edge.getCallerName(), edge.getCalleeName(), edge.getKind()));
+                reassembled.getRemoved().forEach(edge -> diff.removeEdge(edge.getCallerName(), edge.getCalleeName(), edge.getKind()));
+            }
+        } else if (!changes.isEmpty()) {
+            // Les résultats dérivés du couplage ne changent que si des arcs apparaissent ou disparaissent
+            edgeChanges = diff;
+            int changedEdges = 0;
+            try {
+                for (FileExtraction extraction : added)
+                    changedEdges += addToCallGraph(extraction);
+                for (FileExtraction extraction : removed)
+                    changedEdges += removeFromCallGraph(extraction);
+            } finally {
+                edgeChanges = null;
+            }
+            if (changedEdges > 0)
+                version++;
+        }
+        if (reassemble || !changes.isEmpty())
+            codeMetrics = codeMetricsOf(cachedExtractions);
+
+        graphMatchesExtractionCache = true;
+        callGraphBuilt = true;
+
+        if (!changes.isEmpty() || !cacheFile.exists())
+            extractionCache.save(cacheFile);
+
+        System.out.printf("Graphe d'appel mis à jour en %d ms (%s, %d fichiers au total)%n",
+                (System.nanoTime() - start) / 1_000_000, changes, javaFiles.size());
+    }
+
+    // Vrai si un des fichiers signalés est apparu ou a disparu depuis la dernière découverte des sources
+    private boolean structureChanged(Collection<File> changedFiles) {
+        Set<String> knownPaths = new HashSet<>(javaFiles.size() * 4 / 3 + 1);
+        for (File file : javaFiles)
+            knownPaths.add(file.getAbsolutePath());
+        for (File file : changedFiles)
+            if (file.exists() != knownPaths.contains(file.getAbsolutePath()))
+                return true;
+        return false;
+    }
+
+    // Remplace le graphe d'appel et l'index de couplage par ceux de l'instantané, s'il est valide
+    private boolean loadSnapshot() {
+        if (!snapshotEnabled)
+            return false;
+
+        long start = System.nanoTime();
+        refreshJavaFiles();
+        GraphSnapshot snapshot;
+        try (PhaseTimer timer = metrics.start(Phase.SNAPSHOT)) {
+            snapshot = GraphSnapshot.load(getSnapshotFile(), javaFiles, dependencyWeights, externalDependenciesTracked, graphStorage);
+            timer.count(Counter.FILES, javaFiles.size());
+        }
+        if (snapshot == null)
+            return false;
+
+        callGraph.release();
+        callGraph = snapshot.getCallGraph();
+        if (snapshot.getExternalGraph() != null) {
+            externalGraph.release();
+            externalGraph = snapshot.getExternalGraph();
+        }
+        externalCouplingIndex = null;
+        couplingIndex = snapshot.getCouplingIndex();
+        projectTypes = snapshot.getProjectTypes();
+        codeMetrics = snapshot.getCodeMetrics();
+        graphMatchesExtractionCache = false;
+        callGraphBuilt = true;
+        version++;
+
+        System.out.printf("Graphe d'appel chargé depuis l'instantané en %d ms (%d méthodes, %d arcs)%n",
+                (System.nanoTime() - start) / 1_000_000, callGraph.getNodeCount(), callGraph.getEdgeCount());
+        return true;
+    }
+
+    // Enregistre l'instantané du graphe d'appel et de l'index de couplage ; les empreintes déjà connues
+    // du cache d'extraction sont reprises pour les fichiers inchangés
+    private void saveSnapshot() throws IOException {
+        if (couplingIndex == null)
+            couplingIndex = buildCouplingIndex();
+
+        long start = System.nanoTime();
+        try (PhaseTimer timer = metrics.start(Phase.SNAPSHOT)) {
+            List<FileRecord> manifest = new ArrayList<>(javaFiles.size());
+            for (File file : javaFiles) {
+                FileRecord record = extractionCache == null ? null : extractionCache.get(file.getAbsolutePath());
+                if (record == null || record.getLastModified() != file.lastModified() || record.getSize() != file.length())
+                    record = new FileRecord(file.getAbsolutePath(), file.lastModified(), file.length(), ExtractionCache.hash(file), null);
+                manifest.add(record);
+            }
+
+            GraphSnapshot.save(getSnapshotFile(), manifest, projectTypes, codeMetrics, callGraph,
+                    externalDependenciesTracked ? externalGraph : null, couplingIndex);
+            timer.count(Counter.FILES, manifest.size());
+        }
+        System.out.printf("Instantané enregistré en %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Extrait les fichiers donnés, en parallèle ou en un seul lot ; le résultat suit l'ordre des fichiers
+    private List<FileExtraction> extractFiles(List<File> files) {
+        if (threadCount > 1)
+            return new ParallelCallGraphExtractor(parser, extractor, threadCount, environment.getParserPool(threadCount)).extract(files);
 
-        if (mi.resolveTypeBinding() != null)
-            return mi.resolveTypeBinding().getDeclaringClass().getName() + "." + mi.getName().toString();
+        List<FileExtraction> extractions = new ArrayList<>(Collections.nCopies(files.size(), null));
+        parser.parse(files, (ast, index) -> extractions.set(index, extractor.extract(ast)));
+        return extractions;
+    }
 
-        return mi.getName().toString();
+    // Construit le graphe d'appel en parsant les fichiers un par un (ancien chemin, conservé pour comparaison).
+    // Les sources sont découvertes et lues par un thread de lecture anticipée pendant le parsing ; les appels
+    // ne sont insérés qu'à la fin, quand l'ensemble des types du projet, qui sert de filtre, est connu.
+    public void buildCallGraphPerFile() {
+        long start = System.nanoTime();
+        clearCallGraph();
+        graphMatchesExtractionCache = false;
+
+        List<File> files = new ArrayList<>();
+        List<FileExtraction> extractions = new ArrayList<>();
+        new SourceLoader(sourceScanner, READ_AHEAD).forEach(source -> {
+            files.add(source.getFile());
+            extractions.add(extractor.extract(parser.parse(source.getContent())));
+        });
+
+        setJavaFiles(files);
+        projectTypes = projectTypesOf(extractions);
+        extractions.forEach(this::addToCallGraph);
+        codeMetrics = codeMetricsOf(extractions);
+        callGraphBuilt = true;
+
+        System.out.printf("Graphe d'appel construit en %d ms (%d fichiers, parsing fichier par fichier)%n",
+                (System.nanoTime() - start) / 1_000_000, javaFiles.size());
     }
 
-    // Retourne le nom complet d'une déclaration de méthode
-    private String getFullMethodName(MethodDeclaration method) {
-        String className = method.resolveBinding().getDeclaringClass().getName();
+    private void clearCallGraph() {
+        callGraph.clear();
+        externalGraph.clear();
+        couplingIndex = null;
+        externalCouplingIndex = null;
+        callGraphBuilt = false;
+        version++;
+    }
 
-        return className + "." + method.getName().toString();
+    // Ajoute au graphe d'appel les méthodes et leurs dépendances vers les types du projet extraites
+    // d'une unité de compilation ; l'index de couplage, s'il existe, est mis à jour avec les nouveaux arcs.
+    // Les dépendances vers les autres types vont dans le graphe externe quand elles sont suivies.
+    // Retourne le nombre d'arcs apparus dans le graphe d'appel.
+    private int addToCallGraph(FileExtraction extraction) {
+        if (extraction == null)
+            return 0;
+
+        try (PhaseTimer timer = metrics.start(Phase.GRAPH_INSERTION)) {
+            int newEdges = 0;
+            for (Map.Entry<String, List<Dependency>> method : extraction.getDependenciesByMethod().entrySet()) {
+                String callerName = method.getKey();
+                callGraph.addNode(callerName);
+
+                for (Dependency dependency : method.getValue()) {
+                    String target = dependency.getTarget();
+                    if (!projectTypes.contains(dependency.getTargetClassName())) {
+                        if (externalDependenciesTracked && externalGraph.addEdge(callerName, target, dependency.getKind()) && externalCouplingIndex != null)
+                            externalCouplingIndex.addEdge(callerName, target, dependency.getKind());
+                    } else if (callGraph.addEdge(callerName, target, dependency.getKind())) {
+                        newEdges++;
+                        if (couplingIndex != null)
+                            couplingIndex.addEdge(callerName, target, dependency.getKind());
+                        if (edgeChanges != null)
+                            edgeChanges.addEdge(callerName, target, dependency.getKind());
+                    }
+                }
+            }
+            timer.count(Counter.METHODS, extraction.getDependenciesByMethod().size());
+            timer.count(Counter.EDGES, newEdges);
+            return newEdges;
+        }
+    }
+
+    // Retire du graphe d'appel et de l'index de couplage la contribution d'une unité de compilation
+    // et retourne le nombre d'arcs disparus du graphe d'appel
+    private int removeFromCallGraph(FileExtraction extraction) {
+        try (PhaseTimer timer = metrics.start(Phase.GRAPH_INSERTION)) {
+            int removedEdges = 0;
+            for (Map.Entry<String, List<Dependency>> method : extraction.getDependenciesByMethod().entrySet()) {
+                String callerName = method.getKey();
+
+                for (Dependency dependency : method.getValue()) {
+                    String target = dependency.getTarget();
+                    if (!projectTypes.contains(dependency.getTargetClassName())) {
+                        if (externalDependenciesTracked && externalGraph.removeEdge(callerName, target, dependency.getKind()) && externalCouplingIndex != null)
+                            externalCouplingIndex.removeEdge(callerName, target, dependency.getKind());
+                    } else if (callGraph.removeEdge(callerName, target, dependency.getKind())) {
+                        removedEdges++;
+                        if (couplingIndex != null)
+                            couplingIndex.removeEdge(callerName, target, dependency.getKind());
+                        if (edgeChanges != null)
+                            edgeChanges.removeEdge(callerName, target, dependency.getKind());
+                    }
+                }
+
+                callGraph.removeNode(callerName);
+            }
+            timer.count(Counter.METHODS, extraction.getDependenciesByMethod().size());
+            return removedEdges;
+        }
     }
 
     // Retourne le chemin par défaut du projet
@@ -233,25 +716,67 @@ public class Analyzer {
         }
     }
 
-    // Calcule la métrique de couplage entre deux classes spécifiques
-    public double calculateCouplingMetric(String classNameA, String classNameB) throws IOException {
-        int couplingCounter = 0;
+    // Retourne l'index de couplage entre classes, construit en une passe sur le graphe d'appel
+    public CouplingIndex getCouplingIndex() throws IOException {
+        ensureCallGraph();
 
-        if (!this.callGraph.nodes().findAny().isPresent())
-            buildCallGraph();
+        if (couplingIndex == null)
+            couplingIndex = buildCouplingIndex();
+
+        return couplingIndex;
+    }
+
+    private CouplingIndex buildCouplingIndex() {
+        try (PhaseTimer timer = metrics.start(Phase.COUPLING)) {
+            CouplingIndex index = new CouplingIndex(callGraph, dependencyWeights);
+            timer.count(Counter.CLASSES, index.getClassCount());
+            timer.count(Counter.EDGES, index.getTotalEdges());
+            return index;
+        }
+    }
 
-        float totalCoupling = callGraph.edges().count();
+    // Retourne le couplage agrégé par paquetage et par sous-système, calculé en une passe sur l'index de couplage
+    // et recalculé quand les résultats de l'analyse changent
+    public CouplingHierarchy getCouplingHierarchy() throws IOException {
+        CouplingIndex index = getCouplingIndex();
+        if (couplingHierarchy != null && couplingHierarchyVersion == version && couplingHierarchy.getIndex(CouplingLevel.CLASS) == index)
+            return couplingHierarchy;
+
+        try (PhaseTimer timer = metrics.start(Phase.COUPLING_HIERARCHY)) {
+            couplingHierarchy = new CouplingHierarchy(index);
+            couplingHierarchyVersion = version;
+            timer.count(Counter.CLASSES, couplingHierarchy.getGroupCount(CouplingLevel.CLASS));
+            timer.count(Counter.PACKAGES, couplingHierarchy.getGroupCount(CouplingLevel.PACKAGE));
+        }
+        return couplingHierarchy;
+    }
 
-        for (Edge e : callGraph.edges().collect(Collectors.toList()))
-            if (
-                    (e.getNode0().getId().startsWith(classNameA + ".")
-                            && e.getNode1().getId().startsWith(classNameB + "."))
-                            ||
-                            (e.getNode0().getId().startsWith(classNameB + ".")
-                                    && e.getNode1().getId().startsWith(classNameA + ".")))
-                couplingCounter++;
+    // Retourne les métriques de taille du projet, connues une fois le graphe d'appel construit
+    public CodeMetrics getCodeMetrics() throws IOException {
+        ensureCallGraph();
+        return codeMetrics;
+    }
 
-        return couplingCounter / totalCoupling;
+    // Retourne les types déclarés dans les sources du projet, connus une fois le graphe d'appel construit
+    public ProjectTypes getProjectTypes() throws IOException {
+        ensureCallGraph();
+
+        return projectTypes;
+    }
+
+    // Calcule la métrique de couplage entre deux classes spécifiques, désignées par leur nom binaire
+    // ou, s'il n'est pas ambigu, par leur nom simple
+    public double calculateCouplingMetric(String classNameA, String classNameB) throws IOException {
+        CouplingIndex index = getCouplingIndex();
+        return index.getCoupling(projectTypes.resolve(classNameA), projectTypes.resolve(classNameB));
+    }
+
+    // Calcule la métrique de couplage entre deux groupes du niveau : classes (nom binaire ou simple), paquetages
+    // ou sous-systèmes ; un même groupe donné deux fois donne son couplage interne
+    public double calculateCouplingMetric(CouplingLevel level, String groupA, String groupB) throws IOException {
+        if (level == CouplingLevel.CLASS)
+            return calculateCouplingMetric(groupA, groupB);
+        return getCouplingHierarchy().getCoupling(level, groupA, groupB);
     }
 
     // Calcule la métrique de couplage entre deux clusters
@@ -265,77 +790,48 @@ public class Analyzer {
         return result;
     }
 
-    // Construit le graphe de couplage pondéré
+    // Affiche le graphe de couplage pondéré, construit seulement s'il ne l'a pas déjà été
     public void buildWeightedCouplingGraph() throws IOException {
-        for (String javaFileName : javaFileNames) {
-            String outerClassName = javaFileName.substring(0, javaFileName.lastIndexOf("."));
-            if (weightedCouplingGraph.nodes().noneMatch(n -> n.getId().equals(outerClassName)))
-                weightedCouplingGraph.addNode(outerClassName);
-
-            for (String innerJavaFileName : javaFileNames) {
-                if (!javaFileName.equals(innerJavaFileName)) {
-                    String innerClassName = innerJavaFileName.substring(0, innerJavaFileName.lastIndexOf("."));
-                    double couplingMetric = calculateCouplingMetric(outerClassName, innerClassName);
-                    if (couplingMetric > 0) {
-                        if (weightedCouplingGraph.nodes().noneMatch(n -> n.getId().equals(innerClassName)))
-                            weightedCouplingGraph.addNode(innerClassName);
-                        if (weightedCouplingGraph.edges().noneMatch(n -> n.getId().equals(outerClassName + "->" + innerClassName)) && weightedCouplingGraph.edges().noneMatch(n -> n.getId().equals(innerClassName + "->" + outerClassName))) {
-                            Edge e = weightedCouplingGraph.addEdge(outerClassName + "->" + innerClassName, outerClassName, innerClassName);
-                            e.setAttribute("ui.label", String.format("%.3f", couplingMetric));
-                        }
-                    }
-                }
-            }
-        }
-
-        String css = "text-alignment: at-right; text-padding: 3px, 2px; text-background-mode: rounded-box; text-background-color: #EB2; text-color: #222;";
-
-        for (
-                Node node : this.weightedCouplingGraph.nodes().
-
-                collect(Collectors.toList())) {
-            //node.setAttribute("ui.style", "shape:circle; fill-color: cyan;size: 30px; text-alignment: center;");
-            node.setAttribute("ui.style", css);
-            node.setAttribute("ui.label", node.getId());
-            if (!node.neighborNodes().findAny().isPresent())
-                node.setAttribute("ui.hide");
-        }
-
-        for (
-                Edge edge : this.weightedCouplingGraph.edges().
+        GraphRenderer.show(getSession().getWeightedCouplingGraph());
+    }
 
-                collect(Collectors.toList())) {
-            edge.setAttribute("layout.weight", 20.0);
+    // Construit le graphe de couplage pondéré entre les classes du projet, sans l'afficher
+    public WeightedGraph createWeightedCouplingGraph() throws IOException {
+        CouplingIndex index = getCouplingIndex();
+        try (PhaseTimer timer = metrics.start(Phase.WEIGHTED_GRAPH)) {
+            weightedCouplingGraph = new WeightedGraph();
+
+            for (String className : projectTypes.getNames())
+                weightedCouplingGraph.addNode(className);
+
+            // Seules les paires couplées sont parcourues
+            float totalEdges = index.getTotalEdges();
+            index.forEachPair((classA, classB, count) -> {
+                String classNameA = index.getClassName(classA), classNameB = index.getClassName(classB);
+                if (classA != classB && projectTypes.contains(classNameA) && projectTypes.contains(classNameB))
+                    weightedCouplingGraph.addEdge(classNameA, classNameB, count / totalEdges);
+            });
+
+            timer.count(Counter.CLASSES, weightedCouplingGraph.getNodeCount());
+            timer.count(Counter.EDGES, weightedCouplingGraph.getEdgeCount());
         }
-
-        weightedCouplingGraph.setAttribute("ui.quality");
-        weightedCouplingGraph.setAttribute("ui.style", "padding: 10px;");
-
-        weightedCouplingGraph.display();
+        return weightedCouplingGraph;
     }
 
-    // Construit des clusters à partir des métriques de couplage
+    // Affiche les clusters du dendrogramme, construit seulement s'il ne l'a pas déjà été
     public void buildClusters() throws IOException {
-        Set<Cluster> clusters;
-        if (clusterer.getDendro() == null || clusterer.getDendro().isEmpty())
-            clusters = clusterer
-                    .buildClusters()
-                    .getDendro();
-        else
-            clusters = clusterer.getDendro();
-
-
         int i = 0;
-        for (Cluster cluster : clusters) {
+        for (Cluster cluster : getSession().getClusters()) {
             System.out.print("Cluster " + (++i) + " [ ");
             cluster.getClasses().forEach(c -> System.out.print(c + " "));
             System.out.println("]");
         }
     }
 
-    // Identifie les modules à partir des clusters
+    // Identifie les modules à partir des clusters, pour la valeur de CP saisie
     public void identifyModules() throws IOException {
-        Set<Cluster> modules = clusterer.getIdentifiedModules();
+        double minimumCoupling = new DoubleInputProcessor("Saisir la valeur de CP >> ").process();
+        Set<Cluster> modules = getSession().getModules(minimumCoupling);
 
         int i = 0;
         for (Cluster module : modules) {
@@ -344,4 +840,4 @@ public class Analyzer {
             System.out.println("]");
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package org.analysis.core;
+
+// Couplage entre deux modules d'un espace de travail : poids des dépendances dans chaque sens et part du poids
+// de toutes les dépendances entre types de l'espace de travail
+public class ModuleCoupling {
+
+    private final String moduleA;
+    private final String moduleB;
+    private final int countAToB;
+    private final int countBToA;
+    private final double coupling;
+
+    public ModuleCoupling(String moduleA, String moduleB, int countAToB, int countBToA, double coupling) {
+        this.moduleA = moduleA;
+        this.moduleB = moduleB;
+        this.countAToB = countAToB;
+        this.countBToA = countBToA;
+        this.coupling = coupling;
+    }
+
+    public String getModuleA() { return moduleA; }
+
+    public String getModuleB() { return moduleB; }
+
+    public int getCountAToB() { return countAToB; }
+
+    public int getCountBToA() { return countBToA; }
+
+    public int getCount() { return countAToB + countBToA; }
+
+    public double getCoupling() { return coupling; }
+}
@@ -0,0 +1,227 @@
+package org.analysis.core;
+
+import org.analysis.clustering.Cluster;
+import org.analysis.graph.CallGraphDiff;
+import org.analysis.metrics.AnalysisMetrics;
+import org.analysis.metrics.Counter;
+import org.analysis.metrics.Phase;
+import org.analysis.metrics.PhaseTimer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+// Mode surveillance : l'analyse reste chargée et suit l'arbre source par WatchService. Les événements sont regroupés
+// jusqu'à ce qu'aucun n'arrive pendant debounce ms, puis seuls les fichiers signalés sont comparés au cache
+// d'extraction et reparsés s'ils ont changé ; graphe d'appel et index de couplage sont corrigés en place et les
+// modules ne sont recalculés que si des arcs ont changé. Les abonnés reçoivent les arcs et modules apparus et disparus.
+// Un débordement de la file d'événements ou la suppression d'un dossier entraîne la comparaison de toutes les sources.
+public class SourceWatcher implements Closeable {
+
+    // Accalmie attendue avant de traiter un lot d'événements (-Danalysis.watch.debounce, en ms)
+    public static final long DEFAULT_DEBOUNCE_MILLIS = Long.getLong("analysis.watch.debounce", 100);
+
+    public interface Listener {
+        void analysisUpdated(AnalysisUpdate update);
+    }
+
+    private final AnalysisSession session;
+    private final double minimumCoupling;
+    private final long debounceMillis;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Dossier surveillé par chaque clé
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    // Modules de la dernière mise à jour, par ensemble de classes
+    private Map<Set<String>, Cluster> modules = Collections.emptyMap();
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean closed;
+
+    public SourceWatcher(AnalysisSession session, double minimumCoupling) {
+        this(session, minimumCoupling, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    public SourceWatcher(AnalysisSession session, double minimumCoupling, long debounceMillis) {
+        if (debounceMillis < 0)
+            throw new IllegalArgumentException("Le délai d'accalmie doit être positif ou nul : " + debounceMillis);
+        this.session = session;
+        this.minimumCoupling = minimumCoupling;
+        this.debounceMillis = debounceMillis;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Aligne le cache d'extraction et les modules sur les sources, puis surveille l'arbre source dans un thread dédié
+    public synchronized void start() throws IOException {
+        if (thread != null)
+            throw new IllegalStateException("La surveillance est déjà démarrée");
+
+        update(null, System.nanoTime());
+        Path root = session.getAnalyzer().getSourceRoot();
+        watchService = root.getFileSystem().newWatchService();
+        registerTree(root, null);
+
+        thread = new Thread(this::watch, "source-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.printf("Surveillance de %s (%d dossiers)%n", root, directories.size());
+    }
+
+    // Attend la fin de la surveillance
+    public void awaitTermination() throws InterruptedException {
+        Thread watcher;
+        synchronized (this) {
+            watcher = thread;
+        }
+        if (watcher != null)
+            watcher.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (this) {
+            if (watchService != null)
+                watchService.close();
+        }
+    }
+
+    // Boucle du thread de surveillance : un lot par rafale d'événements
+    private void watch() {
+        try {
+            while (!closed) {
+                WatchKey key = watchService.take();
+                long firstEvent = System.nanoTime();
+                Set<File> changedFiles = new LinkedHashSet<>();
+                boolean fullScan = collect(key, changedFiles);
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null)
+                    fullScan |= collect(key, changedFiles);
+
+                if (fullScan || !changedFiles.isEmpty())
+                    publish(fullScan ? null : changedFiles, firstEvent);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Surveillance arrêtée
+        }
+    }
+
+    // Met à jour l'analyse puis prévient les abonnés ; une erreur n'interrompt pas la surveillance
+    private void publish(Collection<File> changedFiles, long firstEvent) {
+        AnalysisUpdate update;
+        try {
+            update = update(changedFiles, firstEvent);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Échec de la mise à jour de l'analyse : " + e);
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.analysisUpdated(update);
+            } catch (RuntimeException e) {
+                System.err.println("Erreur d'un abonné à la surveillance : " + e);
+            }
+        }
+    }
+
+    // Reprend les fichiers signalés (null : toutes les sources) puis compare les modules à ceux de la mise à jour
+    // précédente ; la session reste verrouillée pour que graphe et modules correspondent à la même version
+    private AnalysisUpdate update(Collection<File> changedFiles, long firstEvent) throws IOException {
+        try (PhaseTimer timer = AnalysisMetrics.getInstance().start(Phase.WATCH)) {
+            synchronized (session) {
+                CallGraphDiff edges = session.update(changedFiles);
+                Map<Set<String>, Cluster> current = modulesByClasses(session.getModules(minimumCoupling));
+                List<Cluster> added = missingFrom(current, modules);
+                List<Cluster> removed = missingFrom(modules, current);
+                modules = current;
+
+                Analyzer analyzer = session.getAnalyzer();
+                timer.count(Counter.FILES, analyzer.getLastChanges().getFilesToParse().size() + analyzer.getLastChanges().getDeleted().size());
+                timer.count(Counter.EDGES, edges.getAdded().size() + edges.getRemoved().size());
+                timer.count(Counter.MODULES, added.size() + removed.size());
+                return new AnalysisUpdate(analyzer.getVersion(), analyzer.getLastChanges(), edges, added, removed,
+                        (System.nanoTime() - firstEvent) / 1_000_000);
+            }
+        }
+    }
+
+    // Relève les sources signalées par la clé ; vrai si toutes les sources doivent être comparées
+    private boolean collect(WatchKey key, Set<File> changedFiles) {
+        Path directory = directories.get(key);
+        boolean fullScan = directory == null;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                fullScan = true;
+                continue;
+            }
+
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // Les fichiers d'un dossier créé ou déplacé ici peuvent précéder son enregistrement
+                try {
+                    registerTree(path, changedFiles);
+                } catch (IOException e) {
+                    fullScan = true;
+                }
+            } else if (event.kind() == ENTRY_DELETE && directories.containsValue(path)) {
+                fullScan = true;
+            } else if (path.getFileName().toString().endsWith(".java")) {
+                changedFiles.add(path.toFile());
+            }
+        }
+
+        if (!key.reset())
+            directories.remove(key);
+        return fullScan;
+    }
+
+    // Surveille le dossier et ses sous-dossiers ; les sources trouvées sont ajoutées aux fichiers signalés
+    private void registerTree(Path start, Set<File> changedFiles) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (changedFiles != null && file.getFileName().toString().endsWith(".java"))
+                    changedFiles.add(file.toFile());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static Map<Set<String>, Cluster> modulesByClasses(Set<Cluster> modules) {
+        Map<Set<String>, Cluster> byClasses = new HashMap<>(modules.size() * 4 / 3 + 1);
+        for (Cluster module : modules)
+            byClasses.put(module.getClasses(), module);
+        return byClasses;
+    }
+
+    // Modules de la première table dont l'ensemble de classes n'est pas dans la seconde
+    private static List<Cluster> missingFrom(Map<Set<String>, Cluster> modules, Map<Set<String>, Cluster> other) {
+        List<Cluster> missing = new ArrayList<>();
+        for (Map.Entry<Set<String>, Cluster> module : modules.entrySet())
+            if (!other.containsKey(module.getKey()))
+                missing.add(module.getValue());
+        return missing;
+    }
+}
@@ -0,0 +1,187 @@
+package org.analysis.core;
+
+import org.analysis.graph.CouplingIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Espace de travail de plusieurs projets ou modules Maven analysés dans le même processus. Chaque module a son propre
+// Analyzer (graphe, caches, clusters) ; tous partagent l'environnement de résolution (JDK, bibliothèques, sources de
+// tous les modules) et le pool de parsing. Les dépendances d'un module vers les types des autres sont suivies
+// dans son graphe externe et donnent le couplage entre modules.
+public class Workspace {
+
+    private static final Pattern MODULE = Pattern.compile("<module>\\s*([^<]+?)\\s*</module>");
+
+    // Action exécutée sur chaque module, par exemple la construction du graphe d'appel puis le clustering
+    public interface ModuleTask {
+        void run(Analyzer analyzer) throws IOException;
+    }
+
+    private final File root;
+    private final AnalysisEnvironment environment;
+    private final Map<String, Analyzer> modules = new LinkedHashMap<>();
+
+    public Workspace(File root, AnalysisEnvironment environment) {
+        this.root = root.getAbsoluteFile();
+        this.environment = environment;
+
+        List<File> directories = discoverModules(this.root);
+        if (directories.isEmpty())
+            throw new IllegalArgumentException("Aucun module avec des sources dans " + root);
+
+        // Toutes les sources sont déclarées avant la création des parseurs, pour résoudre les types d'un module depuis un autre
+        for (File directory : directories)
+            environment.addSourceRoot(Analyzer.sourceRootOf(directory).getPath());
+
+        String cacheRoot = System.getProperty("analysis.cache.dir");
+        for (File directory : directories) {
+            String name = moduleName(directory);
+            Analyzer analyzer = new Analyzer(directory.getPath(), environment);
+            if (cacheRoot != null)
+                analyzer.setCacheDirectory(new File(cacheRoot, name.replaceAll("[^A-Za-z0-9._-]", "_")));
+            analyzer.setExternalDependenciesTracked(true);
+            modules.put(name, analyzer);
+        }
+    }
+
+    // Modules de l'espace de travail : modules Maven déclarés dans les pom.xml (récursivement), sinon sous-dossiers
+    // contenant des sources, sinon le dossier lui-même
+    public static List<File> discoverModules(File root) {
+        List<File> modules = new ArrayList<>();
+        File pom = new File(root, "pom.xml");
+        if (pom.isFile()) {
+            for (String module : declaredModules(pom))
+                modules.addAll(discoverModules(new File(root, module)));
+            if (modules.isEmpty() && Analyzer.sourceRootOf(root).isDirectory())
+                modules.add(root);
+            return modules;
+        }
+
+        File[] children = root.listFiles(File::isDirectory);
+        if (children != null) {
+            Arrays.sort(children);
+            for (File child : children)
+                if (!child.getName().startsWith(".") && Analyzer.sourceRootOf(child).isDirectory())
+                    modules.add(child);
+        }
+        if (modules.isEmpty() && Analyzer.sourceRootOf(root).isDirectory())
+            modules.add(root);
+        return modules;
+    }
+
+    private static List<String> declaredModules(File pom) {
+        List<String> names = new ArrayList<>();
+        try {
+            Matcher matcher = MODULE.matcher(new String(Files.readAllBytes(pom.toPath()), StandardCharsets.UTF_8));
+            while (matcher.find())
+                names.add(matcher.group(1));
+        } catch (IOException e) {
+            throw new RuntimeException("Lecture impossible de " + pom, e);
+        }
+        return names;
+    }
+
+    // Nom d'un module : son chemin relatif à la racine de l'espace de travail
+    private String moduleName(File directory) {
+        String relative = root.toPath().relativize(directory.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+        return relative.isEmpty() ? root.getName() : relative;
+    }
+
+    public Map<String, Analyzer> getModules() {
+        return Collections.unmodifiableMap(modules);
+    }
+
+    public AnalysisEnvironment getEnvironment() {
+        return environment;
+    }
+
+    // Exécute la tâche sur tous les modules, moduleThreads modules à la fois
+    public void analyze(int moduleThreads, ModuleTask task) {
+        if (moduleThreads < 1)
+            throw new IllegalArgumentException("Le nombre de threads doit être positif : " + moduleThreads);
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(moduleThreads, modules.size()));
+        try {
+            Map<String, Future<Void>> results = new LinkedHashMap<>();
+            for (Map.Entry<String, Analyzer> module : modules.entrySet())
+                results.put(module.getKey(), executor.submit(() -> {
+                    task.run(module.getValue());
+                    return null;
+                }));
+
+            for (Map.Entry<String, Future<Void>> result : results.entrySet()) {
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Échec de l'analyse du module " + result.getKey(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.printf("Espace de travail analysé en %d ms (%d modules, %d à la fois)%n",
+                (System.nanoTime() - start) / 1_000_000, modules.size(), Math.min(moduleThreads, modules.size()));
+    }
+
+    // Module déclarant chaque type de l'espace de travail ; un type déclaré dans plusieurs modules revient au premier
+    public Map<String, String> getTypeOwners() throws IOException {
+        Map<String, String> owners = new HashMap<>();
+        for (Map.Entry<String, Analyzer> module : modules.entrySet())
+            for (String typeName : module.getValue().getProjectTypes().getNames())
+                owners.putIfAbsent(typeName, module.getKey());
+        return owners;
+    }
+
+    // Couplage entre chaque paire de modules reliés par au moins une dépendance, dans l'ordre des modules.
+    // Le couplage rapporte le poids des dépendances entre les deux modules au poids de toutes les dépendances
+    // entre types de l'espace de travail, internes aux modules ou non.
+    public List<ModuleCoupling> getCrossModuleCoupling() throws IOException {
+        Map<String, String> owners = getTypeOwners();
+        List<String> names = new ArrayList<>(modules.keySet());
+        Map<String, Integer> order = new HashMap<>();
+        for (int i = 0; i < names.size(); i++)
+            order.put(names.get(i), i);
+
+        int moduleCount = names.size();
+        long[][] counts = new long[moduleCount][moduleCount];
+        long total = 0;
+
+        for (Map.Entry<String, Analyzer> module : modules.entrySet()) {
+            String name = module.getKey();
+            int from = order.get(name);
+            total += module.getValue().getCouplingIndex().getTotalEdges();
+
+            CouplingIndex external = module.getValue().getExternalCouplingIndex();
+            long[] crossCount = {0};
+            external.forEachPair((classA, classB, count) -> {
+                String ownerA = owners.get(external.getClassName(classA)), ownerB = owners.get(external.getClassName(classB));
+                String other = ownerA != null && !ownerA.equals(name) ? ownerA : ownerB != null && !ownerB.equals(name) ? ownerB : null;
+                if (other != null) {
+                    counts[from][order.get(other)] += count;
+                    crossCount[0] += count;
+                }
+            });
+            total += crossCount[0];
+        }
+
+        List<ModuleCoupling> result = new ArrayList<>();
+        for (int a = 0; a < moduleCount; a++)
+            for (int b = a + 1; b < moduleCount; b++)
+                if (counts[a][b] + counts[b][a] > 0)
+                    result.add(new ModuleCoupling(names.get(a), names.get(b), (int) counts[a][b], (int) counts[b][a],
+                            (counts[a][b] + counts[b][a]) / (double) total));
+        return result;
+    }
+}
@@ -0,0 +1,337 @@
+package org.analysis.export;
+
+import org.analysis.clustering.Cluster;
+import org.analysis.clustering.Dendrogram;
+import org.analysis.core.AnalysisUpdate;
+import org.analysis.core.ModuleCoupling;
+import org.analysis.graph.CallGraph;
+import org.analysis.graph.CallGraphDiff;
+import org.analysis.graph.CouplingHierarchy;
+import org.analysis.graph.CouplingIndex;
+import org.analysis.graph.CouplingLevel;
+import org.analysis.incremental.ChangeSet;
+import org.analysis.metrics.CodeMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Écrit les résultats de l'analyse en JSON ou en CSV : graphe d'appel, matrice de couplage (paires non nulles),
+// couplage par paquetage et sous-système, dendrogramme, modules, métriques de taille, couplage entre modules d'un espace de travail et mises à jour du mode surveillance. Chaque méthode écrit une seule valeur JSON ou un seul tableau CSV avec son en-tête.
+public class AnalysisExporter {
+
+    public enum Format { JSON, CSV }
+
+    private final PrintWriter out;
+    private final Format format;
+
+    public AnalysisExporter(PrintWriter out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    // Arcs du graphe d'appel avec leur nature et leur multiplicité
+    public void writeCallGraph(CallGraph callGraph) {
+        if (format == Format.CSV) {
+            out.println("caller,callee,kind,count");
+            for (int edge = 0; edge < callGraph.getEdgeCount(); edge++)
+                out.println(csv(callGraph.getNodeName(callGraph.getEdgeSource(edge))) + ","
+                        + csv(callGraph.getNodeName(callGraph.getEdgeTarget(edge))) + ","
+                        + callGraph.getEdgeKind(edge).getLabel() + ","
+                        + callGraph.getEdgeMultiplicity(edge));
+            return;
+        }
+
+        out.print("{\"methods\":[");
+        String separator = "";
+        for (int node = 0; node < callGraph.getNodeIdBound(); node++) {
+            if (!callGraph.isPresent(node)) continue;
+            out.print(separator + json(callGraph.getNodeName(node)));
+            separator = ",";
+        }
+        out.print("],\"edges\":[");
+        for (int edge = 0; edge < callGraph.getEdgeCount(); edge++) {
+            out.print(edge == 0 ? "" : ",");
+            out.print("{\"caller\":" + json(callGraph.getNodeName(callGraph.getEdgeSource(edge)))
+                    + ",\"callee\":" + json(callGraph.getNodeName(callGraph.getEdgeTarget(edge)))
+                    + ",\"kind\":" + json(callGraph.getEdgeKind(edge).getLabel())
+                    + ",\"count\":" + callGraph.getEdgeMultiplicity(edge) + "}");
+        }
+        out.println("]}");
+    }
+
+    // Paires de classes couplées (classA <= classB dans l'ordre de l'index), avec le poids des arcs et le couplage
+    public void writeCouplingMatrix(CouplingIndex couplingIndex) {
+        double totalEdges = couplingIndex.getTotalEdges();
+
+        if (format == Format.CSV)
+            out.println("classA,classB,count,coupling");
+        else
+            out.print("{\"totalEdges\":" + couplingIndex.getTotalEdges() + ",\"pairs\":[");
+
+        String[] separator = {""};
+        couplingIndex.forEachPair((classA, classB, count) -> {
+            String nameA = couplingIndex.getClassName(classA), nameB = couplingIndex.getClassName(classB);
+            if (format == Format.CSV) {
+                out.println(csv(nameA) + "," + csv(nameB) + "," + count + "," + number(count / totalEdges));
+            } else {
+                out.print(separator[0] + "{\"classA\":" + json(nameA) + ",\"classB\":" + json(nameB)
+                        + ",\"count\":" + count + ",\"coupling\":" + number(count / totalEdges) + "}");
+                separator[0] = ",";
+            }
+        });
+
+        if (format == Format.JSON)
+            out.println("]}");
+    }
+
+    // Feuilles (une classe chacune) puis fusions dans leur ordre ; un noeud n >= nombre de feuilles
+    // est créé par la fusion n - nombre de feuilles
+    public void writeDendrogram(Dendrogram dendrogram) {
+        int leafCount = dendrogram.getLeafCount();
+
+        if (format == Format.CSV) {
+            out.println("node,left,right,size,mergeCoupling,intraCoupling,classes");
+            for (int node = 0; node < dendrogram.getNodeCount(); node++) {
+                boolean leaf = dendrogram.isLeaf(node);
+                out.println(node + "," + dendrogram.getLeft(node) + "," + dendrogram.getRight(node) + ","
+                        + dendrogram.getSize(node) + ","
+                        + (leaf ? "" : number(dendrogram.getMergeCoupling(node))) + ","
+                        + number(dendrogram.getIntraCoupling(node)) + ","
+                        + (leaf ? csv(String.join(" ", dendrogram.getCluster(node).getClasses())) : ""));
+            }
+            return;
+        }
+
+        out.print("{\"leaves\":[");
+        for (int leaf = 0; leaf < leafCount; leaf++)
+            out.print((leaf == 0 ? "" : ",") + jsonArray(dendrogram.getCluster(leaf).getClasses()));
+        out.print("],\"merges\":[");
+        for (int node = leafCount; node < dendrogram.getNodeCount(); node++) {
+            out.print(node == leafCount ? "" : ",");
+            out.print("{\"node\":" + node + ",\"left\":" + dendrogram.getLeft(node) + ",\"right\":" + dendrogram.getRight(node)
+                    + ",\"size\":" + dendrogram.getSize(node)
+                    + ",\"mergeCoupling\":" + number(dendrogram.getMergeCoupling(node))
+                    + ",\"intraCoupling\":" + number(dendrogram.getIntraCoupling(node)) + "}");
+        }
+        out.println("]}");
+    }
+
+    // Modules identifiés avec leur couplage interne ; en CSV, une ligne par classe
+    public void writeModules(Collection<Cluster> modules) throws IOException {
+        if (format == Format.CSV)
+            out.println("module,coupling,class");
+        else
+            out.print("[");
+
+        int index = 0;
+        for (Cluster module : modules) {
+            index++;
+            if (format == Format.CSV) {
+                for (String className : module.getClasses())
+                    out.println(index + "," + number(module.getAVGCoupling()) + "," + csv(className));
+            } else {
+                out.print((index == 1 ? "" : ",") + "{\"module\":" + index + ",\"coupling\":" + number(module.getAVGCoupling())
+                        + ",\"classes\":" + jsonArray(module.getClasses()) + "}");
+            }
+        }
+
+        if (format == Format.JSON)
+            out.println("]");
+    }
+
+    // Méthodes, attributs et lignes de chaque classe ; en JSON, précédés des totaux, des top classes les plus longues
+    // et des top méthodes les plus longues
+    public void writeCodeMetrics(CodeMetrics metrics, int top) {
+        if (format == Format.CSV) {
+            out.println("class,methods,attributes,lines");
+            for (int classId = 0; classId < metrics.getClassIdBound(); classId++)
+                out.println(csv(metrics.getClassName(classId)) + "," + metrics.getClassMethodCount(classId) + ","
+                        + metrics.getClassAttributeCount(classId) + "," + metrics.getClassLines(classId));
+            return;
+        }
+
+        out.print("{\"classCount\":" + metrics.getClassCount() + ",\"methodCount\":" + metrics.getMethodCount()
+                + ",\"attributeCount\":" + metrics.getAttributeCount() + ",\"packageCount\":" + metrics.getPackageCount()
+                + ",\"lines\":" + metrics.getTotalLines() + ",\"largestClasses\":[");
+        int[] largest = metrics.topClasses(CodeMetrics.ClassMeasure.LINES, top);
+        for (int i = 0; i < largest.length; i++)
+            out.print((i == 0 ? "" : ",") + jsonClassMetrics(metrics, largest[i]));
+        out.print("],\"longestMethods\":[");
+        int[] longest = metrics.topMethodsByLines(top);
+        for (int i = 0; i < longest.length; i++)
+            out.print((i == 0 ? "" : ",") + "{\"method\":" + json(metrics.getMethodName(longest[i]))
+                    + ",\"lines\":" + metrics.getMethodLines(longest[i]) + "}");
+        out.print("],\"classes\":[");
+        for (int classId = 0; classId < metrics.getClassIdBound(); classId++)
+            out.print((classId == 0 ? "" : ",") + jsonClassMetrics(metrics, classId));
+        out.println("]}");
+    }
+
+    private static String jsonClassMetrics(CodeMetrics metrics, int classId) {
+        return "{\"class\":" + json(metrics.getClassName(classId)) + ",\"methods\":" + metrics.getClassMethodCount(classId)
+                + ",\"attributes\":" + metrics.getClassAttributeCount(classId) + ",\"lines\":" + metrics.getClassLines(classId) + "}";
+    }
+
+    // Couplage agrégé par paquetage puis par sous-système : groupes avec leur parent et leur nombre d'enfants,
+    // puis paires de groupes couplés, un même groupe donné deux fois pour ses appels internes
+    public void writeCouplingHierarchy(CouplingHierarchy hierarchy) {
+        CouplingLevel[] levels = {CouplingLevel.PACKAGE, CouplingLevel.SUBSYSTEM};
+        double totalEdges = hierarchy.getIndex(CouplingLevel.CLASS).getTotalEdges();
+
+        if (format == Format.CSV) {
+            out.println("level,groupA,groupB,count,coupling");
+            for (CouplingLevel level : levels) {
+                CouplingIndex index = hierarchy.getIndex(level);
+                index.forEachPair((groupA, groupB, count) -> out.println(level.getLabel() + "," + csv(index.getClassName(groupA)) + ","
+                        + csv(index.getClassName(groupB)) + "," + count + "," + number(count / totalEdges)));
+            }
+            return;
+        }
+
+        out.print("{\"totalEdges\":" + (int) totalEdges + ",\"levels\":[");
+        for (int l = 0; l < levels.length; l++) {
+            CouplingLevel level = levels[l];
+            CouplingIndex index = hierarchy.getIndex(level);
+            out.print((l == 0 ? "" : ",") + "{\"level\":" + json(level.getLabel()) + ",\"groups\":[");
+            for (int group = 0; group < index.getClassCount(); group++) {
+                out.print((group == 0 ? "" : ",") + "{\"name\":" + json(index.getClassName(group)) + ",\"children\":"
+                        + hierarchy.getChildren(level, group).length);
+                if (level.parent() != null)
+                    out.print(",\"parent\":" + json(hierarchy.getGroupName(level.parent(), hierarchy.getParent(level, group))));
+                out.print("}");
+            }
+            out.print("],\"pairs\":[");
+            String[] separator = {""};
+            index.forEachPair((groupA, groupB, count) -> {
+                out.print(separator[0] + "{\"groupA\":" + json(index.getClassName(groupA)) + ",\"groupB\":" + json(index.getClassName(groupB))
+                        + ",\"count\":" + count + ",\"coupling\":" + number(count / totalEdges) + "}");
+                separator[0] = ",";
+            });
+            out.print("]}");
+        }
+        out.println("]}");
+    }
+
+    // Couplage entre modules d'un espace de travail, avec le poids des dépendances dans chaque sens
+    public void writeModuleCoupling(Collection<ModuleCoupling> couplings) {
+        if (format == Format.CSV)
+            out.println("moduleA,moduleB,countAToB,countBToA,coupling");
+        else
+            out.print("[");
+
+        String separator = "";
+        for (ModuleCoupling coupling : couplings) {
+            if (format == Format.CSV) {
+                out.println(csv(coupling.getModuleA()) + "," + csv(coupling.getModuleB()) + "," + coupling.getCountAToB() + ","
+                        + coupling.getCountBToA() + "," + number(coupling.getCoupling()));
+            } else {
+                out.print(separator + "{\"moduleA\":" + json(coupling.getModuleA()) + ",\"moduleB\":" + json(coupling.getModuleB())
+                        + ",\"countAToB\":" + coupling.getCountAToB() + ",\"countBToA\":" + coupling.getCountBToA()
+                        + ",\"coupling\":" + number(coupling.getCoupling()) + "}");
+                separator = ",";
+            }
+        }
+
+        if (format == Format.JSON)
+            out.println("]");
+    }
+
+    // Mise à jour du mode surveillance, sur une seule ligne en JSON ; en CSV, une ligne par fichier, arc ou module
+    // (classes séparées par des points-virgules)
+    public void writeAnalysisUpdate(AnalysisUpdate update) throws IOException {
+        ChangeSet changes = update.getChanges();
+        List<String> deleted = changes.getDeleted();
+        if (format == Format.CSV) {
+            out.println("element,change,value");
+            for (File file : changes.getAdded())
+                out.println("file,added," + csv(file.getPath()));
+            for (File file : changes.getModified())
+                out.println("file,modified," + csv(file.getPath()));
+            for (String path : deleted)
+                out.println("file,deleted," + csv(path));
+            for (CallGraphDiff.Edge edge : update.getEdges().getAdded())
+                out.println("edge,added," + csv(edge.getCallerName() + " -> " + edge.getCalleeName() + " (" + edge.getKind().getLabel() + ")"));
+            for (CallGraphDiff.Edge edge : update.getEdges().getRemoved())
+                out.println("edge,removed," + csv(edge.getCallerName() + " -> " + edge.getCalleeName() + " (" + edge.getKind().getLabel() + ")"));
+            for (Cluster module : update.getAddedModules())
+                out.println("module,added," + csv(String.join(";", module.getClasses())));
+            for (Cluster module : update.getRemovedModules())
+                out.println("module,removed," + csv(String.join(";", module.getClasses())));
+            return;
+        }
+
+        out.print("{\"version\":" + update.getVersion() + ",\"latencyMillis\":" + update.getLatencyMillis()
+                + ",\"files\":{\"added\":" + jsonArray(paths(changes.getAdded())) + ",\"modified\":" + jsonArray(paths(changes.getModified()))
+                + ",\"deleted\":" + jsonArray(deleted) + "},\"edges\":{\"added\":");
+        writeEdges(update.getEdges().getAdded());
+        out.print(",\"removed\":");
+        writeEdges(update.getEdges().getRemoved());
+        out.print("},\"modules\":{\"added\":");
+        writeModuleList(update.getAddedModules());
+        out.print(",\"removed\":");
+        writeModuleList(update.getRemovedModules());
+        out.println("}}");
+    }
+
+    private void writeEdges(Collection<CallGraphDiff.Edge> edges) {
+        out.print("[");
+        String separator = "";
+        for (CallGraphDiff.Edge edge : edges) {
+            out.print(separator + "{\"caller\":" + json(edge.getCallerName()) + ",\"callee\":" + json(edge.getCalleeName())
+                    + ",\"kind\":" + json(edge.getKind().getLabel()) + "}");
+            separator = ",";
+        }
+        out.print("]");
+    }
+
+    private void writeModuleList(Collection<Cluster> modules) throws IOException {
+        out.print("[");
+        String separator = "";
+        for (Cluster module : modules) {
+            out.print(separator + "{\"coupling\":" + number(module.getAVGCoupling()) + ",\"classes\":" + jsonArray(module.getClasses()) + "}");
+            separator = ",";
+        }
+        out.print("]");
+    }
+
+    private static List<String> paths(List<File> files) {
+        List<String> paths = new ArrayList<>(files.size());
+        for (File file : files)
+            paths.add(file.getPath());
+        return paths;
+    }
+
+    // Fragments JSON, aussi utilisés pour les réponses du serveur d'analyse
+    public static String jsonArray(Collection<String> values) {
+        StringBuilder builder = new StringBuilder("[");
+        for (String value : values)
+            builder.append(builder.length() == 1 ? "" : ",").append(json(value));
+        return builder.append("]").toString();
+    }
+
+    public static String json(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') builder.append('\\').append(c);
+            else if (c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+            else builder.append(c);
+        }
+        return builder.append('"').toString();
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Un couplage sans aucun arc (division par zéro) est écrit comme nul
+    public static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "0" : String.valueOf(value);
+    }
+}
@@ -0,0 +1,280 @@
+package org.analysis.export;
+
+import org.analysis.graph.WeightedGraph;
+import org.analysis.render.ForceLayout;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Écrit une vue disposée d'un graphe (ForceLayout) pour un outil externe ou sous forme d'image :
+// GraphML, DOT et GEXF avec les positions des noeuds et le poids des arêtes, SVG ou PNG statique.
+// Dans les images, la taille d'un noeud suit la somme des poids de ses arêtes et l'épaisseur d'une arête son poids ;
+// seuls les noeuds les plus lourds sont étiquetés pour rester lisibles.
+public class GraphWriter {
+
+    public enum Format {
+        GRAPHML, DOT, GEXF, SVG, PNG;
+
+        // Format désigné par l'extension du fichier
+        public static Format fromFileName(String fileName) {
+            String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toUpperCase(Locale.ROOT);
+            if (extension.equals("GV"))
+                return DOT;
+            try {
+                return valueOf(extension);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Format d'image ou de graphe inconnu (graphml, dot, gexf, svg, png) : " + fileName);
+            }
+        }
+    }
+
+    // Dimensions des images et nombre maximal d'étiquettes
+    private static final int IMAGE_WIDTH = 1600;
+    private static final int MARGIN = 40;
+    private static final int LABEL_LIMIT = 200;
+
+    private final ForceLayout layout;
+    private final WeightedGraph graph;
+
+    public GraphWriter(ForceLayout layout) {
+        this.layout = layout;
+        this.graph = layout.getGraph();
+    }
+
+    // Écrit le graphe dans le fichier, au format désigné par son extension
+    public void write(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(Format.fromFileName(file.getName()), out);
+        }
+    }
+
+    public void write(Format format, OutputStream out) throws IOException {
+        if (format == Format.PNG) {
+            writePng(out);
+            return;
+        }
+
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        switch (format) {
+            case GRAPHML:
+                writeGraphMl(writer);
+                break;
+            case DOT:
+                writeDot(writer);
+                break;
+            case GEXF:
+                writeGexf(writer);
+                break;
+            case SVG:
+                writeSvg(writer);
+                break;
+        }
+        writer.flush();
+    }
+
+    private void writeGraphMl(PrintWriter out) {
+        out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.println("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">");
+        out.println("  <key id=\"label\" for=\"node\" attr.name=\"label\" attr.type=\"string\"/>");
+        out.println("  <key id=\"x\" for=\"node\" attr.name=\"x\" attr.type=\"double\"/>");
+        out.println("  <key id=\"y\" for=\"node\" attr.name=\"y\" attr.type=\"double\"/>");
+        out.println("  <key id=\"weight\" for=\"edge\" attr.name=\"weight\" attr.type=\"double\"/>");
+        out.println("  <graph edgedefault=\"undirected\">");
+        for (int node = 0; node < graph.getNodeCount(); node++)
+            out.println("    <node id=\"n" + node + "\"><data key=\"label\">" + xml(graph.getNodeName(node)) + "</data>"
+                    + "<data key=\"x\">" + layout.getX(node) + "</data><data key=\"y\">" + layout.getY(node) + "</data></node>");
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++)
+            out.println("    <edge id=\"e" + edge + "\" source=\"n" + graph.getEdgeSource(edge) + "\" target=\"n" + graph.getEdgeTarget(edge)
+                    + "\"><data key=\"weight\">" + graph.getEdgeWeight(edge) + "</data></edge>");
+        out.println("  </graph>");
+        out.println("</graphml>");
+    }
+
+    // Positions fixées (pos="x,y!"), à reprendre telles quelles avec neato -n
+    private void writeDot(PrintWriter out) {
+        out.println("graph G {");
+        out.println("  node [shape=point];");
+        for (int node = 0; node < graph.getNodeCount(); node++)
+            out.println("  " + dot(graph.getNodeName(node)) + " [pos=\"" + number(layout.getX(node) * 72) + ","
+                    + number(layout.getY(node) * 72) + "!\"];");
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++)
+            out.println("  " + dot(graph.getNodeName(graph.getEdgeSource(edge))) + " -- " + dot(graph.getNodeName(graph.getEdgeTarget(edge)))
+                    + " [weight=" + number(graph.getEdgeWeight(edge)) + "];");
+        out.println("}");
+    }
+
+    private void writeGexf(PrintWriter out) {
+        double[] strength = strengths();
+        out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.println("<gexf xmlns=\"http://www.gexf.net/1.2draft\" xmlns:viz=\"http://www.gexf.net/1.2draft/viz\" version=\"1.2\">");
+        out.println("  <graph defaultedgetype=\"undirected\">");
+        out.println("    <nodes>");
+        for (int node = 0; node < graph.getNodeCount(); node++)
+            out.println("      <node id=\"" + node + "\" label=\"" + xml(graph.getNodeName(node)) + "\"><viz:position x=\""
+                    + layout.getX(node) + "\" y=\"" + layout.getY(node) + "\" z=\"0.0\"/><viz:size value=\"" + strength[node] + "\"/></node>");
+        out.println("    </nodes>");
+        out.println("    <edges>");
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++)
+            out.println("      <edge id=\"" + edge + "\" source=\"" + graph.getEdgeSource(edge) + "\" target=\"" + graph.getEdgeTarget(edge)
+                    + "\" weight=\"" + graph.getEdgeWeight(edge) + "\"/>");
+        out.println("    </edges>");
+        out.println("  </graph>");
+        out.println("</gexf>");
+    }
+
+    private void writeSvg(PrintWriter out) {
+        Scene scene = new Scene();
+        out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.println("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + scene.width + "\" height=\"" + scene.height
+                + "\" viewBox=\"0 0 " + scene.width + " " + scene.height + "\">");
+        out.println("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>");
+        out.println("<g stroke=\"#888\" stroke-opacity=\"0.5\">");
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            int a = graph.getEdgeSource(edge), b = graph.getEdgeTarget(edge);
+            out.println("<line x1=\"" + number(scene.x[a]) + "\" y1=\"" + number(scene.y[a]) + "\" x2=\"" + number(scene.x[b])
+                    + "\" y2=\"" + number(scene.y[b]) + "\" stroke-width=\"" + number(scene.strokeWidth(edge)) + "\"/>");
+        }
+        out.println("</g>");
+        out.println("<g fill=\"#EB2\" stroke=\"#222\" stroke-width=\"0.5\">");
+        for (int node = 0; node < graph.getNodeCount(); node++)
+            out.println("<circle cx=\"" + number(scene.x[node]) + "\" cy=\"" + number(scene.y[node]) + "\" r=\"" + number(scene.radius[node]) + "\"/>");
+        out.println("</g>");
+        out.println("<g font-family=\"sans-serif\" font-size=\"10\" fill=\"#222\">");
+        for (int node = 0; node < graph.getNodeCount(); node++)
+            if (scene.labelled[node])
+                out.println("<text x=\"" + number(scene.x[node] + scene.radius[node] + 2) + "\" y=\"" + number(scene.y[node] + 3) + "\">"
+                        + xml(graph.getNodeName(node)) + "</text>");
+        out.println("</g>");
+        out.println("</svg>");
+    }
+
+    private void writePng(OutputStream out) throws IOException {
+        Scene scene = new Scene();
+        BufferedImage image = new BufferedImage(scene.width, scene.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, scene.width, scene.height);
+
+        graphics.setColor(new Color(0x88, 0x88, 0x88, 0x80));
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            int a = graph.getEdgeSource(edge), b = graph.getEdgeTarget(edge);
+            graphics.setStroke(new BasicStroke((float) scene.strokeWidth(edge)));
+            graphics.draw(new Line2D.Double(scene.x[a], scene.y[a], scene.x[b], scene.y[b]));
+        }
+
+        graphics.setStroke(new BasicStroke(0.5f));
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            double r = scene.radius[node];
+            Ellipse2D circle = new Ellipse2D.Double(scene.x[node] - r, scene.y[node] - r, 2 * r, 2 * r);
+            graphics.setColor(new Color(0xEE, 0xBB, 0x22));
+            graphics.fill(circle);
+            graphics.setColor(new Color(0x22, 0x22, 0x22));
+            graphics.draw(circle);
+        }
+
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 10));
+        for (int node = 0; node < graph.getNodeCount(); node++)
+            if (scene.labelled[node])
+                graphics.drawString(graph.getNodeName(node), (float) (scene.x[node] + scene.radius[node] + 2), (float) (scene.y[node] + 3));
+
+        graphics.dispose();
+        ImageIO.write(image, "png", out);
+    }
+
+    // Somme des poids des arêtes de chaque noeud
+    private double[] strengths() {
+        double[] strength = new double[graph.getNodeCount()];
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            strength[graph.getEdgeSource(edge)] += graph.getEdgeWeight(edge);
+            strength[graph.getEdgeTarget(edge)] += graph.getEdgeWeight(edge);
+        }
+        return strength;
+    }
+
+    // Positions en pixels, rayons des noeuds et noeuds étiquetés, communs au SVG et au PNG
+    private class Scene {
+        final int width, height;
+        final double[] x, y, radius;
+        final boolean[] labelled;
+        final double maxWeight;
+
+        Scene() {
+            int nodeCount = graph.getNodeCount();
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int node = 0; node < nodeCount; node++) {
+                minX = Math.min(minX, layout.getX(node));
+                maxX = Math.max(maxX, layout.getX(node));
+                minY = Math.min(minY, layout.getY(node));
+                maxY = Math.max(maxY, layout.getY(node));
+            }
+            double spanX = nodeCount == 0 ? 1 : Math.max(1e-9, maxX - minX), spanY = nodeCount == 0 ? 1 : Math.max(1e-9, maxY - minY);
+            double scale = (IMAGE_WIDTH - 2 * MARGIN) / Math.max(spanX, spanY);
+            width = IMAGE_WIDTH;
+            height = (int) Math.ceil(spanY * scale) + 2 * MARGIN;
+
+            x = new double[nodeCount];
+            y = new double[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                x[node] = MARGIN + (layout.getX(node) - minX) * scale;
+                y[node] = MARGIN + (layout.getY(node) - minY) * scale;
+            }
+
+            double[] strength = strengths();
+            double maxStrength = 0;
+            for (double s : strength)
+                maxStrength = Math.max(maxStrength, s);
+            radius = new double[nodeCount];
+            for (int node = 0; node < nodeCount; node++)
+                radius[node] = 2 + (maxStrength > 0 ? 8 * Math.sqrt(strength[node] / maxStrength) : 0);
+
+            // Étiquettes des noeuds les plus lourds
+            labelled = new boolean[nodeCount];
+            Integer[] order = new Integer[nodeCount];
+            for (int node = 0; node < nodeCount; node++)
+                order[node] = node;
+            Arrays.sort(order, (a, b) -> Double.compare(strength[b], strength[a]));
+            for (int i = 0; i < Math.min(LABEL_LIMIT, nodeCount); i++)
+                labelled[order[i]] = true;
+
+            double heaviest = 0;
+            for (int edge = 0; edge < graph.getEdgeCount(); edge++)
+                heaviest = Math.max(heaviest, graph.getEdgeWeight(edge));
+            maxWeight = heaviest;
+        }
+
+        double strokeWidth(int edge) {
+            return 0.5 + (maxWeight > 0 ? 3 * graph.getEdgeWeight(edge) / maxWeight : 0);
+        }
+    }
+
+    private static String xml(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<': builder.append("&lt;"); break;
+                case '>': builder.append("&gt;"); break;
+                case '&': builder.append("&amp;"); break;
+                case '"': builder.append("&quot;"); break;
+                default: builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String dot(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -0,0 +1,375 @@
+package org.analysis.graph;
+
+import org.analysis.util.IntArray;
+
+// Graphe d'appel orienté : méthodes internées en identifiants entiers, arcs stockés en colonnes d'entiers
+// et indexés par une table à adressage ouvert d'identifiants d'arcs (la clé appelant, nature, appelé est relue
+// dans les colonnes). Les colonnes et la table des méthodes viennent d'un GraphStorage : sur le tas par défaut,
+// ou hors tas dans des fichiers projetés en mémoire pour les très gros projets.
+// Chaque arc porte la nature de la dépendance ; les cibles des accès aux attributs et des références aux types
+// sont aussi des noeuds du graphe. Deux arcs de natures différentes peuvent relier les mêmes noeuds.
+// Un même arc peut être apporté par plusieurs fichiers : sa multiplicité permet de le retirer fichier par fichier.
+public class CallGraph {
+
+    private static final DependencyKind[] KINDS = DependencyKind.values();
+
+    // La nature d'un arc occupe les bits de poids faible de sa colonne, la multiplicité les suivants
+    private static final int KIND_BITS = 3;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    private final GraphStorage storage;
+    private final SymbolTable methods;
+
+    // Une méthode est présente si elle est déclarée par au moins un fichier ou extrémité d'au moins un arc
+    private final IntArray declarations;
+    private final IntArray degrees;
+    private int presentCount = 0;
+
+    // Arcs distincts ; une suppression déplace le dernier arc à la place de l'arc supprimé
+    private final IntArray sources;
+    private final IntArray targets;
+    private final IntArray kindsAndMultiplicities;
+    private int edgeCount = 0;
+
+    // Identifiant + 1 de l'arc rangé dans chaque case, 0 pour une case vide
+    private IntArray edgeSlots;
+    private int edgeMask;
+
+    // Représentation CSR des successeurs, reconstruite à la demande après modification
+    private IntArray successorOffsets;
+    private IntArray successors;
+    private int successorNodeCount = -1;
+
+    public CallGraph() {
+        this(64, 64);
+    }
+
+    // Graphe dimensionné pour le nombre de méthodes et d'arcs attendus
+    public CallGraph(int expectedNodeCount, int expectedEdgeCount) {
+        this(GraphStorage.HEAP, expectedNodeCount, expectedEdgeCount);
+    }
+
+    public CallGraph(GraphStorage storage, int expectedNodeCount, int expectedEdgeCount) {
+        int nodeCapacity = Math.max(1, expectedNodeCount), edgeCapacity = Math.max(1, expectedEdgeCount);
+        this.storage = storage;
+        methods = storage.newSymbolTable("methods", nodeCapacity);
+        declarations = storage.newIntArray("declarations", nodeCapacity);
+        degrees = storage.newIntArray("degrees", nodeCapacity);
+        sources = storage.newIntArray("sources", edgeCapacity);
+        targets = storage.newIntArray("targets", edgeCapacity);
+        kindsAndMultiplicities = storage.newIntArray("kinds", edgeCapacity);
+
+        int slotCapacity = Integer.highestOneBit(Math.max(4, edgeCapacity * 2) - 1) << 1;
+        edgeSlots = storage.newIntArray("edgeSlots", slotCapacity);
+        edgeMask = slotCapacity - 1;
+    }
+
+    // Déclare la méthode et retourne son identifiant
+    public int addNode(String methodName) {
+        return addNode(methodName, 1);
+    }
+
+    // Déclare la méthode declarationCount fois ; 0 attribue seulement son identifiant
+    public int addNode(String methodName, int declarationCount) {
+        int node = intern(methodName);
+        if (declarationCount > 0 && declarations.get(node) == 0 && degrees.get(node) == 0)
+            presentCount++;
+        declarations.increment(node, declarationCount);
+        return node;
+    }
+
+    // Retire une déclaration de la méthode, qui disparaît si plus rien ne la référence
+    public void removeNode(String methodName) {
+        int node = methods.getId(methodName);
+        if (node < 0 || declarations.get(node) == 0)
+            return;
+
+        if (declarations.increment(node, -1) == 0 && degrees.get(node) == 0)
+            presentCount--;
+    }
+
+    // Ajoute l'appel appelant -> appelé, retourne true s'il n'existait pas encore
+    public boolean addEdge(String callerName, String calleeName) {
+        return addEdge(callerName, calleeName, DependencyKind.CALL);
+    }
+
+    // Ajoute la dépendance de la nature donnée, retourne true si elle n'existait pas encore
+    public boolean addEdge(String callerName, String calleeName, DependencyKind kind) {
+        return addEdge(intern(callerName), intern(calleeName), kind, 1);
+    }
+
+    public boolean addEdge(int caller, int callee) {
+        return addEdge(caller, callee, DependencyKind.CALL, 1);
+    }
+
+    // Ajoute multiplicity occurrences de l'arc entre deux noeuds déjà internés
+    public boolean addEdge(int caller, int callee, DependencyKind kind, int multiplicity) {
+        int slot = findSlot(caller, callee, kind.ordinal());
+        int edge = edgeSlots.get(slot) - 1;
+        if (edge >= 0) {
+            kindsAndMultiplicities.increment(edge, multiplicity << KIND_BITS);
+            return false;
+        }
+
+        edge = edgeCount++;
+        sources.ensureLength(edgeCount);
+        targets.ensureLength(edgeCount);
+        kindsAndMultiplicities.ensureLength(edgeCount);
+        sources.set(edge, caller);
+        targets.set(edge, callee);
+        kindsAndMultiplicities.set(edge, multiplicity << KIND_BITS | kind.ordinal());
+        edgeSlots.set(slot, edge + 1);
+        if (edgeCount > (edgeMask + 1) >>> 1)
+            rehashEdges((edgeMask + 1) << 1);
+
+        reference(caller);
+        reference(callee);
+        successorNodeCount = -1;
+        return true;
+    }
+
+    // Retire une occurrence de l'appel, retourne true si l'arc a disparu du graphe
+    public boolean removeEdge(String callerName, String calleeName) {
+        return removeEdge(callerName, calleeName, DependencyKind.CALL);
+    }
+
+    // Retire une occurrence de la dépendance, retourne true si l'arc a disparu du graphe
+    public boolean removeEdge(String callerName, String calleeName, DependencyKind kind) {
+        int caller = methods.getId(callerName), callee = methods.getId(calleeName);
+        if (caller < 0 || callee < 0)
+            return false;
+
+        int slot = findSlot(caller, callee, kind.ordinal());
+        int edge = edgeSlots.get(slot) - 1;
+        if (edge < 0 || kindsAndMultiplicities.increment(edge, -(1 << KIND_BITS)) >>> KIND_BITS > 0)
+            return false;
+
+        removeSlot(slot);
+        int last = --edgeCount;
+        if (edge != last) {
+            // Le dernier arc prend la place de l'arc supprimé, sa case pointe désormais sur elle
+            int lastSlot = findSlot(sources.get(last), targets.get(last), kindsAndMultiplicities.get(last) & KIND_MASK);
+            sources.set(edge, sources.get(last));
+            targets.set(edge, targets.get(last));
+            kindsAndMultiplicities.set(edge, kindsAndMultiplicities.get(last));
+            edgeSlots.set(lastSlot, edge + 1);
+        }
+
+        dereference(caller);
+        dereference(callee);
+        successorNodeCount = -1;
+        return true;
+    }
+
+    public boolean containsNode(String methodName) {
+        int node = methods.getId(methodName);
+        return node >= 0 && isPresent(node);
+    }
+
+    public boolean containsEdge(String callerName, String calleeName, DependencyKind kind) {
+        int caller = methods.getId(callerName), callee = methods.getId(calleeName);
+        return caller >= 0 && callee >= 0 && edgeSlots.get(findSlot(caller, callee, kind.ordinal())) != 0;
+    }
+
+    // Retourne l'identifiant de la méthode, ou -1 si elle n'a jamais été dans le graphe
+    public int getNodeId(String methodName) {
+        return methods.getId(methodName);
+    }
+
+    public String getNodeName(int node) {
+        return methods.getName(node);
+    }
+
+    // Borne des identifiants attribués ; les identifiants de méthodes retirées ne sont pas réutilisés
+    public int getNodeIdBound() {
+        return methods.size();
+    }
+
+    // Nombre de fichiers déclarant la méthode
+    public int getDeclarationCount(int node) {
+        return declarations.get(node);
+    }
+
+    public boolean isPresent(int node) {
+        return declarations.get(node) > 0 || degrees.get(node) > 0;
+    }
+
+    // Nombre de méthodes présentes
+    public int getNodeCount() {
+        return presentCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public boolean isEmpty() {
+        return presentCount == 0;
+    }
+
+    // Vide le graphe, les identifiants sont réattribués à partir de zéro
+    public void clear() {
+        int nodeCount = methods.size();
+        methods.clear();
+        declarations.clear(nodeCount);
+        degrees.clear(nodeCount);
+        presentCount = 0;
+        edgeCount = 0;
+        edgeSlots.clear(edgeMask + 1);
+        successorNodeCount = -1;
+    }
+
+    // Libère le stockage du graphe, qui n'est plus utilisable ; sans effet notable sur le tas
+    public void release() {
+        methods.release();
+        declarations.release();
+        degrees.release();
+        sources.release();
+        targets.release();
+        kindsAndMultiplicities.release();
+        edgeSlots.release();
+        releaseSuccessors();
+    }
+
+    // Extrémités du i-ème arc
+    public int getEdgeSource(int edge) {
+        return sources.get(edge);
+    }
+
+    public int getEdgeTarget(int edge) {
+        return targets.get(edge);
+    }
+
+    public DependencyKind getEdgeKind(int edge) {
+        return KINDS[kindsAndMultiplicities.get(edge) & KIND_MASK];
+    }
+
+    // Nombre d'occurrences de l'arc apportées par les fichiers
+    public int getEdgeMultiplicity(int edge) {
+        return kindsAndMultiplicities.get(edge) >>> KIND_BITS;
+    }
+
+    // Nombre d'arcs sortants de la méthode
+    public int getOutDegree(int node) {
+        ensureSuccessors();
+        return successorOffsets.get(node + 1) - successorOffsets.get(node);
+    }
+
+    // Méthodes appelées par la méthode
+    public int[] getSuccessors(int node) {
+        ensureSuccessors();
+        int from = successorOffsets.get(node);
+        int[] result = new int[successorOffsets.get(node + 1) - from];
+        for (int i = 0; i < result.length; i++)
+            result[i] = successors.get(from + i);
+        return result;
+    }
+
+    private int intern(String methodName) {
+        int node = methods.intern(methodName);
+        if (node >= declarations.length()) {
+            declarations.ensureLength(node + 1);
+            degrees.ensureLength(node + 1);
+        }
+        return node;
+    }
+
+    private void reference(int node) {
+        if (degrees.increment(node, 1) == 1 && declarations.get(node) == 0)
+            presentCount++;
+    }
+
+    private void dereference(int node) {
+        if (degrees.increment(node, -1) == 0 && declarations.get(node) == 0)
+            presentCount--;
+    }
+
+    // Case de l'arc, ou case vide où l'insérer
+    private int findSlot(int caller, int callee, int kind) {
+        int slot = slot(caller, callee, kind);
+        while (true) {
+            int entry = edgeSlots.get(slot);
+            if (entry == 0)
+                return slot;
+            int edge = entry - 1;
+            if (sources.get(edge) == caller && targets.get(edge) == callee && (kindsAndMultiplicities.get(edge) & KIND_MASK) == kind)
+                return slot;
+            slot = (slot + 1) & edgeMask;
+        }
+    }
+
+    // Vide la case en recollant les arcs suivants pour ne pas casser les chaînes de sondage
+    private void removeSlot(int freed) {
+        int slot = freed;
+        while (true) {
+            slot = (slot + 1) & edgeMask;
+            int entry = edgeSlots.get(slot);
+            if (entry == 0)
+                break;
+
+            int edge = entry - 1;
+            int home = slot(sources.get(edge), targets.get(edge), kindsAndMultiplicities.get(edge) & KIND_MASK);
+            boolean movable = freed <= slot ? (home <= freed || home > slot) : (home <= freed && home > slot);
+            if (movable) {
+                edgeSlots.set(freed, entry);
+                freed = slot;
+            }
+        }
+        edgeSlots.set(freed, 0);
+    }
+
+    private void rehashEdges(int capacity) {
+        IntArray previous = edgeSlots;
+        edgeSlots = storage.newIntArray("edgeSlots", capacity);
+        edgeMask = capacity - 1;
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int slot = slot(sources.get(edge), targets.get(edge), kindsAndMultiplicities.get(edge) & KIND_MASK);
+            while (edgeSlots.get(slot) != 0)
+                slot = (slot + 1) & edgeMask;
+            edgeSlots.set(slot, edge + 1);
+        }
+        previous.release();
+    }
+
+    // La nature est combinée à l'appelant dans les 32 bits de poids fort de la clé, ce qui suffit tant que
+    // les identifiants restent sous 2^31 / nombre de natures
+    private int slot(int caller, int callee, int kind) {
+        long key = (((long) caller * KINDS.length + kind) << 32) | (callee & 0xFFFFFFFFL);
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & edgeMask;
+    }
+
+    private void ensureSuccessors() {
+        int nodeCount = methods.size();
+        if (successorNodeCount == nodeCount)
+            return;
+
+        releaseSuccessors();
+        IntArray offsets = storage.newIntArray("successorOffsets", nodeCount + 1);
+        for (int e = 0; e < edgeCount; e++)
+            offsets.increment(sources.get(e) + 1, 1);
+        for (int n = 0; n < nodeCount; n++)
+            offsets.increment(n + 1, offsets.get(n));
+
+        IntArray next = storage.newIntArray("successorFill", nodeCount);
+        for (int n = 0; n < nodeCount; n++)
+            next.set(n, offsets.get(n));
+        IntArray csr = storage.newIntArray("successors", edgeCount);
+        for (int e = 0; e < edgeCount; e++)
+            csr.set(next.increment(sources.get(e), 1) - 1, targets.get(e));
+        next.release();
+
+        successorOffsets = offsets;
+        successors = csr;
+        successorNodeCount = nodeCount;
+    }
+
+    private void releaseSuccessors() {
+        if (successorOffsets != null) {
+            successorOffsets.release();
+            successors.release();
+            successorOffsets = null;
+            successors = null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.analysis.graph;
+
+import java.util.*;
+
+// Arcs du graphe d'appel apparus et disparus au cours d'une mise à jour. Un arc retiré puis rajouté
+// (ou l'inverse) pendant la même mise à jour n'y figure pas.
+public class CallGraphDiff {
+
+    private final Set<Edge> added = new LinkedHashSet<>();
+    private final Set<Edge> removed = new LinkedHashSet<>();
+
+    public void addEdge(String callerName, String calleeName, DependencyKind kind) {
+        Edge edge = new Edge(callerName, calleeName, kind);
+        if (!removed.remove(edge))
+            added.add(edge);
+    }
+
+    public void removeEdge(String callerName, String calleeName, DependencyKind kind) {
+        Edge edge = new Edge(callerName, calleeName, kind);
+        if (!added.remove(edge))
+            removed.add(edge);
+    }
+
+    public Set<Edge> getAdded() { return added; }
+
+    public Set<Edge> getRemoved() { return removed; }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+
+    // Arcs présents dans le graphe, pour le comparer à son état après une reconstruction complète
+    public static Set<Edge> edgesOf(CallGraph callGraph) {
+        Set<Edge> edges = new HashSet<>(callGraph.getEdgeCount() * 4 / 3 + 1);
+        for (int e = 0; e < callGraph.getEdgeCount(); e++)
+            edges.add(new Edge(callGraph.getNodeName(callGraph.getEdgeSource(e)), callGraph.getNodeName(callGraph.getEdgeTarget(e)), callGraph.getEdgeKind(e)));
+        return edges;
+    }
+
+    // Différence entre les arcs d'avant la mise à jour et ceux du graphe
+    public static CallGraphDiff between(Set<Edge> before, CallGraph after) {
+        CallGraphDiff diff = new CallGraphDiff();
+        Set<Edge> remaining = new HashSet<>(before);
+        for (Edge edge : edgesOf(after))
+            if (!remaining.remove(edge))
+                diff.added.add(edge);
+        diff.removed.addAll(remaining);
+        return diff;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d arc(s) ajouté(s), %d retiré(s)", added.size(), removed.size());
+    }
+
+    public static final class Edge {
+        private final String callerName;
+        private final String calleeName;
+        private final DependencyKind kind;
+
+        public Edge(String callerName, String calleeName, DependencyKind kind) {
+            this.callerName = callerName;
+            this.calleeName = calleeName;
+            this.kind = kind;
+        }
+
+        public String getCallerName() { return callerName; }
+
+        public String getCalleeName() { return calleeName; }
+
+        public DependencyKind getKind() { return kind; }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Edge))
+                return false;
+            Edge edge = (Edge) other;
+            return kind == edge.kind && callerName.equals(edge.callerName) && calleeName.equals(edge.calleeName);
+        }
+
+        @Override
+        public int hashCode() {
+            return (callerName.hashCode() * 31 + calleeName.hashCode()) * 31 + kind.ordinal();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.analysis.graph;
+
+import org.analysis.symbol.Signatures;
+
+import java.util.Arrays;
+
+// Couplage agrégé par niveau : classes, paquetages, sous-systèmes. Chaque niveau est un index de couplage dont
+// les « classes » sont les groupes du niveau ; les matrices des paquetages et des sous-systèmes sont remplies en une
+// seule passe sur les paires de classes couplées. Les appels internes à un groupe forment la paire (groupe, groupe) :
+// le poids total reste celui de l'index des classes et les couplages de tous les niveaux sont comparables.
+// Un sous-système est le paquetage de premier niveau du projet : le préfixe commun à tous les paquetages suivi
+// d'un segment, ou les depth premiers segments du paquetage (-Danalysis.subsystem.depth).
+// Les groupes connaissent leur parent et leurs enfants (en CSR) pour le détail d'un couplage au niveau inférieur.
+public class CouplingHierarchy {
+
+    // Nom du groupe des classes du paquetage par défaut
+    public static final String DEFAULT_PACKAGE = "(default)";
+
+    // Index de couplage, parent de chaque groupe et enfants en CSR, indexés par ordinal du niveau
+    private final CouplingIndex[] indexes = new CouplingIndex[CouplingLevel.values().length];
+    private final int[][] parents = new int[CouplingLevel.values().length][];
+    private final int[][] childOffsets = new int[CouplingLevel.values().length][];
+    private final int[][] children = new int[CouplingLevel.values().length][];
+
+    // Nombre de segments des noms de sous-systèmes
+    private final int subsystemDepth;
+
+    public CouplingHierarchy(CouplingIndex classIndex) {
+        this(classIndex, Integer.getInteger("analysis.subsystem.depth", 0));
+    }
+
+    // Hiérarchie de l'index des classes ; une profondeur nulle choisit le premier niveau sous le préfixe commun
+    public CouplingHierarchy(CouplingIndex classIndex, int subsystemDepth) {
+        if (subsystemDepth < 0)
+            throw new IllegalArgumentException("La profondeur des sous-systèmes doit être positive : " + subsystemDepth);
+
+        CouplingIndex packageIndex = new CouplingIndex(classIndex.getPairCount(), classIndex.getWeights());
+        CouplingIndex subsystemIndex = new CouplingIndex(classIndex.getPairCount(), classIndex.getWeights());
+
+        int[] packageOfClass = new int[classIndex.getClassCount()];
+        for (int classId = 0; classId < packageOfClass.length; classId++)
+            packageOfClass[classId] = packageIndex.addClass(groupOf(classIndex.getClassName(classId), CouplingLevel.PACKAGE));
+        this.subsystemDepth = subsystemDepth > 0 ? subsystemDepth : commonSegmentCount(packageIndex) + 1;
+
+        int[] subsystemOfPackage = new int[packageIndex.getClassCount()];
+        for (int packageId = 0; packageId < subsystemOfPackage.length; packageId++)
+            subsystemOfPackage[packageId] = subsystemIndex.addClass(subsystemGroupOf(packageIndex.getClassName(packageId)));
+
+        // Une passe sur les paires de classes remplit les deux niveaux
+        classIndex.forEachPair((classA, classB, count) -> {
+            int packageA = packageOfClass[classA], packageB = packageOfClass[classB];
+            packageIndex.addCount(packageA, packageB, count);
+            subsystemIndex.addCount(subsystemOfPackage[packageA], subsystemOfPackage[packageB], count);
+        });
+
+        setLevel(CouplingLevel.CLASS, classIndex, packageOfClass, packageIndex.getClassCount());
+        setLevel(CouplingLevel.PACKAGE, packageIndex, subsystemOfPackage, subsystemIndex.getClassCount());
+        indexes[CouplingLevel.SUBSYSTEM.ordinal()] = subsystemIndex;
+    }
+
+    // Index de couplage entre les groupes du niveau
+    public CouplingIndex getIndex(CouplingLevel level) {
+        return indexes[level.ordinal()];
+    }
+
+    public int getGroupCount(CouplingLevel level) {
+        return getIndex(level).getClassCount();
+    }
+
+    // Identifiant du groupe, ou -1 s'il est inconnu
+    public int getGroupId(CouplingLevel level, String groupName) {
+        return getIndex(level).getClassId(groupName);
+    }
+
+    public String getGroupName(CouplingLevel level, int groupId) {
+        return getIndex(level).getClassName(groupId);
+    }
+
+    // Nom du groupe du niveau qui contient la classe, qu'elle soit couplée ou non
+    public String groupOf(String className, CouplingLevel level) {
+        switch (level) {
+            case CLASS:
+                return className;
+            case PACKAGE:
+                return packageGroupOf(Signatures.packageNameOf(className));
+            default:
+                return subsystemGroupOf(packageGroupOf(Signatures.packageNameOf(className)));
+        }
+    }
+
+    // Groupe du niveau supérieur qui contient le groupe
+    public int getParent(CouplingLevel level, int groupId) {
+        if (level.parent() == null)
+            throw new IllegalArgumentException("Le niveau " + level.getLabel() + " n'est contenu dans aucun autre");
+        return parents[level.ordinal()][groupId];
+    }
+
+    // Groupes du niveau inférieur qui composent le groupe, par identifiant croissant
+    public int[] getChildren(CouplingLevel level, int groupId) {
+        if (level.child() == null)
+            throw new IllegalArgumentException("Le niveau " + level.getLabel() + " n'a pas de niveau inférieur");
+        int[] offsets = childOffsets[level.ordinal()];
+        return Arrays.copyOfRange(children[level.ordinal()], offsets[groupId], offsets[groupId + 1]);
+    }
+
+    // Poids des arcs entre deux groupes, ou internes au groupe s'il est donné deux fois
+    public int getCount(CouplingLevel level, int groupA, int groupB) {
+        return getIndex(level).getCount(groupA, groupB);
+    }
+
+    // Part du poids des arcs reliant deux groupes du niveau, ou internes au groupe s'il est donné deux fois
+    public double getCoupling(CouplingLevel level, String groupA, String groupB) {
+        CouplingIndex index = getIndex(level);
+        return index.getCount(groupA, groupB) / (double) index.getTotalEdges();
+    }
+
+    // Détail du couplage entre deux groupes au niveau inférieur : parcourt les paires de sous-groupes couplés
+    // (childA de groupA, childB de groupB ; childA <= childB si les deux groupes sont le même), dont la somme
+    // des poids est celle des deux groupes. Ne visite que les voisins des sous-groupes de groupA.
+    public void forEachChildPair(CouplingLevel level, int groupA, int groupB, CouplingIndex.PairVisitor visitor) {
+        CouplingLevel childLevel = level.child();
+        if (childLevel == null)
+            throw new IllegalArgumentException("Le niveau " + level.getLabel() + " n'a pas de niveau inférieur");
+
+        CouplingIndex childIndex = getIndex(childLevel);
+        int[] childParents = parents[childLevel.ordinal()];
+        int[] offsets = childOffsets[level.ordinal()], members = children[level.ordinal()];
+        for (int p = offsets[groupA]; p < offsets[groupA + 1]; p++) {
+            int childA = members[p];
+            if (groupA == groupB) {
+                int internal = childIndex.getCount(childA, childA);
+                if (internal > 0)
+                    visitor.visit(childA, childA, internal);
+            }
+            childIndex.forEachNeighbour(childA, (childB, count) -> {
+                if (childParents[childB] == groupB && (groupA != groupB || childA < childB))
+                    visitor.visit(childA, childB, count);
+            });
+        }
+    }
+
+    // Enregistre l'index du niveau et le parent de chaque groupe, puis range les enfants de chaque groupe
+    // du niveau supérieur par tri par comptage
+    private void setLevel(CouplingLevel level, CouplingIndex index, int[] parentOfGroup, int parentCount) {
+        indexes[level.ordinal()] = index;
+        parents[level.ordinal()] = parentOfGroup;
+
+        int[] offsets = new int[parentCount + 1];
+        for (int parent : parentOfGroup)
+            offsets[parent + 1]++;
+        for (int parent = 0; parent < parentCount; parent++)
+            offsets[parent + 1] += offsets[parent];
+
+        int[] members = new int[parentOfGroup.length];
+        int[] fill = Arrays.copyOf(offsets, parentCount);
+        for (int group = 0; group < parentOfGroup.length; group++)
+            members[fill[parentOfGroup[group]]++] = group;
+
+        childOffsets[level.parent().ordinal()] = offsets;
+        children[level.parent().ordinal()] = members;
+    }
+
+    // Paquetage nommé, ou groupe du paquetage par défaut
+    private static String packageGroupOf(String packageName) {
+        return packageName.isEmpty() ? DEFAULT_PACKAGE : packageName;
+    }
+
+    // Les subsystemDepth premiers segments du paquetage, ou le paquetage entier s'il en a moins
+    private String subsystemGroupOf(String packageName) {
+        if (packageName.equals(DEFAULT_PACKAGE))
+            return packageName;
+
+        int end = -1;
+        for (int segment = 0; segment < subsystemDepth; segment++) {
+            end = packageName.indexOf('.', end + 1);
+            if (end < 0)
+                return packageName;
+        }
+        return packageName.substring(0, end);
+    }
+
+    // Nombre de segments communs à tous les paquetages nommés de l'index des paquetages
+    private static int commonSegmentCount(CouplingIndex packageIndex) {
+        String[] common = null;
+        int count = 0;
+        for (int packageId = 0; packageId < packageIndex.getClassCount(); packageId++) {
+            String packageName = packageIndex.getClassName(packageId);
+            if (packageName.equals(DEFAULT_PACKAGE)) continue;
+
+            String[] segments = packageName.split("\\.");
+            if (common == null) {
+                common = segments;
+                count = segments.length;
+                continue;
+            }
+            int shared = 0;
+            while (shared < count && shared < segments.length && segments[shared].equals(common[shared]))
+                shared++;
+            count = shared;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,219 @@
+package org.analysis.graph;
+
+import org.analysis.symbol.Signatures;
+import org.analysis.util.LongIntHashMap;
+
+import java.util.Arrays;
+
+// Nombre d'appels entre chaque paire de classes, calculé en une seule passe sur les arcs du graphe d'appel
+// puis tenu à jour arc par arc lors des analyses incrémentales.
+// La classe d'une méthode est le type déclarant de son identifiant (Signatures.classNameOf).
+// Chaque arc compte pour le poids de sa nature (DependencyKind) ; un poids nul ignore la nature.
+// Seules les paires couplées sont stockées, dans une table indexée par la paire (classe la plus petite,
+// classe la plus grande) ; les voisins de chaque classe sont rangés en CSR, reconstruits à la demande.
+public class CouplingIndex {
+
+    private final SymbolTable classes = new HeapSymbolTable();
+
+    // Poids de chaque nature de dépendance, indexés par ordinal
+    private final int[] weights;
+
+    // Appels entre deux classes (dans un sens ou dans l'autre), paires non nulles seulement
+    private final LongIntHashMap counts;
+    private int totalEdges;
+
+    // Paires triées et voisins de chaque classe par identifiant croissant, null après une modification
+    private volatile long[] sortedPairs;
+    private int[] neighbourOffsets;
+    private int[] neighbourIds;
+    private int[] neighbourCounts;
+
+    public CouplingIndex(CallGraph callGraph, int[] weights) {
+        this.weights = weights.clone();
+        this.counts = new LongIntHashMap(callGraph.getEdgeCount());
+
+        // La classe d'une cible dépend de la nature des arcs qui la visent ; les autres noeuds sont des méthodes
+        DependencyKind[] targetKinds = new DependencyKind[callGraph.getNodeIdBound()];
+        for (int e = 0; e < callGraph.getEdgeCount(); e++)
+            targetKinds[callGraph.getEdgeTarget(e)] = callGraph.getEdgeKind(e);
+
+        int[] classOfNode = new int[targetKinds.length];
+        for (int n = 0; n < classOfNode.length; n++) {
+            String name = callGraph.getNodeName(n);
+            classOfNode[n] = classes.intern(targetKinds[n] == null ? Signatures.classNameOf(name) : targetKinds[n].classNameOf(name));
+        }
+
+        for (int e = 0; e < callGraph.getEdgeCount(); e++)
+            update(classOfNode[callGraph.getEdgeSource(e)], classOfNode[callGraph.getEdgeTarget(e)], weightOf(callGraph.getEdgeKind(e)));
+    }
+
+    // Index vide, rempli classe par classe (restauration d'un instantané)
+    public CouplingIndex(int expectedPairCount, int[] weights) {
+        this.weights = weights.clone();
+        this.counts = new LongIntHashMap(expectedPairCount);
+    }
+
+    // Déclare une classe et retourne son identifiant
+    public int addClass(String className) {
+        return classes.intern(className);
+    }
+
+    // Ajoute count appels entre deux classes déjà déclarées
+    public void addCount(int classA, int classB, int count) {
+        update(classA, classB, count);
+    }
+
+    // Prend en compte un arc apparu dans le graphe d'appel
+    public void addEdge(String callerName, String calleeName, DependencyKind kind) {
+        int callerClass = classes.intern(Signatures.classNameOf(callerName));
+        int calleeClass = classes.intern(kind.classNameOf(calleeName));
+        update(callerClass, calleeClass, weightOf(kind));
+    }
+
+    // Prend en compte un arc disparu du graphe d'appel
+    public void removeEdge(String callerName, String calleeName, DependencyKind kind) {
+        int callerClass = classes.getId(Signatures.classNameOf(callerName));
+        int calleeClass = classes.getId(kind.classNameOf(calleeName));
+        if (callerClass >= 0 && calleeClass >= 0)
+            update(callerClass, calleeClass, -weightOf(kind));
+    }
+
+    public int weightOf(DependencyKind kind) {
+        return weights[kind.ordinal()];
+    }
+
+    // Poids des natures de dépendance, indexés par ordinal
+    public int[] getWeights() {
+        return weights.clone();
+    }
+
+    // Identifiant de la classe, ou -1 si aucune de ses méthodes n'est apparue dans le graphe d'appel
+    public int getClassId(String className) {
+        return classes.getId(className);
+    }
+
+    public String getClassName(int classId) {
+        return classes.getName(classId);
+    }
+
+    public int getClassCount() {
+        return classes.size();
+    }
+
+    // Somme des poids des arcs
+    public int getTotalEdges() {
+        return totalEdges;
+    }
+
+    // Nombre de paires de classes couplées, une classe pouvant être couplée à elle-même
+    public int getPairCount() {
+        return counts.size();
+    }
+
+    // Poids des arcs entre les deux classes, dans un sens ou dans l'autre
+    public int getCount(int classA, int classB) {
+        return counts.get(pairKey(classA, classB), 0);
+    }
+
+    public int getCount(String classNameA, String classNameB) {
+        int classA = getClassId(classNameA), classB = getClassId(classNameB);
+        return classA < 0 || classB < 0 ? 0 : getCount(classA, classB);
+    }
+
+    // Part du poids des arcs du graphe d'appel reliant les deux classes
+    public double getCoupling(String classNameA, String classNameB) {
+        return getCount(classNameA, classNameB) / (float) totalEdges;
+    }
+
+    // Parcourt les paires couplées (classA <= classB) par classA puis classB croissants
+    public void forEachPair(PairVisitor visitor) {
+        ensureNeighbours();
+        for (long pair : sortedPairs)
+            visitor.visit((int) (pair >>> 32), (int) pair, counts.get(pair, 0));
+    }
+
+    // Nombre de classes couplées à la classe, elle-même exclue
+    public int getNeighbourCount(int classId) {
+        ensureNeighbours();
+        return neighbourOffsets[classId + 1] - neighbourOffsets[classId];
+    }
+
+    // Parcourt les classes couplées à la classe (elle-même exclue) par identifiant croissant
+    public void forEachNeighbour(int classId, NeighbourVisitor visitor) {
+        ensureNeighbours();
+        for (int i = neighbourOffsets[classId]; i < neighbourOffsets[classId + 1]; i++)
+            visitor.visit(neighbourIds[i], neighbourCounts[i]);
+    }
+
+    public interface PairVisitor {
+        void visit(int classA, int classB, int count);
+    }
+
+    public interface NeighbourVisitor {
+        void visit(int neighbourId, int count);
+    }
+
+    private void update(int callerClass, int calleeClass, int delta) {
+        if (delta == 0)
+            return;
+
+        long key = pairKey(callerClass, calleeClass);
+        if (counts.addTo(key, delta) == 0)
+            counts.remove(key);
+        totalEdges += delta;
+        sortedPairs = null;
+    }
+
+    // Reconstruit les paires triées puis les voisins en CSR : parcourues par paire croissante, les lignes
+    // se remplissent d'elles-mêmes par identifiant croissant. Les lectures concurrentes (clustering parallèle)
+    // sont sûres tant que l'index n'est pas modifié, sortedPairs étant publié en dernier.
+    private void ensureNeighbours() {
+        if (sortedPairs != null && neighbourOffsets.length == classes.size() + 1)
+            return;
+
+        synchronized (this) {
+            if (sortedPairs == null || neighbourOffsets.length != classes.size() + 1)
+                buildNeighbours();
+        }
+    }
+
+    private void buildNeighbours() {
+        long[] pairs = new long[counts.size()];
+        int[] next = {0};
+        counts.forEach((key, count) -> pairs[next[0]++] = key);
+        Arrays.sort(pairs);
+
+        int classCount = classes.size();
+        int[] offsets = new int[classCount + 1];
+        for (long pair : pairs) {
+            int classA = (int) (pair >>> 32), classB = (int) pair;
+            if (classA == classB) continue;
+            offsets[classA + 1]++;
+            offsets[classB + 1]++;
+        }
+        for (int c = 0; c < classCount; c++)
+            offsets[c + 1] += offsets[c];
+
+        int[] fill = Arrays.copyOf(offsets, classCount);
+        int[] ids = new int[offsets[classCount]];
+        int[] values = new int[offsets[classCount]];
+        for (long pair : pairs) {
+            int classA = (int) (pair >>> 32), classB = (int) pair;
+            if (classA == classB) continue;
+            int count = counts.get(pair, 0);
+            ids[fill[classA]] = classB;
+            values[fill[classA]++] = count;
+            ids[fill[classB]] = classA;
+            values[fill[classB]++] = count;
+        }
+
+        neighbourOffsets = offsets;
+        neighbourIds = ids;
+        neighbourCounts = values;
+        sortedPairs = pairs;
+    }
+
+    private static long pairKey(int classA, int classB) {
+        return classA <= classB ? ((long) classA << 32) | classB : ((long) classB << 32) | classA;
+    }
+}
@@ -0,0 +1,33 @@
+package org.analysis.graph;
+
+import java.util.Locale;
+
+// Niveau d'agrégation du couplage, du plus fin au plus large : classes, paquetages, sous-systèmes
+// (paquetages de premier niveau du projet)
+public enum CouplingLevel {
+    CLASS,
+    PACKAGE,
+    SUBSYSTEM;
+
+    // Niveau qui regroupe les groupes de celui-ci, null pour le plus large
+    public CouplingLevel parent() {
+        return this == SUBSYSTEM ? null : values()[ordinal() + 1];
+    }
+
+    // Niveau des groupes qui composent ceux-ci, null pour les classes
+    public CouplingLevel child() {
+        return this == CLASS ? null : values()[ordinal() - 1];
+    }
+
+    public String getLabel() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static CouplingLevel fromLabel(String label) {
+        try {
+            return valueOf(label.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Niveau d'agrégation inconnu : " + label);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.analysis.graph;
+
+import org.analysis.symbol.Signatures;
+
+import java.util.Locale;
+
+// Nature d'une dépendance d'une méthode vers un élément du projet, et son poids par défaut dans le couplage.
+// Les appels visent une méthode ou un constructeur, l'accès à un attribut vise "paquetage.Classe.attribut"
+// et la référence à un type vise le type lui-même.
+public enum DependencyKind {
+    CALL(1),
+    SUPER_CALL(1),
+    CONSTRUCTOR(1),
+    FIELD_ACCESS(0),
+    TYPE_REFERENCE(0);
+
+    private final int defaultWeight;
+
+    DependencyKind(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    // Vrai pour les appels de méthodes et de constructeurs, qui forment le graphe d'appel proprement dit
+    public boolean isCall() {
+        return this == CALL || this == SUPER_CALL || this == CONSTRUCTOR;
+    }
+
+    // Type déclarant la cible d'une dépendance de cette nature
+    public String classNameOf(String target) {
+        return this == TYPE_REFERENCE ? target : Signatures.classNameOf(target);
+    }
+
+    // Nom court utilisé dans les exports et les options ("call", "field_access", ...)
+    public String getLabel() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static DependencyKind fromLabel(String label) {
+        try {
+            return valueOf(label.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nature de dépendance inconnue : " + label);
+        }
+    }
+
+    // Poids indexés par ordinal : valeurs par défaut, remplacées par -Danalysis.weight.<nature> (par exemple
+    // -Danalysis.weight.field_access=1)
+    public static int[] weightsFromSystemProperties() {
+        int[] weights = new int[values().length];
+        for (DependencyKind kind : values())
+            weights[kind.ordinal()] = Integer.getInteger("analysis.weight." + kind.getLabel(), kind.defaultWeight);
+        return weights;
+    }
+
+    // Poids indexés par ordinal à partir de "nature=poids,..." ; les natures absentes gardent leur poids par défaut
+    public static int[] parseWeights(String specification) {
+        int[] weights = new int[values().length];
+        for (DependencyKind kind : values())
+            weights[kind.ordinal()] = kind.defaultWeight;
+
+        for (String entry : specification.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Poids attendu sous la forme nature=poids : " + entry);
+
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0)
+                throw new IllegalArgumentException("Le poids doit être positif ou nul : " + entry);
+            weights[fromLabel(parts[0]).ordinal()] = weight;
+        }
+        return weights;
+    }
+}
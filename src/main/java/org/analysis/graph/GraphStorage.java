@@ -0,0 +1,26 @@
+package org.analysis.graph;
+
+import org.analysis.util.HeapIntArray;
+import org.analysis.util.IntArray;
+
+// Stockage des tableaux et de la table des méthodes du graphe d'appel : sur le tas par défaut (HEAP),
+// ou hors tas dans des fichiers projetés en mémoire (MappedGraphStorage) pour les très gros projets.
+// Les noms servent à nommer les fichiers du stockage projeté.
+public abstract class GraphStorage {
+
+    public static final GraphStorage HEAP = new GraphStorage() {
+        @Override
+        public IntArray newIntArray(String name, int length) {
+            return new HeapIntArray(length);
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(String name, int expectedSize) {
+            return new HeapSymbolTable(expectedSize);
+        }
+    };
+
+    public abstract IntArray newIntArray(String name, int length);
+
+    public abstract SymbolTable newSymbolTable(String name, int expectedSize);
+}
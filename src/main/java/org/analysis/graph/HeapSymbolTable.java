@@ -0,0 +1,56 @@
+package org.analysis.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Table des symboles sur le tas, indexée par une HashMap
+public class HeapSymbolTable implements SymbolTable {
+
+    private final Map<String, Integer> idByName;
+    private final List<String> names;
+
+    public HeapSymbolTable() {
+        this(16);
+    }
+
+    public HeapSymbolTable(int expectedSize) {
+        idByName = new HashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+        names = new ArrayList<>(expectedSize);
+    }
+
+    @Override
+    public int intern(String name) {
+        Integer id = idByName.get(name);
+        if (id != null)
+            return id;
+
+        id = names.size();
+        idByName.put(name, id);
+        names.add(name);
+        return id;
+    }
+
+    @Override
+    public int getId(String name) {
+        Integer id = idByName.get(name);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    @Override
+    public int size() {
+        return names.size();
+    }
+
+    @Override
+    public void clear() {
+        idByName.clear();
+        names.clear();
+    }
+}
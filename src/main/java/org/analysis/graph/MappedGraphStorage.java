@@ -0,0 +1,101 @@
+package org.analysis.graph;
+
+import org.analysis.util.IntArray;
+import org.analysis.util.MappedIntArray;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stockage hors tas : chaque tableau est un fichier projeté en mémoire. Les fichiers sont des tampons de travail,
+// recréés à chaque analyse, dans un sous-dossier propre à chaque stockage dont un fichier reste verrouillé tant que
+// le processus vit : plusieurs processus peuvent partager le dossier parent. Les sous-dossiers laissés par une
+// exécution terminée, dont le verrou est libre, sont supprimés à l'ouverture.
+public class MappedGraphStorage extends GraphStorage {
+
+    static final String INTS_SUFFIX = ".ints";
+    static final String NAMES_SUFFIX = ".names";
+
+    private static final String DIRECTORY_PREFIX = "graph-";
+    private static final String LOCK_FILE = "lock";
+
+    private final File directory;
+
+    // Verrou du sous-dossier, gardé jusqu'à la fin du processus : les tableaux projetés y restent utilisables
+    private final FileLock lock;
+
+    // Numéro ajouté aux noms de fichiers, un tableau remplacé (agrandissement d'une table) coexistant avec le nouveau
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public MappedGraphStorage(File parent) {
+        if (!parent.isDirectory() && !parent.mkdirs())
+            throw new RuntimeException("Impossible de créer le dossier " + parent);
+        sweep(parent);
+
+        try {
+            directory = Files.createTempDirectory(parent.toPath(), DIRECTORY_PREFIX).toFile();
+            @SuppressWarnings("resource")
+            FileChannel channel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+            lock = channel.lock();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de préparer le stockage hors tas dans " + parent, e);
+        }
+    }
+
+    // Supprime les sous-dossiers dont aucun processus ne tient le verrou
+    private static void sweep(File parent) {
+        File[] directories = parent.listFiles(file -> file.isDirectory() && file.getName().startsWith(DIRECTORY_PREFIX));
+        if (directories == null)
+            return;
+
+        for (File stale : directories) {
+            File lockFile = new File(stale, LOCK_FILE);
+            try (RandomAccessFile file = new RandomAccessFile(lockFile, "rw");
+                 FileLock held = file.getChannel().tryLock()) {
+                if (held == null)
+                    continue;
+                File[] files = stale.listFiles(f -> !f.getName().equals(LOCK_FILE));
+                if (files != null)
+                    for (File f : files)
+                        delete(f);
+            } catch (OverlappingFileLockException e) {
+                // Sous-dossier d'un autre stockage de ce processus
+                continue;
+            } catch (IOException e) {
+                System.err.println("Impossible de vérifier le verrou de " + stale + " : " + e);
+                continue;
+            }
+            delete(lockFile);
+            delete(stale);
+        }
+    }
+
+    private static void delete(File file) {
+        if (!file.delete())
+            System.err.println("Impossible de supprimer " + file);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public IntArray newIntArray(String name, int length) {
+        return new MappedIntArray(file(name, INTS_SUFFIX), length);
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(String name, int expectedSize) {
+        return new MappedSymbolTable(this, name, expectedSize);
+    }
+
+    File file(String name, String suffix) {
+        return new File(directory, name + "-" + sequence.getAndIncrement() + suffix);
+    }
+}
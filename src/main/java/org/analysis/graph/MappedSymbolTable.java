@@ -0,0 +1,202 @@
+package org.analysis.graph;
+
+import org.analysis.util.IntArray;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Table des symboles hors tas : les noms sont écrits en UTF-8 (longueur puis octets) dans un fichier projeté
+// par segments, et indexés par une table à adressage ouvert d'identifiants, elle-même dans le stockage.
+// Un nom n'est jamais à cheval sur deux segments ; chaque enregistrement commence sur un multiple de 8 octets,
+// ce qui permet d'adresser 16 Go de noms avec des positions sur 32 bits. getName décode le nom à chaque appel.
+public class MappedSymbolTable implements SymbolTable {
+
+    // 16 Mo par segment
+    private static final int SEGMENT_SHIFT = 24;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    private final MappedGraphStorage storage;
+    private final String name;
+
+    private final File file;
+    private final FileChannel channel;
+    private ByteBuffer[] segments = new ByteBuffer[0];
+    private long end = 0;
+
+    // Position (en unités de 8 octets) et empreinte du nom de chaque identifiant
+    private final IntArray positions;
+    private final IntArray hashes;
+
+    // Identifiant + 1 de chaque case, 0 pour une case vide
+    private IntArray slots;
+    private int mask;
+    private int size = 0;
+
+    MappedSymbolTable(MappedGraphStorage storage, String name, int expectedSize) {
+        this.storage = storage;
+        this.name = name;
+        this.file = storage.file(name, MappedGraphStorage.NAMES_SUFFIX);
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible d'ouvrir " + file, e);
+        }
+
+        positions = storage.newIntArray(name + ".positions", expectedSize);
+        hashes = storage.newIntArray(name + ".hashes", expectedSize);
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        slots = storage.newIntArray(name + ".slots", capacity);
+        mask = capacity - 1;
+    }
+
+    @Override
+    public int intern(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = name.hashCode();
+        int slot = find(bytes, hash);
+        if (slots.get(slot) != 0)
+            return slots.get(slot) - 1;
+
+        int id = size++;
+        positions.ensureLength(size);
+        hashes.ensureLength(size);
+        positions.set(id, append(bytes));
+        hashes.set(id, hash);
+        slots.set(slot, id + 1);
+
+        if (size > (mask + 1) >>> 1)
+            rehash((mask + 1) << 1);
+        return id;
+    }
+
+    @Override
+    public int getId(String name) {
+        return slots.get(find(name.getBytes(StandardCharsets.UTF_8), name.hashCode())) - 1;
+    }
+
+    @Override
+    public String getName(int id) {
+        if (id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("Identifiant inconnu : " + id);
+
+        long position = (positions.get(id) & 0xFFFFFFFFL) << 3;
+        ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+        int offset = (int) (position & (SEGMENT_SIZE - 1));
+        byte[] bytes = new byte[segment.getInt(offset)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = segment.get(offset + 4 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        slots.clear(mask + 1);
+        size = 0;
+        end = 0;
+    }
+
+    // Case du nom, ou case vide où l'insérer
+    private int find(byte[] bytes, int hash) {
+        int slot = slot(hash);
+        while (true) {
+            int entry = slots.get(slot);
+            if (entry == 0 || (hashes.get(entry - 1) == hash && nameEquals(entry - 1, bytes)))
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean nameEquals(int id, byte[] bytes) {
+        long position = (positions.get(id) & 0xFFFFFFFFL) << 3;
+        ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+        int offset = (int) (position & (SEGMENT_SIZE - 1));
+        if (segment.getInt(offset) != bytes.length)
+            return false;
+        for (int i = 0; i < bytes.length; i++)
+            if (segment.get(offset + 4 + i) != bytes[i])
+                return false;
+        return true;
+    }
+
+    // Écrit le nom en fin de fichier et retourne sa position en unités de 8 octets
+    private int append(byte[] bytes) {
+        int recordSize = 4 + bytes.length;
+        if (recordSize > SEGMENT_SIZE)
+            throw new IllegalArgumentException("Nom trop long pour la table des symboles : " + bytes.length + " octets");
+        if ((end & (SEGMENT_SIZE - 1)) + recordSize > SEGMENT_SIZE)
+            end = ((end >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT;
+        if ((end >>> 3) > 0xFFFFFFFFL)
+            throw new IllegalStateException("Table des symboles pleine : " + file);
+
+        int segmentIndex = (int) (end >>> SEGMENT_SHIFT);
+        ensureSegment(segmentIndex);
+        ByteBuffer segment = segments[segmentIndex];
+        int offset = (int) (end & (SEGMENT_SIZE - 1));
+        segment.putInt(offset, bytes.length);
+        for (int i = 0; i < bytes.length; i++)
+            segment.put(offset + 4 + i, bytes[i]);
+
+        int position = (int) (end >>> 3);
+        end = (end + recordSize + 7) & ~7L;
+        return position;
+    }
+
+    private void ensureSegment(int segmentIndex) {
+        if (segmentIndex < segments.length)
+            return;
+
+        int previousCount = segments.length;
+        segments = Arrays.copyOf(segments, segmentIndex + 1);
+        try {
+            for (int s = previousCount; s <= segmentIndex; s++)
+                segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, (long) s << SEGMENT_SHIFT, SEGMENT_SIZE);
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible de projeter " + file, e);
+        }
+    }
+
+    private void rehash(int capacity) {
+        IntArray previous = slots;
+        slots = storage.newIntArray(name + ".slots", capacity);
+        mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = slot(hashes.get(id));
+            while (slots.get(slot) != 0)
+                slot = (slot + 1) & mask;
+            slots.set(slot, id + 1);
+        }
+        previous.release();
+    }
+
+    private int slot(int hash) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // Ferme et supprime les fichiers de la table
+    @Override
+    public void release() {
+        positions.release();
+        hashes.release();
+        slots.release();
+        segments = new ByteBuffer[0];
+        try {
+            channel.close();
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            System.err.println("Impossible de supprimer " + file + " : " + e.getMessage());
+        }
+    }
+}
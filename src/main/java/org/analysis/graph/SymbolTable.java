@@ -0,0 +1,22 @@
+package org.analysis.graph;
+
+// Associe chaque nom à un identifiant entier stable, attribué dans l'ordre d'insertion
+public interface SymbolTable {
+
+    // Retourne l'identifiant du nom, en l'attribuant s'il est nouveau
+    int intern(String name);
+
+    // Retourne l'identifiant du nom, ou -1 s'il est inconnu
+    int getId(String name);
+
+    String getName(int id);
+
+    int size();
+
+    // Oublie tous les noms, les identifiants sont réattribués à partir de zéro
+    void clear();
+
+    // Libère le stockage de la table, qui n'est plus utilisable
+    default void release() {
+    }
+}
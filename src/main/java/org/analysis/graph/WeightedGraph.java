@@ -0,0 +1,93 @@
+package org.analysis.graph;
+
+import org.analysis.util.LongIntHashMap;
+
+import java.util.Arrays;
+
+// Graphe non orienté pondéré entre classes (graphe de couplage), sans doublon A-B / B-A
+public class WeightedGraph {
+
+    private final SymbolTable nodes = new HeapSymbolTable();
+
+    private int[] sources = new int[64];
+    private int[] targets = new int[64];
+    private double[] weights = new double[64];
+    private int edgeCount = 0;
+    // Indice de l'arête de chaque paire de noeuds
+    private final LongIntHashMap edgeIndex = new LongIntHashMap();
+
+    public int addNode(String name) {
+        return nodes.intern(name);
+    }
+
+    // Ajoute l'arête si aucune arête n'existe déjà entre les deux noeuds, dans un sens ou dans l'autre
+    public boolean addEdge(String nameA, String nameB, double weight) {
+        int a = addNode(nameA), b = addNode(nameB);
+        if (edgeIndex.containsKey(edgeKey(a, b)))
+            return false;
+
+        appendEdge(a, b, weight);
+        return true;
+    }
+
+    // Ajoute le poids à l'arête entre les deux noeuds, créée si besoin (agrégation de plusieurs arêtes)
+    public void addWeight(String nameA, String nameB, double weight) {
+        int a = addNode(nameA), b = addNode(nameB);
+        int edge = edgeIndex.get(edgeKey(a, b), -1);
+        if (edge < 0)
+            appendEdge(a, b, weight);
+        else
+            weights[edge] += weight;
+    }
+
+    private void appendEdge(int a, int b, double weight) {
+        if (edgeCount == sources.length) {
+            sources = Arrays.copyOf(sources, edgeCount << 1);
+            targets = Arrays.copyOf(targets, edgeCount << 1);
+            weights = Arrays.copyOf(weights, edgeCount << 1);
+        }
+        sources[edgeCount] = a;
+        targets[edgeCount] = b;
+        weights[edgeCount] = weight;
+        edgeIndex.put(edgeKey(a, b), edgeCount);
+        edgeCount++;
+    }
+
+    public boolean containsEdge(String nameA, String nameB) {
+        int a = nodes.getId(nameA), b = nodes.getId(nameB);
+        return a >= 0 && b >= 0 && edgeIndex.containsKey(edgeKey(a, b));
+    }
+
+    // Identifiant du noeud, ou -1 s'il est absent
+    public int getNodeId(String name) {
+        return nodes.getId(name);
+    }
+
+    public String getNodeName(int node) {
+        return nodes.getName(node);
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getEdgeSource(int edge) {
+        return sources[edge];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    public double getEdgeWeight(int edge) {
+        return weights[edge];
+    }
+
+    private static long edgeKey(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+}
@@ -0,0 +1,41 @@
+package org.analysis.incremental;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+// Différence entre l'arbre source courant et les fichiers de la dernière extraction
+public class ChangeSet {
+
+    private final List<File> added = new ArrayList<>();
+    private final List<File> modified = new ArrayList<>();
+    private final List<String> deleted = new ArrayList<>();
+
+    void addAdded(File file) { added.add(file); }
+
+    void addModified(File file) { modified.add(file); }
+
+    void addDeleted(String path) { deleted.add(path); }
+
+    public List<File> getAdded() { return added; }
+
+    public List<File> getModified() { return modified; }
+
+    public List<String> getDeleted() { return deleted; }
+
+    // Fichiers à reparser : nouveaux puis modifiés
+    public List<File> getFilesToParse() {
+        List<File> files = new ArrayList<>(added);
+        files.addAll(modified);
+        return files;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && modified.isEmpty() && deleted.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ajouté(s), %d modifié(s), %d supprimé(s)", added.size(), modified.size(), deleted.size());
+    }
+}
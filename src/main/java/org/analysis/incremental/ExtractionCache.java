@@ -0,0 +1,203 @@
+package org.analysis.incremental;
+
+import org.analysis.graph.DependencyKind;
+import org.analysis.parser.Dependency;
+import org.analysis.parser.FileExtraction;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+// Extractions par fichier conservées entre deux analyses, avec la date, la taille et l'empreinte SHA-1 de chaque fichier
+public class ExtractionCache {
+
+    private static final int MAGIC = 0x414E4C59; // "ANLY"
+    private static final int VERSION = 5;
+
+    private static final DependencyKind[] KINDS = DependencyKind.values();
+
+    private final Map<String, FileRecord> records = new LinkedHashMap<>();
+
+    // Charge le cache ; un fichier absent, illisible ou d'une autre version donne un cache vide
+    public static ExtractionCache load(File cacheFile) {
+        ExtractionCache cache = new ExtractionCache();
+        if (!cacheFile.isFile())
+            return cache;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return cache;
+
+            int recordCount = in.readInt();
+            for (int r = 0; r < recordCount; r++) {
+                String path = in.readUTF();
+                long lastModified = in.readLong();
+                long size = in.readLong();
+                String hash = in.readUTF();
+
+                FileExtraction extraction = new FileExtraction();
+                int typeCount = in.readInt();
+                for (int t = 0; t < typeCount; t++)
+                    extraction.addDeclaredType(in.readUTF());
+                int methodCount = in.readInt();
+                for (int m = 0; m < methodCount; m++) {
+                    String methodName = in.readUTF();
+                    extraction.addMethod(methodName, in.readInt());
+                    int dependencyCount = in.readInt();
+                    for (int d = 0; d < dependencyCount; d++)
+                        extraction.addDependency(methodName, KINDS[in.readByte()], in.readUTF());
+                }
+                int fieldCount = in.readInt();
+                for (int f = 0; f < fieldCount; f++)
+                    extraction.addField(in.readUTF());
+
+                cache.records.put(path, new FileRecord(path, lastModified, size, hash, extraction));
+            }
+        } catch (IOException e) {
+            System.err.println("Cache d'analyse illisible, il sera reconstruit : " + e.getMessage());
+            cache.records.clear();
+        }
+        return cache;
+    }
+
+    // Écrit le cache dans un fichier temporaire puis le renomme, pour ne jamais laisser un cache tronqué
+    public void save(File cacheFile) throws IOException {
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Impossible de créer le dossier " + directory);
+
+        File temporary = new File(directory, cacheFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(records.size());
+
+            for (FileRecord record : records.values()) {
+                out.writeUTF(record.getPath());
+                out.writeLong(record.getLastModified());
+                out.writeLong(record.getSize());
+                out.writeUTF(record.getHash());
+
+                FileExtraction extraction = record.getExtraction();
+                out.writeInt(extraction.getDeclaredTypes().size());
+                for (String typeName : extraction.getDeclaredTypes())
+                    out.writeUTF(typeName);
+                out.writeInt(extraction.getDependenciesByMethod().size());
+                int methodIndex = 0;
+                for (Map.Entry<String, List<Dependency>> method : extraction.getDependenciesByMethod().entrySet()) {
+                    out.writeUTF(method.getKey());
+                    out.writeInt(extraction.getMethodLines(methodIndex++));
+                    out.writeInt(method.getValue().size());
+                    for (Dependency dependency : method.getValue()) {
+                        out.writeByte(dependency.getKind().ordinal());
+                        out.writeUTF(dependency.getTarget());
+                    }
+                }
+                out.writeInt(extraction.getFields().size());
+                for (String field : extraction.getFields())
+                    out.writeUTF(field);
+            }
+        }
+
+        Files.move(temporary.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Compare les fichiers courants aux enregistrements : la date et la taille suffisent quand elles sont
+    // inchangées, sinon l'empreinte du contenu tranche entre fichier modifié et fichier simplement touché
+    public ChangeSet detectChanges(List<File> files) throws IOException {
+        ChangeSet changes = new ChangeSet();
+        Set<String> currentPaths = new HashSet<>();
+
+        for (File file : files) {
+            currentPaths.add(file.getAbsolutePath());
+            detectChange(file, changes);
+        }
+
+        for (String path : records.keySet())
+            if (!currentPaths.contains(path))
+                changes.addDeleted(path);
+
+        return changes;
+    }
+
+    // Même comparaison limitée aux fichiers candidats (signalés par la surveillance des sources) : un candidat
+    // absent des fichiers courants est supprimé s'il était enregistré, ignoré sinon
+    public ChangeSet detectChanges(List<File> files, Collection<File> candidates) throws IOException {
+        ChangeSet changes = new ChangeSet();
+        Set<String> currentPaths = new HashSet<>(files.size() * 4 / 3 + 1);
+        for (File file : files)
+            currentPaths.add(file.getAbsolutePath());
+
+        Set<String> seen = new HashSet<>();
+        for (File candidate : candidates) {
+            String path = candidate.getAbsolutePath();
+            if (!seen.add(path))
+                continue;
+            if (currentPaths.contains(path))
+                detectChange(candidate.getAbsoluteFile(), changes);
+            else if (records.containsKey(path))
+                changes.addDeleted(path);
+        }
+        return changes;
+    }
+
+    private void detectChange(File file, ChangeSet changes) throws IOException {
+        String path = file.getAbsolutePath();
+        FileRecord record = records.get(path);
+        if (record == null) {
+            changes.addAdded(file);
+        } else if (record.getLastModified() != file.lastModified() || record.getSize() != file.length()) {
+            if (record.getSize() == file.length() && record.getHash().equals(hash(file)))
+                records.put(path, record.touch(file.lastModified()));
+            else
+                changes.addModified(file);
+        }
+    }
+
+    // Enregistre l'extraction d'un fichier avec son état courant et retourne l'enregistrement remplacé
+    public FileRecord put(File file, FileExtraction extraction) throws IOException {
+        String path = file.getAbsolutePath();
+        return records.put(path, new FileRecord(path, file.lastModified(), file.length(), hash(file), extraction));
+    }
+
+    public FileRecord get(String path) {
+        return records.get(path);
+    }
+
+    public FileRecord remove(String path) {
+        return records.remove(path);
+    }
+
+    public Collection<FileRecord> getRecords() {
+        return records.values();
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    // Empreinte SHA-1 du contenu du fichier, en hexadécimal
+    public static String hash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                digest.update(buffer, 0, read);
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest())
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package org.analysis.incremental;
+
+import org.analysis.parser.FileExtraction;
+
+// État d'un fichier source lors de sa dernière extraction : date de modification, taille, empreinte du contenu
+public class FileRecord {
+
+    private final String path;
+    private final long lastModified;
+    private final long size;
+    private final String hash;
+    private final FileExtraction extraction;
+
+    public FileRecord(String path, long lastModified, long size, String hash, FileExtraction extraction) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.size = size;
+        this.hash = hash;
+        this.extraction = extraction;
+    }
+
+    // Même contenu, le fichier a seulement été touché : on garde l'extraction avec la nouvelle date
+    public FileRecord touch(long lastModified) {
+        return new FileRecord(path, lastModified, size, hash, extraction);
+    }
+
+    public String getPath() { return path; }
+
+    public long getLastModified() { return lastModified; }
+
+    public long getSize() { return size; }
+
+    public String getHash() { return hash; }
+
+    public FileExtraction getExtraction() { return extraction; }
+}
@@ -0,0 +1,326 @@
+package org.analysis.incremental;
+
+import org.analysis.graph.CallGraph;
+import org.analysis.graph.CouplingIndex;
+import org.analysis.graph.DependencyKind;
+import org.analysis.graph.GraphStorage;
+import org.analysis.metrics.CodeMetrics;
+import org.analysis.symbol.ProjectTypes;
+
+import java.io.*;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Instantané binaire du graphe d'appel et de l'index de couplage, pour repartir sans reparser le projet.
+// Format : en-tête, manifeste des fichiers sources (chemin, date, taille, empreinte), types du projet, métriques de taille
+// (lignes de chaque méthode déclarée, attributs par classe), table des méthodes
+// avec leur nombre de déclarations, arcs en quatre colonnes (appelants, appelés, natures, multiplicités),
+// graphe des dépendances vers les types extérieurs au projet s'il est suivi (même format, précédé d'un drapeau),
+// puis poids des natures, table des classes et comptes d'appels non nuls entre paires de classes.
+// L'index de couplage n'est repris que s'il a été calculé avec les poids courants.
+// Les chaînes sont écrites en UTF-8 précédées de leur longueur, les entiers en big-endian.
+public class GraphSnapshot {
+
+    private static final int MAGIC = 0x414E4753; // "ANGS"
+    private static final int VERSION = 6;
+
+    private static final DependencyKind[] KINDS = DependencyKind.values();
+
+    private final List<FileRecord> manifest;
+    private final ProjectTypes projectTypes;
+    private final CodeMetrics codeMetrics;
+    private final CallGraph callGraph;
+    private final CallGraph externalGraph;
+    private final CouplingIndex couplingIndex;
+
+    private GraphSnapshot(List<FileRecord> manifest, ProjectTypes projectTypes, CodeMetrics codeMetrics, CallGraph callGraph,
+                          CallGraph externalGraph, CouplingIndex couplingIndex) {
+        this.manifest = manifest;
+        this.projectTypes = projectTypes;
+        this.codeMetrics = codeMetrics;
+        this.callGraph = callGraph;
+        this.externalGraph = externalGraph;
+        this.couplingIndex = couplingIndex;
+    }
+
+    public List<FileRecord> getManifest() { return manifest; }
+
+    public ProjectTypes getProjectTypes() { return projectTypes; }
+
+    public CodeMetrics getCodeMetrics() { return codeMetrics; }
+
+    public CallGraph getCallGraph() { return callGraph; }
+
+    // Graphe des dépendances vers les types extérieurs, null s'il n'était pas suivi
+    public CallGraph getExternalGraph() { return externalGraph; }
+
+    public CouplingIndex getCouplingIndex() { return couplingIndex; }
+
+    // Écrit l'instantané au fil de l'eau dans un fichier temporaire, renommé une fois complet.
+    // Seules les méthodes présentes sont écrites, renumérotées dans l'ordre de leurs identifiants.
+    // Le graphe externe est nul si les dépendances vers les types extérieurs ne sont pas suivies.
+    public static void save(File snapshotFile, List<FileRecord> manifest, ProjectTypes projectTypes, CodeMetrics codeMetrics,
+                            CallGraph callGraph, CallGraph externalGraph, CouplingIndex couplingIndex) throws IOException {
+        File directory = snapshotFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Impossible de créer le dossier " + directory);
+
+        File temporary = new File(directory, snapshotFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(manifest.size());
+            for (FileRecord record : manifest) {
+                writeString(out, record.getPath());
+                out.writeLong(record.getLastModified());
+                out.writeLong(record.getSize());
+                writeString(out, record.getHash());
+            }
+
+            out.writeInt(projectTypes.size());
+            for (String typeName : projectTypes.getNames())
+                writeString(out, typeName);
+            writeCodeMetrics(out, codeMetrics);
+
+            writeGraph(out, callGraph);
+            out.writeBoolean(externalGraph != null);
+            if (externalGraph != null)
+                writeGraph(out, externalGraph);
+
+            int[] weights = couplingIndex.getWeights();
+            out.writeInt(weights.length);
+            for (int weight : weights)
+                out.writeInt(weight);
+
+            int classCount = couplingIndex.getClassCount();
+            out.writeInt(classCount);
+            for (int classId = 0; classId < classCount; classId++)
+                writeString(out, couplingIndex.getClassName(classId));
+
+            out.writeInt(couplingIndex.getPairCount());
+            IOException[] failure = {null};
+            couplingIndex.forEachPair((classA, classB, count) -> {
+                try {
+                    out.writeInt(classA);
+                    out.writeInt(classB);
+                    out.writeInt(count);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null)
+                throw failure[0];
+        }
+
+        Files.move(temporary.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Charge l'instantané par projection mémoire du fichier ; retourne null s'il est absent, d'une autre version,
+    // illisible, ou si les fichiers sources ne correspondent plus à son manifeste. L'index de couplage est nul
+    // s'il a été enregistré avec d'autres poids que ceux demandés. Quand le graphe externe est demandé, un instantané
+    // qui ne le contient pas est ignoré. Les graphes sont créés dans le stockage donné.
+    public static GraphSnapshot load(File snapshotFile, List<File> sourceFiles, int[] weights, boolean externalRequired,
+                                     GraphStorage storage) {
+        if (!snapshotFile.isFile())
+            return null;
+
+        CallGraph callGraph = null, externalGraph = null;
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return null;
+
+            byte[] scratch = new byte[256];
+
+            int fileCount = buffer.getInt();
+            List<FileRecord> manifest = new ArrayList<>(fileCount);
+            for (int f = 0; f < fileCount; f++) {
+                String path = readString(buffer, scratch);
+                long lastModified = buffer.getLong();
+                long size = buffer.getLong();
+                manifest.add(new FileRecord(path, lastModified, size, readString(buffer, scratch), null));
+            }
+            if (!matches(manifest, sourceFiles))
+                return null;
+
+            int typeCount = buffer.getInt();
+            ProjectTypes projectTypes = new ProjectTypes();
+            for (int t = 0; t < typeCount; t++)
+                projectTypes.add(readString(buffer, scratch));
+            CodeMetrics codeMetrics = readCodeMetrics(buffer, scratch, projectTypes);
+
+            callGraph = readGraph(buffer, scratch, storage);
+            boolean hasExternal = buffer.get() != 0;
+            if (externalRequired && !hasExternal) {
+                callGraph.release();
+                return null;
+            }
+            if (hasExternal)
+                externalGraph = readGraph(buffer, scratch, storage);
+
+            int[] savedWeights = readInts(buffer, buffer.getInt());
+            if (!Arrays.equals(savedWeights, weights))
+                return new GraphSnapshot(manifest, projectTypes, codeMetrics, callGraph, externalGraph, null);
+
+            int classCount = buffer.getInt();
+            String[] classNames = new String[classCount];
+            for (int classId = 0; classId < classCount; classId++)
+                classNames[classId] = readString(buffer, scratch);
+
+            int pairCount = buffer.getInt();
+            CouplingIndex couplingIndex = new CouplingIndex(pairCount, weights);
+            for (String className : classNames)
+                couplingIndex.addClass(className);
+            for (int pair = 0; pair < pairCount; pair++)
+                couplingIndex.addCount(buffer.getInt(), buffer.getInt(), buffer.getInt());
+
+            return new GraphSnapshot(manifest, projectTypes, codeMetrics, callGraph, externalGraph, couplingIndex);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Instantané illisible, le projet sera réanalysé : " + e);
+            if (callGraph != null)
+                callGraph.release();
+            if (externalGraph != null)
+                externalGraph.release();
+            return null;
+        }
+    }
+
+    // Vérifie que le manifeste décrit exactement les fichiers sources : même ensemble de chemins, même taille,
+    // et même empreinte pour les fichiers dont seule la date a changé
+    private static boolean matches(List<FileRecord> manifest, List<File> sourceFiles) throws IOException {
+        if (manifest.size() != sourceFiles.size())
+            return false;
+
+        Map<String, FileRecord> recordByPath = new HashMap<>();
+        for (FileRecord record : manifest)
+            recordByPath.put(record.getPath(), record);
+
+        for (File file : sourceFiles) {
+            FileRecord record = recordByPath.get(file.getAbsolutePath());
+            if (record == null || record.getSize() != file.length())
+                return false;
+            if (record.getLastModified() != file.lastModified() && !record.getHash().equals(ExtractionCache.hash(file)))
+                return false;
+        }
+        return true;
+    }
+
+    // Méthodes avec les lignes de leur corps, puis classes ayant des attributs avec leur nombre d'attributs ;
+    // les types déclarés sont ceux du projet
+    private static void writeCodeMetrics(DataOutputStream out, CodeMetrics metrics) throws IOException {
+        out.writeInt(metrics.getMethodCount());
+        for (int methodId = 0; methodId < metrics.getMethodCount(); methodId++) {
+            writeString(out, metrics.getMethodName(methodId));
+            out.writeInt(metrics.getMethodLines(methodId));
+        }
+
+        int withAttributes = 0;
+        for (int classId = 0; classId < metrics.getClassIdBound(); classId++)
+            if (metrics.getClassAttributeCount(classId) > 0)
+                withAttributes++;
+        out.writeInt(withAttributes);
+        for (int classId = 0; classId < metrics.getClassIdBound(); classId++) {
+            if (metrics.getClassAttributeCount(classId) == 0) continue;
+            writeString(out, metrics.getClassName(classId));
+            out.writeInt(metrics.getClassAttributeCount(classId));
+        }
+    }
+
+    private static CodeMetrics readCodeMetrics(ByteBuffer buffer, byte[] scratch, ProjectTypes projectTypes) {
+        CodeMetrics metrics = new CodeMetrics();
+        projectTypes.getNames().forEach(metrics::addDeclaredType);
+
+        int methodCount = buffer.getInt();
+        for (int m = 0; m < methodCount; m++) {
+            String methodName = readString(buffer, scratch);
+            metrics.addMethod(methodName, buffer.getInt());
+        }
+
+        int classCount = buffer.getInt();
+        for (int c = 0; c < classCount; c++) {
+            String className = readString(buffer, scratch);
+            metrics.addAttributes(className, buffer.getInt());
+        }
+        return metrics;
+    }
+
+    // Méthodes présentes avec leur nombre de déclarations, puis arcs en colonnes
+    private static void writeGraph(DataOutputStream out, CallGraph graph) throws IOException {
+        int[] compactId = new int[graph.getNodeIdBound()];
+        out.writeInt(graph.getNodeCount());
+        for (int node = 0, next = 0; node < compactId.length; node++) {
+            if (!graph.isPresent(node)) {
+                compactId[node] = -1;
+                continue;
+            }
+            compactId[node] = next++;
+            writeString(out, graph.getNodeName(node));
+            out.writeInt(graph.getDeclarationCount(node));
+        }
+
+        int edgeCount = graph.getEdgeCount();
+        out.writeInt(edgeCount);
+        for (int edge = 0; edge < edgeCount; edge++)
+            out.writeInt(compactId[graph.getEdgeSource(edge)]);
+        for (int edge = 0; edge < edgeCount; edge++)
+            out.writeInt(compactId[graph.getEdgeTarget(edge)]);
+        for (int edge = 0; edge < edgeCount; edge++)
+            out.writeByte(graph.getEdgeKind(edge).ordinal());
+        for (int edge = 0; edge < edgeCount; edge++)
+            out.writeInt(graph.getEdgeMultiplicity(edge));
+    }
+
+    private static CallGraph readGraph(ByteBuffer buffer, byte[] scratch, GraphStorage storage) {
+        int nodeCount = buffer.getInt();
+        String[] methodNames = new String[nodeCount];
+        int[] declarationCounts = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            methodNames[node] = readString(buffer, scratch);
+            declarationCounts[node] = buffer.getInt();
+        }
+
+        int edgeCount = buffer.getInt();
+        CallGraph graph = new CallGraph(storage, nodeCount, edgeCount);
+        for (int node = 0; node < nodeCount; node++)
+            graph.addNode(methodNames[node], declarationCounts[node]);
+
+        int[] sources = readInts(buffer, edgeCount);
+        int[] targets = readInts(buffer, edgeCount);
+        byte[] kinds = new byte[edgeCount];
+        buffer.get(kinds);
+        int[] multiplicities = readInts(buffer, edgeCount);
+        for (int edge = 0; edge < edgeCount; edge++)
+            graph.addEdge(sources[edge], targets[edge], KINDS[kinds[edge]], multiplicities[edge]);
+        return graph;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.get(values);
+        ((Buffer) buffer).position(buffer.position() + count * 4);
+        return values;
+    }
+}
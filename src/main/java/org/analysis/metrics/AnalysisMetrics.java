@@ -0,0 +1,134 @@
+package org.analysis.metrics;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Mesures du pipeline d'analyse par étape : temps réel, temps CPU, octets alloués, compteurs et latences.
+// Instance unique partagée par l'Analyzer, les parseurs et le clustering ; utilisable depuis plusieurs threads.
+// -Danalysis.metrics=false désactive les mesures, -Danalysis.jfr=true émet en plus un événement JFR par mesure.
+public class AnalysisMetrics {
+
+    private static final AnalysisMetrics instance = new AnalysisMetrics();
+
+    private final Map<Phase, PhaseStats> stats = new EnumMap<>(Phase.class);
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported;
+    private final boolean allocationSupported;
+
+    private volatile boolean enabled = Boolean.parseBoolean(System.getProperty("analysis.metrics", "true"));
+    private volatile boolean jfrEnabled = Boolean.getBoolean("analysis.jfr");
+
+    private AnalysisMetrics() {
+        for (Phase phase : Phase.values())
+            stats.put(phase, new PhaseStats(phase));
+
+        cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported();
+        allocationSupported = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+    }
+
+    public static AnalysisMetrics getInstance() {
+        return instance;
+    }
+
+    // Démarre la mesure d'une étape dans le thread courant, à fermer dans ce même thread
+    public PhaseTimer start(Phase phase) {
+        return new PhaseTimer(this, enabled ? stats.get(phase) : null);
+    }
+
+    public void count(Phase phase, Counter counter, long amount) {
+        if (enabled)
+            stats.get(phase).count(counter, amount);
+    }
+
+    public PhaseStats getStats(Phase phase) {
+        return stats.get(phase);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isJfrEnabled() { return jfrEnabled; }
+
+    public void setJfrEnabled(boolean jfrEnabled) { this.jfrEnabled = jfrEnabled; }
+
+    public void reset() {
+        for (PhaseStats phaseStats : stats.values())
+            phaseStats.reset();
+    }
+
+    long currentThreadCpuTime() {
+        return cpuTimeSupported ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    long currentThreadAllocatedBytes() {
+        return allocationSupported
+                ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    // Rapport lisible des étapes exécutées
+    public void printReport(PrintStream out) {
+        out.println("---------------------------------");
+        out.println("Mesures de l'analyse (temps et allocations sommés sur les threads)");
+        out.printf(Locale.ROOT, "%-38s %6s %11s %11s %11s  %s%n", "Étape", "Fois", "Réel (ms)", "CPU (ms)", "Alloué (Mo)", "Compteurs");
+
+        for (PhaseStats phaseStats : stats.values()) {
+            if (phaseStats.getRuns() == 0)
+                continue;
+
+            StringBuilder counters = new StringBuilder();
+            for (Counter counter : Counter.values())
+                if (phaseStats.getCount(counter) != 0)
+                    counters.append(counter.name().toLowerCase(Locale.ROOT)).append('=').append(phaseStats.getCount(counter)).append(' ');
+
+            out.printf(Locale.ROOT, "%-38s %6d %11.1f %11.1f %11.1f  %s%n", phaseStats.getPhase().getLabel(), phaseStats.getRuns(),
+                    phaseStats.getWallNanos() / 1e6, phaseStats.getCpuNanos() / 1e6, phaseStats.getAllocatedBytes() / 1048576.0, counters);
+
+            LatencyHistogram latencies = phaseStats.getLatencies();
+            if (latencies.getCount() > 0)
+                out.printf(Locale.ROOT, "%-38s latence par %s (ms) : moy %.2f, p50 %.2f, p90 %.2f, p99 %.2f, max %.2f%n", "",
+                        phaseStats.getPhase() == Phase.SERVER ? "requête" : "fichier",
+                        latencies.getMean() / 1e6, latencies.getPercentile(0.5) / 1e6, latencies.getPercentile(0.9) / 1e6,
+                        latencies.getPercentile(0.99) / 1e6, latencies.getMax() / 1e6);
+        }
+        out.println("---------------------------------");
+    }
+
+    // Rapport JSON des étapes exécutées, durées en nanosecondes et allocations en octets
+    public void writeJson(PrintWriter out) {
+        out.print("{\"phases\":[");
+        String separator = "";
+        for (PhaseStats phaseStats : stats.values()) {
+            if (phaseStats.getRuns() == 0)
+                continue;
+
+            out.print(separator + "{\"phase\":\"" + phaseStats.getPhase().name() + "\",\"runs\":" + phaseStats.getRuns()
+                    + ",\"wallNanos\":" + phaseStats.getWallNanos() + ",\"cpuNanos\":" + phaseStats.getCpuNanos()
+                    + ",\"allocatedBytes\":" + phaseStats.getAllocatedBytes() + ",\"counters\":{");
+            String counterSeparator = "";
+            for (Counter counter : Counter.values()) {
+                if (phaseStats.getCount(counter) == 0) continue;
+                out.print(counterSeparator + "\"" + counter.name().toLowerCase(Locale.ROOT) + "\":" + phaseStats.getCount(counter));
+                counterSeparator = ",";
+            }
+            out.print("}");
+
+            LatencyHistogram latencies = phaseStats.getLatencies();
+            if (latencies.getCount() > 0)
+                out.print(",\"latencyNanos\":{\"count\":" + latencies.getCount() + ",\"mean\":" + latencies.getMean()
+                        + ",\"p50\":" + latencies.getPercentile(0.5) + ",\"p90\":" + latencies.getPercentile(0.9)
+                        + ",\"p99\":" + latencies.getPercentile(0.99) + ",\"max\":" + latencies.getMax() + "}");
+            out.print("}");
+            separator = ",";
+        }
+        out.println("]}");
+        out.flush();
+    }
+}
@@ -0,0 +1,219 @@
+package org.analysis.metrics;
+
+import org.analysis.graph.HeapSymbolTable;
+import org.analysis.graph.SymbolTable;
+import org.analysis.parser.FileExtraction;
+import org.analysis.symbol.Signatures;
+
+import java.util.Arrays;
+
+// Métriques de taille du projet, remplies à partir des extractions du graphe d'appel sans second parsing :
+// nombre de méthodes, d'attributs et de lignes de code par classe, lignes de code par méthode.
+// Classes, méthodes et paquetages sont numérotés par des tables de symboles ; les valeurs sont rangées dans
+// des tableaux d'entiers indexés par ces numéros. La classe d'une méthode ou d'un attribut est son type déclarant,
+// ou pour une classe anonyme le type déclaré qui l'englobe ; seuls les types déclarés dans les sources ont des valeurs par classe.
+public class CodeMetrics {
+
+    // Grandeurs par classe proposées au classement
+    public enum ClassMeasure { METHODS, ATTRIBUTES, LINES }
+
+    private final SymbolTable classes = new HeapSymbolTable();
+    private final SymbolTable methods = new HeapSymbolTable();
+    private final SymbolTable packages = new HeapSymbolTable();
+
+    // Indexés par classe
+    private int[] methodCountByClass = new int[16];
+    private int[] attributeCountByClass = new int[16];
+    private int[] linesByClass = new int[16];
+
+    // Indexés par méthode
+    private int[] linesByMethod = new int[16];
+
+    private int attributeCount = 0;
+    private long totalLines = 0;
+
+    // Métriques des extractions données : types déclarés, puis méthodes, puis attributs, pour que les identifiants
+    // ne dépendent pas de la façon dont les déclarations se répartissent entre les fichiers
+    public static CodeMetrics of(Iterable<FileExtraction> extractions) {
+        CodeMetrics metrics = new CodeMetrics();
+        for (FileExtraction extraction : extractions)
+            if (extraction != null)
+                extraction.getDeclaredTypes().forEach(metrics::addDeclaredType);
+
+        for (FileExtraction extraction : extractions) {
+            if (extraction == null) continue;
+            int methodIndex = 0;
+            for (String methodName : extraction.getDependenciesByMethod().keySet())
+                metrics.addMethod(methodName, extraction.getMethodLines(methodIndex++));
+        }
+
+        for (FileExtraction extraction : extractions)
+            if (extraction != null)
+                for (String fieldName : extraction.getFields())
+                    metrics.addAttributes(Signatures.classNameOf(fieldName), 1);
+        return metrics;
+    }
+
+    // Déclare un type nommé des sources du projet, avant les méthodes et attributs ; un type déjà connu n'est pas recompté
+    public void addDeclaredType(String typeName) {
+        int known = classes.size();
+        if (classId(typeName) < known)
+            return;
+
+        packages.intern(Signatures.packageNameOf(typeName));
+    }
+
+    // Déclare une méthode et les lignes de son corps ; une méthode déjà connue n'est pas comptée deux fois
+    public void addMethod(String methodName, int lineCount) {
+        int methodId = methods.getId(methodName);
+        if (methodId >= 0)
+            return;
+
+        methodId = methods.intern(methodName);
+        if (methodId == linesByMethod.length)
+            linesByMethod = Arrays.copyOf(linesByMethod, methodId << 1);
+        linesByMethod[methodId] = lineCount;
+
+        int classId = ownerId(Signatures.classNameOf(methodName));
+        if (classId >= 0) {
+            methodCountByClass[classId]++;
+            linesByClass[classId] += lineCount;
+        }
+        totalLines += lineCount;
+    }
+
+    public void addAttributes(String className, int count) {
+        int classId = ownerId(className);
+        if (classId >= 0)
+            attributeCountByClass[classId] += count;
+        attributeCount += count;
+    }
+
+    // Types nommés déclarés dans les sources
+    public int getClassCount() { return classes.size(); }
+
+    public int getMethodCount() { return methods.size(); }
+
+    public int getAttributeCount() { return attributeCount; }
+
+    public int getPackageCount() { return packages.size(); }
+
+    // Lignes des corps de méthodes
+    public long getTotalLines() { return totalLines; }
+
+    // Types déclarés dans les sources (identifiants 0 à n - 1)
+    public int getClassIdBound() { return classes.size(); }
+
+    // Identifiant de la classe, ou -1 si elle est inconnue
+    public int getClassId(String className) { return classes.getId(className); }
+
+    public String getClassName(int classId) { return classes.getName(classId); }
+
+    public int getClassMethodCount(int classId) { return methodCountByClass[classId]; }
+
+    public int getClassAttributeCount(int classId) { return attributeCountByClass[classId]; }
+
+    public int getClassLines(int classId) { return linesByClass[classId]; }
+
+    // Identifiant de la méthode, ou -1 si elle est inconnue
+    public int getMethodId(String methodName) { return methods.getId(methodName); }
+
+    public String getMethodName(int methodId) { return methods.getName(methodId); }
+
+    public int getMethodLines(int methodId) { return linesByMethod[methodId]; }
+
+    // Les n classes les plus grandes selon la grandeur donnée, de la plus grande à la plus petite
+    public int[] topClasses(ClassMeasure measure, int n) {
+        switch (measure) {
+            case METHODS:
+                return top(methodCountByClass, classes.size(), n);
+            case ATTRIBUTES:
+                return top(attributeCountByClass, classes.size(), n);
+            default:
+                return top(linesByClass, classes.size(), n);
+        }
+    }
+
+    // Les n méthodes les plus longues, de la plus longue à la plus courte
+    public int[] topMethodsByLines(int n) {
+        return top(linesByMethod, methods.size(), n);
+    }
+
+    // Type déclaré auquel sont comptés les membres de la classe : elle-même si elle est déclarée, sinon le type déclaré
+    // qui l'englobe (classe anonyme p.A$1 comptée dans p.A), ou -1 s'il n'y en a pas
+    private int ownerId(String className) {
+        int classId = classes.getId(className);
+        for (int dollar = className.lastIndexOf('$'); classId < 0 && dollar > 0; dollar = className.lastIndexOf('$', dollar - 1))
+            classId = classes.getId(className.substring(0, dollar));
+        return classId;
+    }
+
+    private int classId(String className) {
+        int classId = classes.intern(className);
+        if (classId == methodCountByClass.length) {
+            methodCountByClass = Arrays.copyOf(methodCountByClass, classId << 1);
+            attributeCountByClass = Arrays.copyOf(attributeCountByClass, classId << 1);
+            linesByClass = Arrays.copyOf(linesByClass, classId << 1);
+        }
+        return classId;
+    }
+
+    // Identifiants des n plus grandes valeurs (à valeur égale, le plus petit identifiant d'abord), sélectionnés
+    // par un tas minimal de taille n puis vidés du plus petit au plus grand
+    private static int[] top(int[] values, int size, int n) {
+        int[] heap = new int[Math.max(0, Math.min(n, size))];
+        int count = 0;
+        for (int id = 0; id < size; id++) {
+            if (count < heap.length) {
+                heap[count] = id;
+                siftUp(heap, count++, values);
+            } else if (heap.length > 0 && ranksBefore(id, heap[0], values)) {
+                heap[0] = id;
+                siftDown(heap, count, values);
+            }
+        }
+
+        int[] ranking = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            ranking[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i, values);
+        }
+        return ranking;
+    }
+
+    private static boolean ranksBefore(int a, int b, int[] values) {
+        return values[a] > values[b] || (values[a] == values[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int index, int[] values) {
+        int id = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBefore(heap[parent], id, values))
+                break;
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = id;
+    }
+
+    private static void siftDown(int[] heap, int count, int[] values) {
+        if (count == 0)
+            return;
+
+        int index = 0, id = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= count)
+                break;
+            if (child + 1 < count && ranksBefore(heap[child], heap[child + 1], values))
+                child++;
+            if (!ranksBefore(id, heap[child], values))
+                break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = id;
+    }
+}
@@ -0,0 +1,6 @@
+package org.analysis.metrics;
+
+// Quantités comptées par étape
+public enum Counter {
+    FILES, METHODS, DEPENDENCIES, EDGES, CLASSES, PACKAGES, MERGES, MODULES
+}
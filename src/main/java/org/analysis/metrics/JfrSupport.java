@@ -0,0 +1,45 @@
+package org.analysis.metrics;
+
+import jdk.jfr.*;
+
+// Événements JFR des étapes, chargés seulement si -Danalysis.jfr=true : les classes jdk.jfr
+// n'existent pas sur les JVM 8 les plus anciennes
+final class JfrSupport {
+
+    private JfrSupport() { }
+
+    @Name("org.analysis.Phase")
+    @Label("Étape d'analyse")
+    @Category("Analysis")
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+
+        @Label("Étape")
+        String phase;
+
+        @Label("Temps CPU")
+        @Timespan(Timespan.NANOSECONDS)
+        long cpuTime;
+
+        @Label("Octets alloués")
+        @DataAmount
+        long allocated;
+    }
+
+    static Object begin() {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commit(Object event, Phase phase, long cpuTime, long allocated) {
+        PhaseEvent phaseEvent = (PhaseEvent) event;
+        phaseEvent.end();
+        if (phaseEvent.shouldCommit()) {
+            phaseEvent.phase = phase.name();
+            phaseEvent.cpuTime = cpuTime;
+            phaseEvent.allocated = allocated;
+            phaseEvent.commit();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.analysis.metrics;
+
+// Étapes mesurées du pipeline d'analyse
+public enum Phase {
+    DISCOVERY("Découverte des fichiers"),
+    CALL_GRAPH("Graphe d'appel (total)"),
+    CHANGE_DETECTION("Détection des modifications"),
+    PARSE("Parsing et résolution des bindings"),
+    EXTRACTION("Parcours des visiteurs"),
+    GRAPH_INSERTION("Insertion dans le graphe"),
+    CODE_METRICS("Métriques de taille"),
+    SNAPSHOT("Instantané"),
+    COUPLING("Index de couplage"),
+    COUPLING_HIERARCHY("Couplage par paquetage et sous-système"),
+    WEIGHTED_GRAPH("Graphe de couplage pondéré"),
+    CLUSTERING("Clustering"),
+    MODULES("Identification des modules"),
+    WATCH("Mise à jour en mode surveillance"),
+    SERVER("Requêtes du serveur");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,57 @@
+package org.analysis.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Mesures cumulées d'une étape, tous threads confondus : les temps et allocations sont sommés sur les threads
+// qui ont exécuté l'étape, et peuvent donc dépasser la durée réelle quand l'étape tourne en parallèle
+public class PhaseStats {
+
+    private final Phase phase;
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    PhaseStats(Phase phase) {
+        this.phase = phase;
+    }
+
+    void add(long wall, long cpu, long allocated) {
+        runs.increment();
+        wallNanos.add(wall);
+        cpuNanos.add(cpu);
+        allocatedBytes.add(allocated);
+    }
+
+    void count(Counter counter, long amount) {
+        counters.addAndGet(counter.ordinal(), amount);
+    }
+
+    void reset() {
+        runs.reset();
+        wallNanos.reset();
+        cpuNanos.reset();
+        allocatedBytes.reset();
+        for (int c = 0; c < counters.length(); c++)
+            counters.set(c, 0);
+        latencies.reset();
+    }
+
+    public Phase getPhase() { return phase; }
+
+    public long getRuns() { return runs.sum(); }
+
+    public long getWallNanos() { return wallNanos.sum(); }
+
+    public long getCpuNanos() { return cpuNanos.sum(); }
+
+    public long getAllocatedBytes() { return allocatedBytes.sum(); }
+
+    public long getCount(Counter counter) { return counters.get(counter.ordinal()); }
+
+    // Latences par élément (par fichier pour le parsing et l'extraction)
+    public LatencyHistogram getLatencies() { return latencies; }
+}
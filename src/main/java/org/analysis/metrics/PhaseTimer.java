@@ -0,0 +1,66 @@
+package org.analysis.metrics;
+
+// Chronomètre d'une étape pour le thread courant : temps réel, temps CPU et octets alloués par le thread.
+// Il peut être suspendu et repris (end / begin) pour exclure un travail imbriqué ; close enregistre le cumul.
+// Sans statistiques (mesures désactivées), toutes les opérations sont sans effet.
+public class PhaseTimer implements AutoCloseable {
+
+    private final AnalysisMetrics metrics;
+    private final PhaseStats stats;
+    private final Object event;
+
+    private boolean running;
+    private long wallStart, cpuStart, allocatedStart;
+    private long wall, cpu, allocated;
+    private long lastSegment;
+
+    PhaseTimer(AnalysisMetrics metrics, PhaseStats stats) {
+        this.metrics = metrics;
+        this.stats = stats;
+        this.event = stats != null && metrics.isJfrEnabled() ? JfrSupport.begin() : null;
+        begin();
+    }
+
+    // Reprend la mesure
+    public void begin() {
+        if (running || stats == null)
+            return;
+        running = true;
+        wallStart = System.nanoTime();
+        cpuStart = metrics.currentThreadCpuTime();
+        allocatedStart = metrics.currentThreadAllocatedBytes();
+    }
+
+    // Suspend la mesure et retourne la durée du segment qui vient de se terminer, en nanosecondes
+    public long end() {
+        if (!running)
+            return 0;
+        running = false;
+        lastSegment = System.nanoTime() - wallStart;
+        wall += lastSegment;
+        cpu += metrics.currentThreadCpuTime() - cpuStart;
+        allocated += metrics.currentThreadAllocatedBytes() - allocatedStart;
+        return lastSegment;
+    }
+
+    // Enregistre la durée du dernier segment dans l'histogramme de latences de l'étape
+    public void recordLatency() {
+        if (stats != null)
+            stats.getLatencies().record(lastSegment);
+    }
+
+    public void count(Counter counter, long amount) {
+        if (stats != null)
+            stats.count(counter, amount);
+    }
+
+    @Override
+    public void close() {
+        if (stats == null)
+            return;
+        end();
+        stats.add(wall, cpu, allocated);
+        if (event != null)
+            JfrSupport.commit(event, stats.getPhase(), cpu, allocated);
+    }
+}
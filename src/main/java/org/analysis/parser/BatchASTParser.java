@@ -0,0 +1,96 @@
+package org.analysis.parser;
+
+import org.analysis.metrics.AnalysisMetrics;
+import org.analysis.metrics.Counter;
+import org.analysis.metrics.Phase;
+import org.analysis.metrics.PhaseTimer;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.*;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+// Parseur JDT configuré une seule fois pour tout le projet analysé
+public class BatchASTParser {
+
+    private static final String ENCODING = "UTF-8";
+
+    // Environnement de résolution des bindings (classes du JDK et bibliothèques, sources du projet puis des autres
+    // projets de l'espace de travail) ; le JDK est fourni par le classpath, pas par la machine virtuelle courante
+    private final String[] classpath;
+    private final String[] sourcePaths;
+
+    public BatchASTParser(String[] classpath, String[] sourcePaths) {
+        this.classpath = classpath;
+        this.sourcePaths = sourcePaths;
+    }
+
+    // Crée un parseur avec les options communes aux deux modes de parsing
+    private ASTParser newParser() {
+        ASTParser parser = ASTParser.newParser(AST.JLS4); // java +1.6
+        parser.setResolveBindings(true);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+
+        parser.setBindingsRecovery(true);
+
+        // JavaCore.getOptions retourne une Hashtable brute dont les clés et valeurs sont des chaînes
+        @SuppressWarnings("unchecked")
+        Map<String, String> options = JavaCore.getOptions();
+        parser.setCompilerOptions(options);
+
+        String[] encodings = new String[sourcePaths.length];
+        Arrays.fill(encodings, ENCODING);
+        parser.setEnvironment(classpath, sourcePaths, encodings, false);
+        return parser;
+    }
+
+    // Parse un fichier isolé : l'environnement de binding est reconstruit à chaque appel
+    public CompilationUnit parse(char[] classSource) {
+        try (PhaseTimer timer = AnalysisMetrics.getInstance().start(Phase.PARSE)) {
+            ASTParser parser = newParser();
+            parser.setUnitName("");
+            parser.setSource(classSource);
+
+            CompilationUnit unit = (CompilationUnit) parser.createAST(null);
+            timer.end();
+            timer.recordLatency();
+            timer.count(Counter.FILES, 1);
+            return unit;
+        }
+    }
+
+    // Parse tous les fichiers en un seul appel createASTs : l'environnement de binding est partagé.
+    // Chaque AST est transmis au consumer avec l'indice de son fichier, puis abandonné : il ne doit pas être conservé.
+    // Le temps passé dans le consumer est exclu de la mesure du parsing ; la latence d'un fichier est le temps
+    // passé par JDT depuis le fichier précédent.
+    public void parse(List<File> files, ObjIntConsumer<CompilationUnit> consumer) {
+        if (files.isEmpty())
+            return;
+
+        String[] paths = new String[files.size()];
+        Map<String, Integer> indexByPath = new HashMap<>();
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = files.get(i).getAbsolutePath();
+            indexByPath.put(paths[i], i);
+        }
+
+        String[] encodings = new String[paths.length];
+        Arrays.fill(encodings, ENCODING);
+
+        try (PhaseTimer timer = AnalysisMetrics.getInstance().start(Phase.PARSE)) {
+            FileASTRequestor requestor = new FileASTRequestor() {
+                @Override
+                public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+                    timer.end();
+                    timer.recordLatency();
+                    timer.count(Counter.FILES, 1);
+                    consumer.accept(ast, indexByPath.get(sourceFilePath));
+                    timer.begin();
+                }
+            };
+
+            newParser().createASTs(paths, encodings, new String[0], requestor, null);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.analysis.parser;
+
+import org.analysis.metrics.AnalysisMetrics;
+import org.analysis.metrics.Counter;
+import org.analysis.metrics.Phase;
+import org.analysis.metrics.PhaseTimer;
+import org.analysis.visitor.DependencyVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+// Extrait d'un AST les méthodes et leurs dépendances, sans dépendre du graphe d'appel (utilisable en parallèle)
+public class CallGraphExtractor {
+
+    // Collecte en une passe les types, méthodes et attributs déclarés et les dépendances résolues de chaque méthode
+    public FileExtraction extract(CompilationUnit ast) {
+        try (PhaseTimer timer = AnalysisMetrics.getInstance().start(Phase.EXTRACTION)) {
+            FileExtraction extraction = extract(ast, timer);
+            timer.end();
+            timer.recordLatency();
+            return extraction;
+        }
+    }
+
+    private FileExtraction extract(CompilationUnit ast, PhaseTimer timer) {
+        FileExtraction extraction = new FileExtraction();
+
+        DependencyVisitor visitor = new DependencyVisitor(extraction);
+        ast.accept(visitor);
+
+        timer.count(Counter.METHODS, extraction.getDependenciesByMethod().size());
+        timer.count(Counter.DEPENDENCIES, visitor.getDependencyCount());
+        return extraction;
+    }
+}
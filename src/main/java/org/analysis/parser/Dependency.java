@@ -0,0 +1,28 @@
+package org.analysis.parser;
+
+import org.analysis.graph.DependencyKind;
+
+// Dépendance extraite d'une méthode : nature et identifiant de la cible (méthode, attribut ou type)
+public final class Dependency {
+
+    private final DependencyKind kind;
+    private final String target;
+
+    public Dependency(DependencyKind kind, String target) {
+        this.kind = kind;
+        this.target = target;
+    }
+
+    public DependencyKind getKind() {
+        return kind;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    // Type déclarant la cible
+    public String getTargetClassName() {
+        return kind.classNameOf(target);
+    }
+}
@@ -0,0 +1,80 @@
+package org.analysis.parser;
+
+import org.analysis.graph.DependencyKind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Résultat de l'extraction d'une unité de compilation : les types déclarés, chaque méthode déclarée avec ses
+// dépendances (appels, constructeurs, accès aux attributs, références aux types) et son nombre de lignes,
+// ainsi que les attributs déclarés.
+// Les dépendances ne sont pas filtrées sur les types du projet, ce filtre dépendant de l'ensemble des fichiers
+// est appliqué à l'insertion dans le graphe d'appel.
+// Types, méthodes et attributs sont désignés par les identifiants de Signatures.
+public class FileExtraction {
+
+    // Types nommés déclarés dans l'unité, dans l'ordre du source
+    private final List<String> declaredTypes = new ArrayList<>();
+
+    // Méthodes dans l'ordre de déclaration, associées à leurs dépendances dans l'ordre du source
+    private final Map<String, List<Dependency>> dependenciesByMethod = new LinkedHashMap<>();
+
+    // Lignes du corps de chaque méthode, dans l'ordre des méthodes (0 sans corps)
+    private int[] methodLines = new int[8];
+
+    // Attributs déclarés, sous la forme "paquetage.Classe.attribut"
+    private final List<String> fields = new ArrayList<>();
+
+    public void addDeclaredType(String typeName) {
+        declaredTypes.add(typeName);
+    }
+
+    public void addMethod(String methodName) {
+        addMethod(methodName, 0);
+    }
+
+    // Déclare une méthode avec le nombre de lignes de son corps ; une méthode déjà déclarée garde ses lignes
+    public void addMethod(String methodName, int lineCount) {
+        if (dependenciesByMethod.containsKey(methodName))
+            return;
+
+        int index = dependenciesByMethod.size();
+        dependenciesByMethod.put(methodName, new ArrayList<>());
+        if (index == methodLines.length)
+            methodLines = Arrays.copyOf(methodLines, index << 1);
+        methodLines[index] = lineCount;
+    }
+
+    public void addDependency(String methodName, DependencyKind kind, String target) {
+        List<Dependency> dependencies = dependenciesByMethod.get(methodName);
+        if (dependencies == null) {
+            addMethod(methodName);
+            dependencies = dependenciesByMethod.get(methodName);
+        }
+        dependencies.add(new Dependency(kind, target));
+    }
+
+    public void addField(String fieldName) {
+        fields.add(fieldName);
+    }
+
+    public List<String> getDeclaredTypes() {
+        return declaredTypes;
+    }
+
+    public Map<String, List<Dependency>> getDependenciesByMethod() {
+        return dependenciesByMethod;
+    }
+
+    // Lignes du corps de la méthode d'indice donné, dans l'ordre de getDependenciesByMethod
+    public int getMethodLines(int methodIndex) {
+        return methodLines[methodIndex];
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+}
@@ -0,0 +1,103 @@
+package org.analysis.parser;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+// Classes du JDK sous une forme lisible par JDT pour la résolution des bindings.
+// Un JDK 8 fournit ses jars (rt.jar...) ; à partir de Java 9 les classes sont dans l'image d'exécution (jrt:/),
+// que JDT 3.9 ne sait pas lire : les modules java.* sont alors recopiés une fois dans un jar mis en cache,
+// nommé d'après la version et le dossier du JDK. Le JDK est celui de -Danalysis.jdk, sinon celui qui exécute l'analyse.
+public final class JdkClasspath {
+
+    private JdkClasspath() {
+    }
+
+    // Jars des classes du JDK ; le jar exporté est écrit dans cacheDirectory
+    public static List<String> resolve(File cacheDirectory) {
+        String jdkHome = System.getProperty("analysis.jdk", System.getProperty("java.home"));
+
+        List<String> jars = legacyJars(new File(jdkHome));
+        if (!jars.isEmpty())
+            return jars;
+
+        try {
+            return Collections.singletonList(exportRuntimeImage(jdkHome, cacheDirectory).getAbsolutePath());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Classes du JDK introuvables, les types du JDK ne seront pas résolus : " + e);
+            return Collections.emptyList();
+        }
+    }
+
+    // Jars d'un JDK 8 (jre/lib et jre/lib/ext, ou lib et lib/ext pour un JRE)
+    private static List<String> legacyJars(File jdkHome) {
+        List<String> jars = new ArrayList<>();
+        for (String directory : new String[]{"jre/lib", "jre/lib/ext", "lib", "lib/ext"}) {
+            File[] files = new File(jdkHome, directory).listFiles((dir, name) -> name.endsWith(".jar"));
+            if (files == null) continue;
+            Arrays.sort(files);
+            for (File file : files)
+                jars.add(file.getAbsolutePath());
+        }
+
+        boolean hasRuntime = jars.stream().anyMatch(jar -> jar.endsWith(File.separator + "rt.jar"));
+        return hasRuntime ? jars : Collections.emptyList();
+    }
+
+    // Recopie les classes des modules java.* de l'image d'exécution dans un jar, sauf s'il existe déjà
+    private static File exportRuntimeImage(String jdkHome, File cacheDirectory) throws IOException {
+        String key = System.getProperty("java.version") + "-" + Integer.toHexString(new File(jdkHome).getAbsolutePath().hashCode());
+        File jar = new File(cacheDirectory, "jdk-" + key + ".jar");
+        if (jar.isFile())
+            return jar;
+
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs())
+            throw new IOException("Impossible de créer le dossier " + cacheDirectory);
+
+        long start = System.nanoTime();
+        File temporary = File.createTempFile(jar.getName(), ".tmp", cacheDirectory);
+        int classCount = 0;
+        try (FileSystem runtime = openRuntimeImage(jdkHome);
+             JarOutputStream out = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16));
+             DirectoryStream<Path> modules = Files.newDirectoryStream(runtime.getPath("/modules"))) {
+            for (Path module : modules) {
+                if (!module.getFileName().toString().startsWith("java."))
+                    continue;
+
+                List<Path> classes = new ArrayList<>();
+                try (Stream<Path> files = Files.walk(module)) {
+                    files.filter(path -> path.toString().endsWith(".class") && !path.getFileName().toString().equals("module-info.class"))
+                            .forEach(classes::add);
+                }
+                for (Path path : classes) {
+                    out.putNextEntry(new JarEntry(module.relativize(path).toString()));
+                    out.write(Files.readAllBytes(path));
+                    out.closeEntry();
+                }
+                classCount += classes.size();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary.toPath());
+            throw e;
+        }
+
+        Files.move(temporary.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.printf("Classes du JDK exportées en %d ms (%d classes, %s)%n",
+                (System.nanoTime() - start) / 1_000_000, classCount, jar);
+        return jar;
+    }
+
+    // Image d'exécution du JDK donné ; celle du JDK courant n'a pas à être fermée, elle est donc ouverte à nouveau
+    private static FileSystem openRuntimeImage(String jdkHome) throws IOException {
+        Map<String, String> environment = Collections.singletonMap("java.home", jdkHome);
+        try {
+            return FileSystems.newFileSystem(URI.create("jrt:/"), environment);
+        } catch (ProviderNotFoundException e) {
+            throw new IOException("Image d'exécution jrt:/ indisponible pour " + jdkHome, e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.analysis.parser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Répartit les fichiers du projet en lots traités chacun par son propre parseur sur un pool de threads,
+// créé pour l'extraction ou partagé entre plusieurs projets (il n'est alors pas arrêté)
+public class ParallelCallGraphExtractor {
+
+    // Nombre de lots par thread, pour équilibrer la charge entre gros et petits fichiers
+    private static final int SHARDS_PER_THREAD = 4;
+
+    private final BatchASTParser parser;
+    private final CallGraphExtractor extractor;
+    private final int threadCount;
+    private final ExecutorService sharedExecutor;
+
+    public ParallelCallGraphExtractor(BatchASTParser parser, CallGraphExtractor extractor, int threadCount) {
+        this(parser, extractor, threadCount, null);
+    }
+
+    public ParallelCallGraphExtractor(BatchASTParser parser, CallGraphExtractor extractor, int threadCount, ExecutorService sharedExecutor) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("Le nombre de threads doit être positif : " + threadCount);
+
+        this.parser = parser;
+        this.extractor = extractor;
+        this.threadCount = threadCount;
+        this.sharedExecutor = sharedExecutor;
+    }
+
+    // Retourne l'extraction de chaque fichier, à l'indice du fichier dans la liste reçue
+    public List<FileExtraction> extract(List<File> files) {
+        AtomicReferenceArray<FileExtraction> collector = new AtomicReferenceArray<>(files.size());
+
+        int shardCount = Math.min(files.size(), threadCount * SHARDS_PER_THREAD);
+        List<Callable<Void>> shards = new ArrayList<>();
+        for (int s = 0; s < shardCount; s++) {
+            int from = (int) ((long) files.size() * s / shardCount);
+            int to = (int) ((long) files.size() * (s + 1) / shardCount);
+            List<File> shard = files.subList(from, to);
+
+            shards.add(() -> {
+                parser.parse(shard, (ast, index) -> collector.set(from + index, extractor.extract(ast)));
+                return null;
+            });
+        }
+
+        ExecutorService executor = sharedExecutor != null ? sharedExecutor : Executors.newFixedThreadPool(threadCount);
+        try {
+            for (Future<Void> future : executor.invokeAll(shards))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (executor != sharedExecutor)
+                executor.shutdownNow();
+        }
+
+        List<FileExtraction> extractions = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++)
+            extractions.add(collector.get(i));
+        return extractions;
+    }
+}
@@ -0,0 +1,41 @@
+package org.analysis.render;
+
+import org.analysis.graph.CouplingHierarchy;
+import org.analysis.symbol.Signatures;
+
+import java.util.Locale;
+
+// Niveau de détail d'une vue du graphe : un noeud par méthode, par classe ou par paquetage
+public enum DetailLevel {
+    METHOD,
+    CLASS,
+    PACKAGE;
+
+    // Nom du noeud qui regroupe les classes du paquetage par défaut
+    public static final String DEFAULT_PACKAGE = CouplingHierarchy.DEFAULT_PACKAGE;
+
+    // Noeud de ce niveau qui regroupe un noeud du niveau donné, plus fin ou égal
+    public String nodeOf(String name, DetailLevel from) {
+        if (from.compareTo(this) > 0)
+            throw new IllegalArgumentException("Un noeud " + from.getLabel() + " ne peut pas être détaillé en " + getLabel());
+
+        String node = from == METHOD && this != METHOD ? Signatures.classNameOf(name) : name;
+        if (this != PACKAGE || from == PACKAGE)
+            return node;
+
+        String packageName = Signatures.packageNameOf(node);
+        return packageName.isEmpty() ? DEFAULT_PACKAGE : packageName;
+    }
+
+    public String getLabel() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static DetailLevel fromLabel(String label) {
+        try {
+            return valueOf(label.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Niveau de détail inconnu : " + label);
+        }
+    }
+}
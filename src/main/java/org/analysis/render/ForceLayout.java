@@ -0,0 +1,141 @@
+package org.analysis.render;
+
+import org.analysis.graph.WeightedGraph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Disposition par forces (Fruchterman-Reingold) calculée sans affichage, en un nombre fixe d'itérations.
+// Les noeuds se repoussent seulement à moins de deux fois la distance idéale : la répulsion ne parcourt que
+// les cellules voisines d'une grille, chaque itération reste proche du linéaire en nombre de noeuds et d'arêtes.
+// Les arêtes attirent leurs extrémités d'autant plus que leur poids est grand. Le résultat est déterministe.
+public class ForceLayout {
+
+    // Itérations par défaut (-Danalysis.layout.iterations)
+    public static final int DEFAULT_ITERATIONS = Integer.getInteger("analysis.layout.iterations", 100);
+
+    // Distance idéale entre deux noeuds
+    private static final double K = 1.0;
+    private static final double CELL = 2 * K;
+
+    private final WeightedGraph graph;
+    private final double side;
+    private final double[] x, y;
+
+    public ForceLayout(WeightedGraph graph) {
+        this.graph = graph;
+        int nodeCount = graph.getNodeCount();
+        side = Math.max(1.0, Math.sqrt(nodeCount)) * K * 2;
+        x = new double[nodeCount];
+        y = new double[nodeCount];
+
+        Random random = new Random(42);
+        for (int node = 0; node < nodeCount; node++) {
+            x[node] = random.nextDouble() * side;
+            y[node] = random.nextDouble() * side;
+        }
+    }
+
+    // Déplace les noeuds pendant le nombre d'itérations donné, la température décroissant linéairement
+    public ForceLayout run(int iterations) {
+        int nodeCount = x.length;
+        double[] dx = new double[nodeCount], dy = new double[nodeCount];
+        double[] edgeStrength = edgeStrengths();
+
+        int gridSize = (int) Math.ceil(side / CELL) + 1;
+        int[] cellStart = new int[gridSize * gridSize + 1];
+        int[] cellNodes = new int[nodeCount];
+        int[] cellOf = new int[nodeCount];
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            Arrays.fill(dx, 0);
+            Arrays.fill(dy, 0);
+
+            // Noeuds rangés par cellule (tri par comptage)
+            Arrays.fill(cellStart, 0);
+            for (int node = 0; node < nodeCount; node++) {
+                cellOf[node] = cell(x[node], gridSize) * gridSize + cell(y[node], gridSize);
+                cellStart[cellOf[node] + 1]++;
+            }
+            for (int c = 0; c < gridSize * gridSize; c++)
+                cellStart[c + 1] += cellStart[c];
+            int[] fill = Arrays.copyOf(cellStart, gridSize * gridSize);
+            for (int node = 0; node < nodeCount; node++)
+                cellNodes[fill[cellOf[node]]++] = node;
+
+            // Répulsion entre noeuds proches, chaque paire vue une fois depuis son plus petit noeud
+            for (int node = 0; node < nodeCount; node++) {
+                int cellX = cellOf[node] / gridSize, cellY = cellOf[node] % gridSize;
+                for (int i = Math.max(0, cellX - 1); i <= Math.min(gridSize - 1, cellX + 1); i++) {
+                    for (int j = Math.max(0, cellY - 1); j <= Math.min(gridSize - 1, cellY + 1); j++) {
+                        int c = i * gridSize + j;
+                        for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+                            int other = cellNodes[p];
+                            if (other <= node) continue;
+
+                            double deltaX = x[node] - x[other], deltaY = y[node] - y[other];
+                            double distance = Math.max(1e-6, Math.sqrt(deltaX * deltaX + deltaY * deltaY));
+                            if (distance >= CELL) continue;
+
+                            double force = K * K / distance;
+                            double forceX = deltaX / distance * force, forceY = deltaY / distance * force;
+                            dx[node] += forceX;
+                            dy[node] += forceY;
+                            dx[other] -= forceX;
+                            dy[other] -= forceY;
+                        }
+                    }
+                }
+            }
+
+            // Attraction le long des arêtes
+            for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+                int a = graph.getEdgeSource(edge), b = graph.getEdgeTarget(edge);
+                double deltaX = x[a] - x[b], deltaY = y[a] - y[b];
+                double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+                if (distance == 0) continue;
+
+                double force = distance * distance / K * edgeStrength[edge];
+                double forceX = deltaX / distance * force, forceY = deltaY / distance * force;
+                dx[a] -= forceX;
+                dy[a] -= forceY;
+                dx[b] += forceX;
+                dy[b] += forceY;
+            }
+
+            // Déplacements bornés par la température et maintenus dans le cadre
+            double temperature = side / 10 * (1 - (double) iteration / iterations);
+            for (int node = 0; node < nodeCount; node++) {
+                double length = Math.sqrt(dx[node] * dx[node] + dy[node] * dy[node]);
+                if (length == 0) continue;
+
+                double step = Math.min(length, temperature);
+                x[node] = Math.min(side, Math.max(0, x[node] + dx[node] / length * step));
+                y[node] = Math.min(side, Math.max(0, y[node] + dy[node] / length * step));
+            }
+        }
+        return this;
+    }
+
+    public WeightedGraph getGraph() { return graph; }
+
+    public double getX(int node) { return x[node]; }
+
+    public double getY(int node) { return y[node]; }
+
+    // Force relative de chaque arête : entre 0.1 et 1 selon son poids rapporté au poids maximal
+    private double[] edgeStrengths() {
+        double maxWeight = 0;
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++)
+            maxWeight = Math.max(maxWeight, graph.getEdgeWeight(edge));
+
+        double[] strengths = new double[graph.getEdgeCount()];
+        for (int edge = 0; edge < strengths.length; edge++)
+            strengths[edge] = maxWeight > 0 ? 0.1 + 0.9 * graph.getEdgeWeight(edge) / maxWeight : 1.0;
+        return strengths;
+    }
+
+    private int cell(double coordinate, int gridSize) {
+        return Math.min(gridSize - 1, (int) (coordinate / CELL));
+    }
+}
@@ -0,0 +1,103 @@
+package org.analysis.render;
+
+import org.analysis.graph.CallGraph;
+import org.analysis.graph.CouplingIndex;
+import org.analysis.graph.WeightedGraph;
+
+import java.util.Arrays;
+
+// Vues réduites des graphes d'analyse pour l'affichage et l'export : regroupement des méthodes en classes
+// ou en paquetages (poids des arêtes additionnés, arêtes internes à un groupe abandonnées), puis filtrage
+// par niveau de détail, en ne gardant que les arêtes les plus lourdes.
+public final class GraphCollapser {
+
+    private GraphCollapser() {
+    }
+
+    // Vue du graphe d'analyse au niveau demandé : appels entre méthodes pondérés par leur multiplicité,
+    // ou couplage entre classes ou paquetages pondéré comme l'index de couplage
+    public static WeightedGraph collapse(CallGraph callGraph, CouplingIndex couplingIndex, DetailLevel level) {
+        if (level == DetailLevel.METHOD)
+            return methodGraph(callGraph);
+
+        WeightedGraph classGraph = classGraph(couplingIndex);
+        return level == DetailLevel.CLASS ? classGraph : collapse(classGraph, DetailLevel.CLASS, level);
+    }
+
+    // Appels de méthodes et de constructeurs, les deux sens d'une paire réunis en une arête
+    public static WeightedGraph methodGraph(CallGraph callGraph) {
+        WeightedGraph graph = new WeightedGraph();
+        for (int node = 0; node < callGraph.getNodeIdBound(); node++)
+            if (callGraph.isPresent(node))
+                graph.addNode(callGraph.getNodeName(node));
+
+        for (int edge = 0; edge < callGraph.getEdgeCount(); edge++) {
+            int source = callGraph.getEdgeSource(edge), target = callGraph.getEdgeTarget(edge);
+            if (callGraph.getEdgeKind(edge).isCall() && source != target)
+                graph.addWeight(callGraph.getNodeName(source), callGraph.getNodeName(target), callGraph.getEdgeMultiplicity(edge));
+        }
+        return graph;
+    }
+
+    // Paires de classes couplées, pondérées par le poids des arcs qui les relient
+    public static WeightedGraph classGraph(CouplingIndex couplingIndex) {
+        WeightedGraph graph = new WeightedGraph();
+        for (int classId = 0; classId < couplingIndex.getClassCount(); classId++)
+            graph.addNode(couplingIndex.getClassName(classId));
+
+        couplingIndex.forEachPair((classA, classB, count) -> {
+            if (classA != classB)
+                graph.addEdge(couplingIndex.getClassName(classA), couplingIndex.getClassName(classB), count);
+        });
+        return graph;
+    }
+
+    // Regroupe les noeuds d'un graphe du niveau from en noeuds du niveau to
+    public static WeightedGraph collapse(WeightedGraph graph, DetailLevel from, DetailLevel to) {
+        if (from == to)
+            return graph;
+
+        WeightedGraph collapsed = new WeightedGraph();
+        String[] groupOf = new String[graph.getNodeCount()];
+        for (int node = 0; node < groupOf.length; node++) {
+            groupOf[node] = to.nodeOf(graph.getNodeName(node), from);
+            collapsed.addNode(groupOf[node]);
+        }
+
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            String groupA = groupOf[graph.getEdgeSource(edge)], groupB = groupOf[graph.getEdgeTarget(edge)];
+            if (!groupA.equals(groupB))
+                collapsed.addWeight(groupA, groupB, graph.getEdgeWeight(edge));
+        }
+        return collapsed;
+    }
+
+    // Niveau de détail : arêtes d'un poids au moins égal au minimum, limitées aux maxEdges plus lourdes
+    // (0 pour ne pas limiter), puis noeuds reliés par les arêtes retenues
+    public static WeightedGraph filter(WeightedGraph graph, double minimumWeight, int maxEdges) {
+        Integer[] heaviest = new Integer[graph.getEdgeCount()];
+        int kept = 0;
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++)
+            if (graph.getEdgeWeight(edge) >= minimumWeight)
+                heaviest[kept++] = edge;
+
+        // Tri par poids décroissant, à poids égal dans l'ordre des arêtes
+        Arrays.sort(heaviest, 0, kept, (a, b) -> {
+            int byWeight = Double.compare(graph.getEdgeWeight(b), graph.getEdgeWeight(a));
+            return byWeight != 0 ? byWeight : Integer.compare(a, b);
+        });
+        if (maxEdges > 0 && kept > maxEdges)
+            kept = maxEdges;
+
+        // Les arêtes retenues reprennent leur ordre d'origine, pour une sortie stable
+        int[] edges = new int[kept];
+        for (int i = 0; i < kept; i++)
+            edges[i] = heaviest[i];
+        Arrays.sort(edges);
+
+        WeightedGraph filtered = new WeightedGraph();
+        for (int edge : edges)
+            filtered.addEdge(graph.getNodeName(graph.getEdgeSource(edge)), graph.getNodeName(graph.getEdgeTarget(edge)), graph.getEdgeWeight(edge));
+        return filtered;
+    }
+}
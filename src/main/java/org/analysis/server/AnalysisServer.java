@@ -0,0 +1,215 @@
+package org.analysis.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.analysis.core.AnalysisSession;
+import org.analysis.graph.CouplingLevel;
+import org.analysis.metrics.AnalysisMetrics;
+import org.analysis.metrics.Phase;
+import org.analysis.metrics.PhaseTimer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.analysis.export.AnalysisExporter.json;
+
+// Serveur HTTP local des requêtes sur l'analyse d'un projet, sans service externe (com.sun.net.httpserver).
+// L'analyse est chargée une fois à la construction et les requêtes sont servies par les index en mémoire de QueryIndex,
+// en JSON, par un nombre fixe de threads. Au-delà de -Danalysis.server.queue requêtes en attente, le thread
+// d'acceptation traite lui-même la requête, ce qui ralentit l'acceptation plutôt que de laisser croître la file.
+//   GET /status                                      taille de l'analyse servie
+//   GET /classes                                     types du projet
+//   GET /coupling?a=A&b=B[&level=class|package|subsystem]
+//   GET /neighbours?class=C[&limit=n]                classes couplées, des plus couplées aux moins couplées
+//   GET /methods?class=C                             méthodes de la classe présentes dans le graphe d'appel
+//   GET /callgraph?method=M                          appelants et appelés (signature complète ou nom sans paramètres)
+//   GET /dendrogram
+//   GET /modules[?cp=v]                              modules dont le couplage interne atteint v (0 par défaut)
+//   GET /module?class=C[&cp=v]                       modules qui contiennent la classe, du plus petit au plus grand
+// Un paramètre invalide donne 400, un nom ou un chemin inconnu 404, une autre méthode que GET 405.
+public class AnalysisServer implements Closeable {
+
+    private static final int QUEUE_CAPACITY = Integer.getInteger("analysis.server.queue", 1024);
+
+    private final QueryIndex index;
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    public AnalysisServer(AnalysisSession session, InetSocketAddress address, int threadCount) throws IOException {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("Le nombre de threads doit être positif : " + threadCount);
+
+        long start = System.nanoTime();
+        index = new QueryIndex(session);
+        System.out.printf("Index du serveur construits en %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-server-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // Sans TCP_NODELAY, les petites réponses (en-têtes puis corps) attendent l'acquittement retardé du client
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(address, 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Adresse effective, port choisi par le système compris
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // Attend l'arrêt du serveur
+    public void awaitTermination() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        stopped.countDown();
+    }
+
+    // Répond à une requête ; la latence de chaque réponse est enregistrée dans les mesures du serveur
+    private void handle(HttpExchange exchange) throws IOException {
+        try (PhaseTimer timer = AnalysisMetrics.getInstance().start(Phase.SERVER)) {
+            int status = 200;
+            String body;
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    status = 405;
+                    body = error("Méthode non prise en charge : " + exchange.getRequestMethod());
+                } else {
+                    body = query(exchange.getRequestURI().getPath(), parameters(exchange.getRequestURI().getRawQuery()));
+                }
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = error(e.getMessage());
+            } catch (NoSuchElementException e) {
+                status = 404;
+                body = error(e.getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                body = error(e.toString());
+            }
+
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+            timer.end();
+            timer.recordLatency();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String query(String path, Map<String, String> parameters) {
+        switch (path) {
+            case "/status":
+                return index.status();
+            case "/classes":
+                return index.classes();
+            case "/coupling":
+                return index.coupling(CouplingLevel.fromLabel(parameters.getOrDefault("level", "class")),
+                        required(parameters, "a"), required(parameters, "b"));
+            case "/neighbours":
+                return index.neighbours(required(parameters, "class"), count(parameters, "limit"));
+            case "/methods":
+                return index.methods(required(parameters, "class"));
+            case "/callgraph":
+                return index.callGraph(required(parameters, "method"));
+            case "/dendrogram":
+                return index.dendrogram();
+            case "/modules":
+                return index.modules(number(parameters, "cp"));
+            case "/module":
+                return index.modulesOf(required(parameters, "class"), number(parameters, "cp"));
+            default:
+                throw new NoSuchElementException("Requête inconnue : " + path);
+        }
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty())
+            return parameters;
+
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            parameters.put(decode(name), decode(value));
+        }
+        return parameters;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty())
+            throw new IllegalArgumentException("Paramètre manquant : " + name);
+        return value;
+    }
+
+    // Entier positif ou nul, 0 en l'absence du paramètre
+    private static int count(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null)
+            return 0;
+        try {
+            int count = Integer.parseInt(value);
+            if (count >= 0)
+                return count;
+        } catch (NumberFormatException ignored) {
+            // signalé ci-dessous
+        }
+        throw new IllegalArgumentException("Entier positif ou nul attendu pour " + name + " : " + value);
+    }
+
+    // Valeur numérique, 0 en l'absence du paramètre
+    private static double number(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null)
+            return 0.0;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valeur numérique attendue pour " + name + " : " + value);
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + json(String.valueOf(message)) + "}";
+    }
+}
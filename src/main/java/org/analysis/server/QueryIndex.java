@@ -0,0 +1,298 @@
+package org.analysis.server;
+
+import org.analysis.clustering.Cluster;
+import org.analysis.core.AnalysisSession;
+import org.analysis.export.AnalysisExporter;
+import org.analysis.graph.CallGraph;
+import org.analysis.graph.CouplingHierarchy;
+import org.analysis.graph.CouplingIndex;
+import org.analysis.graph.CouplingLevel;
+import org.analysis.graph.DependencyKind;
+import org.analysis.symbol.ProjectTypes;
+import org.analysis.symbol.Signatures;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+import static org.analysis.export.AnalysisExporter.json;
+import static org.analysis.export.AnalysisExporter.jsonArray;
+import static org.analysis.export.AnalysisExporter.number;
+
+// Index en mémoire des réponses du serveur, construits une fois à partir de la session : appelants et appelés de
+// chaque méthode (en CSR), méthodes par classe et par nom sans paramètres, index de couplage, hiérarchie et
+// dendrogramme déjà écrit en JSON. Les modules d'une valeur de CP sont calculés à la première demande puis gardés,
+// pour les AnalysisSession.MODULE_CACHE_SIZE dernières valeurs demandées.
+// Rien n'est modifié après la construction, hors table des modules : les lectures concurrentes sont sûres.
+// Les réponses sont des chaînes JSON ; un nom inconnu lève NoSuchElementException, un paramètre invalide
+// IllegalArgumentException.
+class QueryIndex {
+
+    private static final DependencyKind[] KINDS = DependencyKind.values();
+
+    private final AnalysisSession session;
+    private final String projectPath;
+    private final int version;
+
+    private final CouplingIndex couplingIndex;
+    private final CouplingHierarchy hierarchy;
+    private final ProjectTypes projectTypes;
+    private final List<String> classNames;
+
+    // Nom de chaque méthode présente par identifiant du graphe d'appel, null pour un identifiant libre
+    private final String[] methodNames;
+    private final Map<String, Integer> methodIds = new HashMap<>();
+    private final Map<String, List<Integer>> overloads = new HashMap<>();
+    private final Map<String, List<Integer>> methodsByClass = new HashMap<>();
+    private final int edgeCount;
+
+    // Arcs sortants et entrants de chaque méthode : extrémité opposée, nature et multiplicité
+    private final Adjacency callees;
+    private final Adjacency callers;
+
+    private final String dendrogramJson;
+    // Modules des dernières valeurs de CP demandées, les moins récemment utilisées étant abandonnées
+    private final Map<Double, ModuleIndex> modulesByCoupling = AnalysisSession.newModuleCache();
+
+    QueryIndex(AnalysisSession session) throws IOException {
+        this.session = session;
+        synchronized (session) {
+            CallGraph callGraph = session.getCallGraph();
+            projectPath = session.getAnalyzer().getProjectPath();
+            couplingIndex = session.getCouplingIndex();
+            hierarchy = session.getCouplingHierarchy();
+            projectTypes = session.getAnalyzer().getProjectTypes();
+            classNames = new ArrayList<>(projectTypes.getNames());
+            Collections.sort(classNames);
+
+            methodNames = new String[callGraph.getNodeIdBound()];
+            for (int node = 0; node < methodNames.length; node++) {
+                if (!callGraph.isPresent(node)) continue;
+                String name = callGraph.getNodeName(node);
+                methodNames[node] = name;
+                methodIds.put(name, node);
+                int parameters = name.indexOf('(');
+                if (parameters >= 0) {
+                    overloads.computeIfAbsent(name.substring(0, parameters), key -> new ArrayList<>()).add(node);
+                    methodsByClass.computeIfAbsent(Signatures.classNameOf(name), key -> new ArrayList<>()).add(node);
+                }
+            }
+
+            edgeCount = callGraph.getEdgeCount();
+            int[] sources = new int[edgeCount], targets = new int[edgeCount], kinds = new int[edgeCount], multiplicities = new int[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                sources[e] = callGraph.getEdgeSource(e);
+                targets[e] = callGraph.getEdgeTarget(e);
+                kinds[e] = callGraph.getEdgeKind(e).ordinal();
+                multiplicities[e] = callGraph.getEdgeMultiplicity(e);
+            }
+            callees = new Adjacency(methodNames.length, sources, targets, kinds, multiplicities);
+            callers = new Adjacency(methodNames.length, targets, sources, kinds, multiplicities);
+
+            StringWriter dendrogram = new StringWriter();
+            new AnalysisExporter(new PrintWriter(dendrogram), AnalysisExporter.Format.JSON).writeDendrogram(session.getDendrogram());
+            dendrogramJson = dendrogram.toString();
+            version = session.getAnalyzer().getVersion();
+        }
+    }
+
+    // Taille de l'analyse servie
+    String status() {
+        return "{\"project\":" + json(projectPath) + ",\"version\":" + version + ",\"classes\":" + classNames.size()
+                + ",\"methods\":" + methodIds.size() + ",\"edges\":" + edgeCount + ",\"totalEdges\":" + couplingIndex.getTotalEdges() + "}";
+    }
+
+    // Types déclarés dans les sources du projet, par ordre alphabétique
+    String classes() {
+        return jsonArray(classNames);
+    }
+
+    // Couplage entre deux groupes du niveau ; au niveau des classes, un nom simple non ambigu est accepté
+    String coupling(CouplingLevel level, String groupA, String groupB) {
+        groupA = resolveGroup(level, groupA);
+        groupB = resolveGroup(level, groupB);
+        CouplingIndex index = hierarchy.getIndex(level);
+        int count = index.getCount(groupA, groupB);
+        return "{\"level\":" + json(level.getLabel()) + ",\"a\":" + json(groupA) + ",\"b\":" + json(groupB)
+                + ",\"count\":" + count + ",\"coupling\":" + number(count / (double) index.getTotalEdges()) + "}";
+    }
+
+    // Classes couplées à la classe, des plus couplées aux moins couplées, dans la limite donnée (0 : toutes)
+    String neighbours(String className, int limit) {
+        String resolved = resolveClass(className);
+        int classId = couplingIndex.getClassId(resolved);
+        int count = classId < 0 ? 0 : couplingIndex.getNeighbourCount(classId);
+        long[] neighbours = new long[count];
+        if (classId >= 0) {
+            int[] next = {0};
+            // Poids décroissant puis identifiant croissant : poids complémenté dans les bits de poids fort
+            couplingIndex.forEachNeighbour(classId, (neighbourId, weight) ->
+                    neighbours[next[0]++] = ((long) (Integer.MAX_VALUE - weight) << 32) | neighbourId);
+            Arrays.sort(neighbours);
+        }
+
+        StringBuilder builder = new StringBuilder("{\"class\":").append(json(resolved)).append(",\"neighbours\":[");
+        int shown = limit > 0 ? Math.min(limit, count) : count;
+        for (int i = 0; i < shown; i++) {
+            int neighbourId = (int) neighbours[i], weight = Integer.MAX_VALUE - (int) (neighbours[i] >>> 32);
+            builder.append(i == 0 ? "" : ",").append("{\"class\":").append(json(couplingIndex.getClassName(neighbourId)))
+                    .append(",\"count\":").append(weight)
+                    .append(",\"coupling\":").append(number(weight / (double) couplingIndex.getTotalEdges())).append('}');
+        }
+        return builder.append("]}").toString();
+    }
+
+    // Méthodes et constructeurs de la classe présents dans le graphe d'appel
+    String methods(String className) {
+        List<Integer> methods = methodsByClass.getOrDefault(resolveClass(className), Collections.emptyList());
+        List<String> names = new ArrayList<>(methods.size());
+        for (int node : methods)
+            names.add(methodNames[node]);
+        Collections.sort(names);
+        return jsonArray(names);
+    }
+
+    // Appelants et appelés de la méthode, désignée par sa signature complète ou par son nom sans paramètres
+    // (toutes les surcharges)
+    String callGraph(String methodName) {
+        Integer exact = methodIds.get(methodName);
+        List<Integer> nodes = exact != null ? Collections.singletonList(exact) : overloads.get(methodName);
+        if (nodes == null)
+            throw new NoSuchElementException("Méthode inconnue : " + methodName);
+
+        StringBuilder builder = new StringBuilder("{\"methods\":[");
+        for (int i = 0; i < nodes.size(); i++) {
+            int node = nodes.get(i);
+            builder.append(i == 0 ? "" : ",").append("{\"method\":").append(json(methodNames[node])).append(",\"callers\":");
+            callers.append(node, builder);
+            builder.append(",\"callees\":");
+            callees.append(node, builder);
+            builder.append('}');
+        }
+        return builder.append("]}").toString();
+    }
+
+    String dendrogram() {
+        return dendrogramJson;
+    }
+
+    // Modules dont le couplage interne atteint la valeur de CP, numérotés à partir de 1
+    String modules(double minimumCoupling) {
+        return moduleIndex(minimumCoupling).json;
+    }
+
+    // Modules qui contiennent la classe, du plus petit au plus grand, avec leur numéro dans la liste des modules
+    String modulesOf(String className, double minimumCoupling) {
+        String resolved = resolveClass(className);
+        ModuleIndex index = moduleIndex(minimumCoupling);
+        StringBuilder builder = new StringBuilder("{\"class\":").append(json(resolved))
+                .append(",\"cp\":").append(number(minimumCoupling)).append(",\"modules\":[");
+        String separator = "";
+        for (int module : index.modulesByClass.getOrDefault(resolved, Collections.emptyList())) {
+            builder.append(separator).append("{\"module\":").append(module + 1).append(',').append(index.modules.get(module));
+            separator = ",";
+        }
+        return builder.append("]}").toString();
+    }
+
+    // Nom binaire d'une classe du projet, désignée par son nom binaire ou par son nom simple s'il n'est pas ambigu
+    private String resolveClass(String className) {
+        String resolved = projectTypes.resolve(className);
+        if (!projectTypes.contains(resolved))
+            throw new NoSuchElementException("Classe inconnue : " + className);
+        return resolved;
+    }
+
+    // Classe du projet, ou groupe connu du niveau des paquetages ou des sous-systèmes
+    private String resolveGroup(CouplingLevel level, String groupName) {
+        if (level == CouplingLevel.CLASS)
+            return resolveClass(groupName);
+        if (hierarchy.getGroupId(level, groupName) < 0)
+            throw new NoSuchElementException("Groupe inconnu au niveau " + level.getLabel() + " : " + groupName);
+        return groupName;
+    }
+
+    // Modules de la valeur de CP, calculés hors du verrou de la table : deux requêtes simultanées sur une même
+    // valeur absente peuvent les calculer toutes les deux, la seconde remplaçant la première
+    private ModuleIndex moduleIndex(double minimumCoupling) {
+        synchronized (modulesByCoupling) {
+            ModuleIndex modules = modulesByCoupling.get(minimumCoupling);
+            if (modules != null)
+                return modules;
+        }
+
+        ModuleIndex modules;
+        try {
+            modules = new ModuleIndex(session.getModules(minimumCoupling));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (modulesByCoupling) {
+            modulesByCoupling.put(minimumCoupling, modules);
+        }
+        return modules;
+    }
+
+    // Modules d'une valeur de CP : réponse complète déjà écrite, description de chaque module
+    // et modules de chaque classe par taille croissante
+    private static final class ModuleIndex {
+        private final String json;
+        private final List<String> modules = new ArrayList<>();
+        private final Map<String, List<Integer>> modulesByClass = new HashMap<>();
+
+        ModuleIndex(Set<Cluster> clusters) throws IOException {
+            StringWriter writer = new StringWriter();
+            new AnalysisExporter(new PrintWriter(writer), AnalysisExporter.Format.JSON).writeModules(clusters);
+            json = writer.toString();
+
+            List<Integer> sizes = new ArrayList<>(clusters.size());
+            for (Cluster module : clusters) {
+                for (String className : module.getClasses())
+                    modulesByClass.computeIfAbsent(className, key -> new ArrayList<>()).add(modules.size());
+                sizes.add(module.getClasses().size());
+                modules.add("\"coupling\":" + number(module.getAVGCoupling()) + ",\"size\":" + module.getClasses().size()
+                        + ",\"classes\":" + jsonArray(module.getClasses()) + "}");
+            }
+            Comparator<Integer> bySize = Comparator.comparingInt(sizes::get);
+            for (List<Integer> modulesOfClass : modulesByClass.values())
+                modulesOfClass.sort(bySize.thenComparingInt(module -> module));
+        }
+    }
+
+    // Arcs d'un sens en CSR : pour chaque méthode, extrémité opposée, nature et multiplicité de ses arcs
+    private final class Adjacency {
+        private final int[] offsets;
+        private final int[] ends;
+        private final int[] kinds;
+        private final int[] multiplicities;
+
+        Adjacency(int nodeCount, int[] from, int[] to, int[] edgeKinds, int[] edgeMultiplicities) {
+            offsets = new int[nodeCount + 1];
+            for (int node : from)
+                offsets[node + 1]++;
+            for (int node = 0; node < nodeCount; node++)
+                offsets[node + 1] += offsets[node];
+
+            ends = new int[from.length];
+            kinds = new int[from.length];
+            multiplicities = new int[from.length];
+            int[] fill = Arrays.copyOf(offsets, nodeCount);
+            for (int e = 0; e < from.length; e++) {
+                int slot = fill[from[e]]++;
+                ends[slot] = to[e];
+                kinds[slot] = edgeKinds[e];
+                multiplicities[slot] = edgeMultiplicities[e];
+            }
+        }
+
+        void append(int node, StringBuilder builder) {
+            builder.append('[');
+            for (int i = offsets[node]; i < offsets[node + 1]; i++)
+                builder.append(i == offsets[node] ? "" : ",").append("{\"method\":").append(json(methodNames[ends[i]]))
+                        .append(",\"kind\":").append(json(KINDS[kinds[i]].getLabel())).append(",\"count\":").append(multiplicities[i]).append('}');
+            builder.append(']');
+        }
+    }
+}
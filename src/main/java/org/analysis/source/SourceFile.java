@@ -0,0 +1,19 @@
+package org.analysis.source;
+
+import java.io.File;
+
+// Contenu décodé d'un fichier source
+public class SourceFile {
+
+    private final File file;
+    private final char[] content;
+
+    public SourceFile(File file, char[] content) {
+        this.file = file;
+        this.content = content;
+    }
+
+    public File getFile() { return file; }
+
+    public char[] getContent() { return content; }
+}
@@ -0,0 +1,101 @@
+package org.analysis.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Chargement anticipé des sources : un thread découvre et lit les fichiers pendant que le thread appelant
+// les traite. La file entre les deux est bornée, au plus readAhead fichiers lus attendent d'être traités.
+public class SourceLoader {
+
+    private static final SourceFile END = new SourceFile(null, null);
+
+    private final SourceScanner scanner;
+    private final List<File> files;
+    private final int readAhead;
+
+    // Découverte au fil de l'eau : les fichiers sont lus dès que le parcours les trouve
+    public SourceLoader(SourceScanner scanner, int readAhead) {
+        this(scanner, null, readAhead);
+    }
+
+    public SourceLoader(List<File> files, int readAhead) {
+        this(null, files, readAhead);
+    }
+
+    private SourceLoader(SourceScanner scanner, List<File> files, int readAhead) {
+        if (readAhead < 1)
+            throw new IllegalArgumentException("La lecture anticipée doit porter sur au moins un fichier : " + readAhead);
+
+        this.scanner = scanner;
+        this.files = files;
+        this.readAhead = readAhead;
+    }
+
+    // Transmet chaque source au consumer, dans l'ordre de découverte, depuis le thread appelant
+    public void forEach(Consumer<SourceFile> consumer) {
+        BlockingQueue<SourceFile> queue = new ArrayBlockingQueue<>(readAhead);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread producer = new Thread(() -> {
+            SourceReader reader = new SourceReader();
+            Consumer<Path> load = path -> {
+                try {
+                    queue.put(new SourceFile(path.toFile(), reader.read(path)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    throw new CancellationSignal();
+                }
+            };
+
+            try {
+                if (scanner != null)
+                    scanner.scan(load);
+                else
+                    for (File file : files)
+                        load.accept(file.toPath());
+            } catch (CancellationSignal e) {
+                return;
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+
+            try {
+                queue.put(END);
+            } catch (InterruptedException ignored) {
+                // Le thread appelant a abandonné le chargement
+            }
+        }, "source-loader");
+        producer.setDaemon(true);
+        producer.start();
+
+        try {
+            for (SourceFile source = queue.take(); source != END; source = queue.take())
+                consumer.accept(source);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            producer.interrupt();
+        }
+
+        if (failure.get() != null)
+            throw new RuntimeException("Échec du chargement des sources", failure.get());
+    }
+
+    // Interruption du thread de lecture quand le thread appelant s'arrête avant la fin
+    private static class CancellationSignal extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CancellationSignal() {
+            super(null, null, false, false);
+        }
+    }
+}
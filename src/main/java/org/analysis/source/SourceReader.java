@@ -0,0 +1,67 @@
+package org.analysis.source;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Lit les fichiers en UTF-8 par blocs dans des tampons réutilisés d'un fichier à l'autre : seul le tableau
+// de caractères final, à la taille exacte du contenu, est alloué pour chaque fichier. Non partageable entre threads.
+public class SourceReader {
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final ByteBuffer bytes = ByteBuffer.allocate(BLOCK_SIZE);
+    private CharBuffer chars = CharBuffer.allocate(BLOCK_SIZE);
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    public char[] read(Path path) throws IOException {
+        decoder.reset();
+        bytes.clear();
+        chars.clear();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // En UTF-8, un fichier ne donne jamais plus de caractères que d'octets
+            ensureCapacity((int) Math.min(Integer.MAX_VALUE - 8, channel.size()));
+
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                endOfInput = channel.read(bytes) < 0;
+                bytes.flip();
+                CoderResult result = decoder.decode(bytes, chars, endOfInput);
+                while (result.isOverflow()) {
+                    ensureCapacity(chars.capacity() * 2);
+                    result = decoder.decode(bytes, chars, endOfInput);
+                }
+                bytes.compact();
+            }
+            while (decoder.flush(chars).isOverflow())
+                ensureCapacity(chars.capacity() * 2);
+        }
+
+        // Une marque d'ordre des octets en tête de fichier n'appartient pas au source
+        char[] buffer = chars.array();
+        int length = chars.position();
+        int start = length > 0 && buffer[0] == '\uFEFF' ? 1 : 0;
+        return Arrays.copyOfRange(buffer, start, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= chars.capacity())
+            return;
+
+        CharBuffer larger = CharBuffer.allocate(capacity);
+        chars.flip();
+        larger.put(chars);
+        chars = larger;
+    }
+}
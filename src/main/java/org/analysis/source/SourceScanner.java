@@ -0,0 +1,103 @@
+package org.analysis.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Découverte des sources Java d'un dossier par parcours NIO : seuls les fichiers réguliers se terminant par ".java"
+// sont retenus, filtrés par des globs d'inclusion et d'exclusion appliqués au chemin relatif au dossier racine
+// (par exemple "pkg1/**" ou "**/generated/**"). Un dossier exclu n'est pas parcouru.
+public class SourceScanner {
+
+    private static final String JAVA_SUFFIX = ".java";
+
+    private final Path root;
+    private final List<PathMatcher> includes = new ArrayList<>();
+    private final List<PathMatcher> excludes = new ArrayList<>();
+
+    public SourceScanner(Path root) {
+        this(root, Collections.emptyList(), Collections.emptyList());
+    }
+
+    public SourceScanner(Path root, List<String> includeGlobs, List<String> excludeGlobs) {
+        this.root = root;
+        FileSystem fileSystem = root.getFileSystem();
+        for (String glob : includeGlobs)
+            includes.add(fileSystem.getPathMatcher("glob:" + glob));
+        for (String glob : excludeGlobs)
+            excludes.add(fileSystem.getPathMatcher("glob:" + glob));
+    }
+
+    // Filtres lus dans -Danalysis.include et -Danalysis.exclude (globs séparés par des virgules)
+    public static SourceScanner fromSystemProperties(Path root) {
+        return new SourceScanner(root, globs(System.getProperty("analysis.include")), globs(System.getProperty("analysis.exclude")));
+    }
+
+    public static List<String> globs(String value) {
+        List<String> globs = new ArrayList<>();
+        if (value != null)
+            for (String glob : value.split(","))
+                if (!glob.trim().isEmpty())
+                    globs.add(glob.trim());
+        return globs;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    // Liste les sources dans l'ordre du parcours
+    public List<File> scan() {
+        List<File> files = new ArrayList<>();
+        scan(path -> files.add(path.toFile()));
+        return files;
+    }
+
+    // Transmet chaque source au consumer dès qu'elle est découverte
+    public void scan(Consumer<Path> consumer) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                    return !directory.equals(root) && isExcluded(directory) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile() && isSource(file))
+                        consumer.accept(file);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isSource(Path file) {
+        if (!file.getFileName().toString().endsWith(JAVA_SUFFIX) || isExcluded(file))
+            return false;
+        if (includes.isEmpty())
+            return true;
+
+        Path relative = root.relativize(file);
+        for (PathMatcher include : includes)
+            if (include.matches(relative))
+                return true;
+        return false;
+    }
+
+    private boolean isExcluded(Path path) {
+        Path relative = root.relativize(path);
+        for (PathMatcher exclude : excludes)
+            if (exclude.matches(relative))
+                return true;
+        return false;
+    }
+}
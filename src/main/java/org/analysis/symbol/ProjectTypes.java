@@ -0,0 +1,53 @@
+package org.analysis.symbol;
+
+import java.util.*;
+
+// Types déclarés dans les sources du projet, désignés par leur nom binaire : seules leurs méthodes sont
+// retenues comme cibles d'appel. Les noms simples sont indexés pour retrouver un type saisi sans son paquetage.
+public class ProjectTypes {
+
+    private final Set<String> names = new LinkedHashSet<>();
+    private final Map<String, List<String>> namesBySimpleName = new HashMap<>();
+
+    public void add(String typeName) {
+        if (names.add(typeName))
+            namesBySimpleName.computeIfAbsent(Signatures.simpleNameOf(typeName), k -> new ArrayList<>(1)).add(typeName);
+    }
+
+    public boolean contains(String typeName) {
+        return names.contains(typeName);
+    }
+
+    // Types dans l'ordre des fichiers puis des déclarations
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(names);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    // Nom binaire du type désigné par son nom binaire ou, s'il est unique, par son nom simple ;
+    // un nom inconnu est retourné tel quel
+    public String resolve(String name) {
+        if (names.contains(name))
+            return name;
+
+        List<String> candidates = namesBySimpleName.get(name);
+        if (candidates == null)
+            return name;
+        if (candidates.size() > 1)
+            throw new IllegalArgumentException("Nom de classe ambigu : " + name + " " + candidates);
+        return candidates.get(0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ProjectTypes && names.equals(((ProjectTypes) o).names);
+    }
+
+    @Override
+    public int hashCode() {
+        return names.hashCode();
+    }
+}
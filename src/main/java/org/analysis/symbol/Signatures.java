@@ -0,0 +1,61 @@
+package org.analysis.symbol;
+
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+
+// Identifiants textuels des types et des méthodes, construits à partir des bindings JDT.
+// Un type est désigné par son nom binaire ("paquetage.Externe$Interne"), une méthode par
+// "paquetage.Classe.methode(type1,type2)" avec les types des paramètres effacés : les surcharges
+// et les classes homonymes de paquetages différents ne sont plus confondues.
+public final class Signatures {
+
+    private Signatures() {
+    }
+
+    // Identifiant de la méthode déclarée (et non de son instanciation générique) désignée par le binding
+    public static String methodKey(IMethodBinding binding) {
+        IMethodBinding declaration = binding.getMethodDeclaration();
+        StringBuilder key = new StringBuilder(64)
+                .append(typeName(declaration.getDeclaringClass()))
+                .append('.')
+                .append(declaration.getName())
+                .append('(');
+
+        ITypeBinding[] parameterTypes = declaration.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) key.append(',');
+            key.append(parameterTypeName(parameterTypes[i].getErasure()));
+        }
+        return key.append(')').toString();
+    }
+
+    // Nom binaire de l'effacement du type, ou son nom qualifié quand le binding n'en a pas (type non résolu)
+    public static String typeName(ITypeBinding binding) {
+        ITypeBinding erasure = binding.getErasure();
+        String binaryName = erasure.getBinaryName();
+        return binaryName != null ? binaryName : erasure.getQualifiedName();
+    }
+
+    // Un type introuvable (binding reconstitué) est désigné par son seul nom simple, le paquetage supposé par JDT pouvant être faux
+    private static String parameterTypeName(ITypeBinding erasure) {
+        return erasure.isRecovered() ? erasure.getName() : erasure.getQualifiedName();
+    }
+
+    // Type déclarant d'une méthode ou d'un attribut : préfixe avant le dernier point précédant les paramètres
+    public static String classNameOf(String memberKey) {
+        int parameters = memberKey.indexOf('(');
+        int dot = memberKey.lastIndexOf('.', parameters < 0 ? memberKey.length() : parameters);
+        return dot < 0 ? "" : memberKey.substring(0, dot);
+    }
+
+    // Paquetage d'un type désigné par son nom binaire, vide pour le paquetage par défaut
+    public static String packageNameOf(String typeName) {
+        int dot = typeName.lastIndexOf('.');
+        return dot < 0 ? "" : typeName.substring(0, dot);
+    }
+
+    // Nom simple d'un type désigné par son nom binaire
+    public static String simpleNameOf(String typeName) {
+        return typeName.substring(Math.max(typeName.lastIndexOf('.'), typeName.lastIndexOf('$')) + 1);
+    }
+}
@@ -0,0 +1,140 @@
+package org.analysis.ui;
+
+import org.analysis.graph.CallGraph;
+import org.analysis.graph.WeightedGraph;
+import org.analysis.render.DetailLevel;
+import org.analysis.render.ForceLayout;
+import org.analysis.render.GraphCollapser;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.ui.layout.springbox.implementations.LinLog;
+
+// Conversion des graphes d'analyse en graphes GraphStream, uniquement pour l'affichage
+public class GraphRenderer {
+
+    // Au-delà de ce nombre de noeuds, l'affichage interactif est remplacé par une vue d'ensemble (-Danalysis.render.maxNodes)
+    public static final int MAX_INTERACTIVE_NODES = Integer.getInteger("analysis.render.maxNodes", 2000);
+
+    // Arêtes les plus lourdes gardées dans une vue d'ensemble (-Danalysis.render.maxEdges)
+    private static final int MAX_OVERVIEW_EDGES = Integer.getInteger("analysis.render.maxEdges", 5000);
+
+    // Noeuds étiquetés dans une vue d'ensemble, les plus lourds d'abord
+    private static final int OVERVIEW_LABELS = 200;
+
+    private static final String OVERVIEW_STYLESHEET = "graph { padding: 40px; } node { size: 6px; fill-color: #EB2; text-alignment: at-right; text-color: #222; } edge { fill-color: #999; }";
+
+    private static final String NODE_CSS = "text-alignment: at-right; text-padding: 3px, 2px; text-background-mode: rounded-box; text-background-color: #EB2; text-color: #222;";
+
+    // Construit le SingleGraph correspondant au graphe d'appel : seuls les appels de méthodes et de constructeurs
+    // sont affichés, avec les seules méthodes à leurs extrémités, un seul arc par paire quelle que soit la nature de l'appel
+    public static SingleGraph toSingleGraph(CallGraph graph) {
+        SingleGraph singleGraph = new SingleGraph("Call Graph");
+
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            if (!graph.getEdgeKind(e).isCall())
+                continue;
+
+            String caller = graph.getNodeName(graph.getEdgeSource(e));
+            String callee = graph.getNodeName(graph.getEdgeTarget(e));
+            if (singleGraph.getNode(caller) == null)
+                singleGraph.addNode(caller);
+            if (singleGraph.getNode(callee) == null)
+                singleGraph.addNode(callee);
+            if (singleGraph.getEdge(caller + "-" + callee) == null)
+                singleGraph.addEdge(caller + "-" + callee, caller, callee, true);
+        }
+
+        return singleGraph;
+    }
+
+    // Construit le SingleGraph correspondant au graphe de couplage, le poids servant d'étiquette
+    public static SingleGraph toSingleGraph(WeightedGraph graph) {
+        SingleGraph singleGraph = new SingleGraph("Coupling Graph");
+
+        for (int n = 0; n < graph.getNodeCount(); n++)
+            singleGraph.addNode(graph.getNodeName(n));
+
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            String nameA = graph.getNodeName(graph.getEdgeSource(e));
+            String nameB = graph.getNodeName(graph.getEdgeTarget(e));
+            Edge edge = singleGraph.addEdge(nameA + "->" + nameB, nameA, nameB);
+            edge.setAttribute("ui.label", String.format("%.3f", graph.getEdgeWeight(e)));
+        }
+
+        return singleGraph;
+    }
+
+    // Affiche le graphe d'appel avec une disposition LinLog
+    public static void show(CallGraph graph) {
+        SingleGraph callGraph = toSingleGraph(graph);
+        applyStyle(callGraph, "padding: 40px;");
+
+        LinLog layout = new LinLog();
+        layout.setStabilizationLimit(0.001); // Valeur de stabilisation
+        layout.setQuality(1.0); // Qualité de la disposition
+        callGraph.display().enableAutoLayout(layout);
+    }
+
+    // Affiche le graphe de couplage pondéré, ou une vue d'ensemble par paquetage s'il est trop grand
+    public static void show(WeightedGraph graph) {
+        if (graph.getNodeCount() > MAX_INTERACTIVE_NODES) {
+            showOverview(graph, DetailLevel.CLASS, "Coupling Graph");
+            return;
+        }
+
+        SingleGraph couplingGraph = toSingleGraph(graph);
+        applyStyle(couplingGraph, "padding: 10px;");
+
+        couplingGraph.display();
+    }
+
+    // Affiche une vue d'ensemble d'un graphe trop grand pour l'affichage interactif : noeuds regroupés au niveau
+    // supérieur tant qu'ils restent trop nombreux, arêtes les plus lourdes seulement, disposition calculée
+    // d'avance sans affichage, une seule feuille de style et pas de disposition automatique
+    public static void showOverview(WeightedGraph graph, DetailLevel level, String title) {
+        WeightedGraph view = graph;
+        while (view.getNodeCount() > MAX_INTERACTIVE_NODES && level != DetailLevel.PACKAGE) {
+            DetailLevel coarser = DetailLevel.values()[level.ordinal() + 1];
+            view = GraphCollapser.collapse(view, level, coarser);
+            level = coarser;
+        }
+        view = GraphCollapser.filter(view, 0, MAX_OVERVIEW_EDGES);
+
+        long start = System.nanoTime();
+        ForceLayout layout = new ForceLayout(view).run(ForceLayout.DEFAULT_ITERATIONS);
+        System.out.printf("Vue d'ensemble par %s : %d noeuds, %d arêtes, disposée en %d ms%n", level.getLabel(),
+                view.getNodeCount(), view.getEdgeCount(), (System.nanoTime() - start) / 1_000_000);
+
+        SingleGraph singleGraph = new SingleGraph(title);
+        for (int node = 0; node < view.getNodeCount(); node++)
+            singleGraph.addNode(view.getNodeName(node)).setAttribute("xyz", layout.getX(node), layout.getY(node), 0.0);
+        for (int edge = 0; edge < view.getEdgeCount(); edge++) {
+            String nameA = view.getNodeName(view.getEdgeSource(edge)), nameB = view.getNodeName(view.getEdgeTarget(edge));
+            singleGraph.addEdge(nameA + "->" + nameB, nameA, nameB);
+        }
+
+        // Étiquettes des noeuds les plus connectés
+        singleGraph.nodes()
+                .sorted((a, b) -> Integer.compare(b.getDegree(), a.getDegree()))
+                .limit(OVERVIEW_LABELS)
+                .forEach(node -> node.setAttribute("ui.label", node.getId()));
+
+        singleGraph.setAttribute("ui.stylesheet", OVERVIEW_STYLESHEET);
+        singleGraph.display(false);
+    }
+
+    // Style commun : étiquettes des noeuds, noeuds isolés masqués, poids de disposition des arcs
+    private static void applyStyle(SingleGraph graph, String graphStyle) {
+        graph.nodes().forEach(node -> {
+            node.setAttribute("ui.style", NODE_CSS);
+            node.setAttribute("ui.label", node.getId());
+            if (!node.neighborNodes().findAny().isPresent())
+                node.setAttribute("ui.hide");
+        });
+
+        graph.edges().forEach(edge -> edge.setAttribute("layout.weight", 20.0));
+
+        graph.setAttribute("ui.quality");
+        graph.setAttribute("ui.style", graphStyle);
+    }
+}
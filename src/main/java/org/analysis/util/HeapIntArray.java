@@ -0,0 +1,39 @@
+package org.analysis.util;
+
+import java.util.Arrays;
+
+// Tableau d'entiers sur le tas, doublé à chaque agrandissement
+public class HeapIntArray extends IntArray {
+
+    private int[] values;
+
+    public HeapIntArray(int length) {
+        values = new int[Math.max(1, length)];
+    }
+
+    @Override
+    public int get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public void set(int index, int value) {
+        values[index] = value;
+    }
+
+    @Override
+    public int length() {
+        return values.length;
+    }
+
+    @Override
+    public void ensureLength(int length) {
+        if (length > values.length)
+            values = Arrays.copyOf(values, Math.max(length, values.length << 1));
+    }
+
+    @Override
+    public void clear(int count) {
+        Arrays.fill(values, 0, count, 0);
+    }
+}
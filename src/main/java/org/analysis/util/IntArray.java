@@ -0,0 +1,29 @@
+package org.analysis.util;
+
+// Tableau d'entiers extensible, sur le tas (HeapIntArray) ou hors tas dans un fichier projeté en mémoire
+// (MappedIntArray). Les éléments ajoutés par un agrandissement valent 0.
+public abstract class IntArray {
+
+    public abstract int get(int index);
+
+    public abstract void set(int index, int value);
+
+    // Nombre d'éléments utilisables
+    public abstract int length();
+
+    // Agrandit le tableau à au moins length éléments en conservant son contenu
+    public abstract void ensureLength(int length);
+
+    // Remet à 0 les count premiers éléments
+    public abstract void clear(int count);
+
+    // Libère le stockage ; le tableau n'est plus utilisable
+    public void release() {
+    }
+
+    public int increment(int index, int delta) {
+        int value = get(index) + delta;
+        set(index, value);
+        return value;
+    }
+}
@@ -0,0 +1,145 @@
+package org.analysis.util;
+
+import java.util.Arrays;
+
+// Table int -> int à adressage ouvert (sondage linéaire), sans boxing, avec suppression par décalage arrière.
+// Les clés sont des identifiants positifs ou nuls, -1 marque une case vide.
+public class IntIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public IntIntHashMap() {
+        this(4);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new int[capacity];
+        Arrays.fill(keys, -1);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    // Retourne la valeur associée à la clé, ou defaultValue si elle est absente
+    public int get(int key, int defaultValue) {
+        int slot = slot(key);
+        while (keys[slot] != -1) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public void put(int key, int value) {
+        int slot = slot(key);
+        while (keys[slot] != -1) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * LOAD_FACTOR)
+            rehash(keys.length << 1);
+    }
+
+    // Ajoute delta à la valeur de la clé (0 si absente) et retourne la nouvelle valeur
+    public int addTo(int key, int delta) {
+        int slot = slot(key);
+        while (keys[slot] != -1) {
+            if (keys[slot] == key) return values[slot] += delta;
+            slot = (slot + 1) & mask;
+        }
+        put(key, delta);
+        return delta;
+    }
+
+    // Supprime la clé, retourne true si elle était présente
+    public boolean remove(int key) {
+        int slot = slot(key);
+        while (keys[slot] != -1) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Clés présentes, dans un ordre quelconque
+    public int[] keys() {
+        int[] result = new int[size];
+        int next = 0;
+        for (int key : keys)
+            if (key != -1)
+                result[next++] = key;
+        return result;
+    }
+
+    // Parcourt les entrées dans un ordre quelconque ; la table ne doit pas être modifiée pendant le parcours
+    public void forEach(EntryVisitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++)
+            if (keys[slot] != -1)
+                visitor.visit(keys[slot], values[slot]);
+    }
+
+    public interface EntryVisitor {
+        void visit(int key, int value);
+    }
+
+    // Recolle les entrées suivantes sur la case libérée pour ne pas casser les chaînes de sondage
+    private void shiftBack(int freed) {
+        int slot = freed;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (keys[slot] == -1)
+                break;
+
+            int home = slot(keys[slot]);
+            boolean movable = freed <= slot ? (home <= freed || home > slot) : (home <= freed && home > slot);
+            if (movable) {
+                keys[freed] = keys[slot];
+                values[freed] = values[slot];
+                freed = slot;
+            }
+        }
+        keys[freed] = -1;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        Arrays.fill(keys, -1);
+        values = new int[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == -1) continue;
+            int slot = slot(oldKeys[i]);
+            while (keys[slot] != -1)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.analysis.util;
+
+import java.util.Arrays;
+
+// Ensemble de long à adressage ouvert (sondage linéaire), sans boxing
+public class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    // La clé 0 sert de marqueur de case vide, sa présence est donc suivie à part
+    private long[] keys;
+    private boolean containsZero;
+    private int size;
+    private int mask;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // Ajoute la clé, retourne false si elle était déjà présente
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return false;
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        if (++size > keys.length * LOAD_FACTOR)
+            rehash(keys.length << 1);
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0)
+            return containsZero;
+
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        keys = new long[capacity];
+        mask = capacity - 1;
+
+        for (long key : oldKeys) {
+            if (key == 0) continue;
+            int slot = slot(key);
+            while (keys[slot] != 0)
+                slot = (slot + 1) & mask;
+            keys[slot] = key;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.analysis.util;
+
+import java.util.Arrays;
+
+// Table long -> int à adressage ouvert (sondage linéaire), sans boxing, avec suppression par décalage arrière
+public class LongIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    // La clé 0 sert de marqueur de case vide, sa valeur est donc conservée à part
+    private long[] keys;
+    private int[] values;
+    private boolean containsZero;
+    private int zeroValue;
+    private int size;
+    private int mask;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    // Retourne la valeur associée à la clé, ou defaultValue si elle est absente
+    public int get(long key, int defaultValue) {
+        if (key == 0)
+            return containsZero ? zeroValue : defaultValue;
+
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0)
+            return containsZero;
+
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!containsZero) size++;
+            containsZero = true;
+            zeroValue = value;
+            return;
+        }
+
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * LOAD_FACTOR)
+            rehash(keys.length << 1);
+    }
+
+    // Ajoute delta à la valeur de la clé (0 si absente) et retourne la nouvelle valeur
+    public int addTo(long key, int delta) {
+        int value = get(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    // Supprime la clé, retourne true si elle était présente
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!containsZero) return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Parcourt les entrées dans un ordre quelconque ; la table ne doit pas être modifiée pendant le parcours
+    public void forEach(EntryVisitor visitor) {
+        if (containsZero)
+            visitor.visit(0, zeroValue);
+        for (int slot = 0; slot < keys.length; slot++)
+            if (keys[slot] != 0)
+                visitor.visit(keys[slot], values[slot]);
+    }
+
+    public interface EntryVisitor {
+        void visit(long key, int value);
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    // Recolle les entrées suivantes sur la case libérée pour ne pas casser les chaînes de sondage
+    private void shiftBack(int freed) {
+        int slot = freed;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (keys[slot] == 0)
+                break;
+
+            int home = slot(keys[slot]);
+            boolean movable = freed <= slot ? (home <= freed || home > slot) : (home <= freed && home > slot);
+            if (movable) {
+                keys[freed] = keys[slot];
+                values[freed] = values[slot];
+                freed = slot;
+            }
+        }
+        keys[freed] = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = slot(oldKeys[i]);
+            while (keys[slot] != 0)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.analysis.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Tableau d'entiers hors tas, projeté en mémoire depuis un fichier par segments de taille fixe : un agrandissement
+// projette de nouveaux segments sans recopier les précédents, et le fichier reste creux tant qu'il n'est pas écrit.
+// Le contenu n'occupe pas le tas et n'est pas parcouru par le ramasse-miettes.
+public class MappedIntArray extends IntArray {
+
+    // 4 Mi entiers (16 Mo) par segment
+    private static final int SEGMENT_SHIFT = 22;
+    private static final int SEGMENT_LENGTH = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_LENGTH - 1;
+
+    private final File file;
+    private final FileChannel channel;
+    private IntBuffer[] segments = new IntBuffer[0];
+
+    // Crée ou tronque le fichier
+    public MappedIntArray(File file, int length) {
+        this.file = file;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible d'ouvrir " + file, e);
+        }
+        ensureLength(Math.max(1, length));
+    }
+
+    @Override
+    public int get(int index) {
+        return segments[index >>> SEGMENT_SHIFT].get(index & SEGMENT_MASK);
+    }
+
+    @Override
+    public void set(int index, int value) {
+        segments[index >>> SEGMENT_SHIFT].put(index & SEGMENT_MASK, value);
+    }
+
+    @Override
+    public int length() {
+        return segments.length << SEGMENT_SHIFT;
+    }
+
+    @Override
+    public void ensureLength(int length) {
+        int segmentCount = (int) (((long) length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        if (segmentCount <= segments.length)
+            return;
+
+        int previousCount = segments.length;
+        segments = Arrays.copyOf(segments, segmentCount);
+        try {
+            for (int s = previousCount; s < segmentCount; s++) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, (long) s << (SEGMENT_SHIFT + 2), SEGMENT_LENGTH << 2);
+                segments[s] = segment.order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible de projeter " + file, e);
+        }
+    }
+
+    @Override
+    public void clear(int count) {
+        for (int index = 0; index < count; index++)
+            set(index, 0);
+    }
+
+    // Ferme et supprime le fichier ; les pages projetées sont rendues au système quand les segments sont collectés
+    @Override
+    public void release() {
+        segments = new IntBuffer[0];
+        try {
+            channel.close();
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            System.err.println("Impossible de supprimer " + file + " : " + e.getMessage());
+        }
+    }
+}
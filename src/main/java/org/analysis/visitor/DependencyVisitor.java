@@ -0,0 +1,194 @@
+package org.analysis.visitor;
+
+import org.analysis.graph.DependencyKind;
+import org.analysis.parser.FileExtraction;
+import org.analysis.symbol.Signatures;
+import org.eclipse.jdt.core.dom.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Parcourt une unité de compilation en une seule passe et remplit son extraction : types nommés, méthodes
+// avec le nombre de lignes de leur corps, attributs, et dépendances de chaque méthode avec leur nature. Les invocations imbriquées (a(b())) sont visitées,
+// et les dépendances d'une méthode de classe anonyme sont attribuées à cette méthode et non à la méthode englobante.
+// Seules les dépendances situées dans une méthode sont retenues (pas celles des initialiseurs d'attributs).
+public class DependencyVisitor extends ASTVisitor {
+
+    private final FileExtraction extraction;
+
+    // Méthodes englobant le noeud courant, la plus proche en tête
+    private final Deque<String> methods = new ArrayDeque<>();
+
+    // Les bindings d'un même élément sont partagés dans l'unité : son identifiant n'est construit qu'une fois
+    private final Map<IBinding, String> keyByBinding = new IdentityHashMap<>();
+
+    private int dependencyCount = 0;
+
+    public DependencyVisitor(FileExtraction extraction) {
+        this.extraction = extraction;
+    }
+
+    public boolean visit(TypeDeclaration node) {
+        return visitType(node);
+    }
+
+    public boolean visit(EnumDeclaration node) {
+        return visitType(node);
+    }
+
+    public boolean visit(AnnotationTypeDeclaration node) {
+        return visitType(node);
+    }
+
+    // Un attribut de classe anonyme est compté dans le type déclaré qui l'englobe
+    public boolean visit(FieldDeclaration node) {
+        ASTNode type = node.getParent();
+        while (type != null && !(type instanceof AbstractTypeDeclaration))
+            type = type.getParent();
+        if (type == null)
+            return true;
+
+        String className = typeName((AbstractTypeDeclaration) type);
+        for (Object fragment : node.fragments())
+            extraction.addField(className + "." + ((VariableDeclarationFragment) fragment).getName());
+        return true;
+    }
+
+    public boolean visit(MethodDeclaration node) {
+        String methodKey = methodKey(node);
+        extraction.addMethod(methodKey, lineCount(node));
+        methods.push(methodKey);
+        return true;
+    }
+
+    public void endVisit(MethodDeclaration node) {
+        methods.pop();
+    }
+
+    public boolean visit(MethodInvocation node) {
+        IMethodBinding binding = node.resolveMethodBinding();
+        if (binding != null)
+            record(DependencyKind.CALL, binding);
+        return true;
+    }
+
+    public boolean visit(SuperMethodInvocation node) {
+        IMethodBinding binding = node.resolveMethodBinding();
+        if (binding != null)
+            record(DependencyKind.SUPER_CALL, binding);
+        return true;
+    }
+
+    public boolean visit(ClassInstanceCreation node) {
+        IMethodBinding binding = node.resolveConstructorBinding();
+        if (binding != null)
+            record(DependencyKind.CONSTRUCTOR, binding);
+        return true;
+    }
+
+    public boolean visit(ConstructorInvocation node) {
+        IMethodBinding binding = node.resolveConstructorBinding();
+        if (binding != null)
+            record(DependencyKind.CONSTRUCTOR, binding);
+        return true;
+    }
+
+    public boolean visit(SuperConstructorInvocation node) {
+        IMethodBinding binding = node.resolveConstructorBinding();
+        if (binding != null)
+            record(DependencyKind.CONSTRUCTOR, binding);
+        return true;
+    }
+
+    // Accès à un attribut, qu'il soit nommé seul, qualifié (Classe.ATTRIBUT) ou via this ou une expression
+    public boolean visit(SimpleName node) {
+        if (node.isDeclaration())
+            return false;
+
+        IBinding binding = node.resolveBinding();
+        if (binding instanceof IVariableBinding && ((IVariableBinding) binding).isField()
+                && ((IVariableBinding) binding).getDeclaringClass() != null)
+            record(DependencyKind.FIELD_ACCESS, binding);
+        return false;
+    }
+
+    public boolean visit(SimpleType node) {
+        recordType(node.resolveBinding());
+        return true;
+    }
+
+    public boolean visit(QualifiedType node) {
+        recordType(node.resolveBinding());
+        return true;
+    }
+
+    public int getDependencyCount() {
+        return dependencyCount;
+    }
+
+    private boolean visitType(AbstractTypeDeclaration node) {
+        extraction.addDeclaredType(typeName(node));
+        return true;
+    }
+
+    private void recordType(ITypeBinding binding) {
+        if (binding != null && !binding.isTypeVariable() && !binding.isRecovered())
+            record(DependencyKind.TYPE_REFERENCE, binding);
+    }
+
+    private void record(DependencyKind kind, IBinding binding) {
+        if (methods.isEmpty())
+            return;
+
+        extraction.addDependency(methods.peek(), kind, keyByBinding.computeIfAbsent(binding, DependencyVisitor::key));
+        dependencyCount++;
+    }
+
+    // Identifiant de la cible désignée par un binding de méthode, d'attribut ou de type
+    private static String key(IBinding binding) {
+        if (binding instanceof IMethodBinding)
+            return Signatures.methodKey((IMethodBinding) binding);
+        if (binding instanceof IVariableBinding) {
+            IVariableBinding field = ((IVariableBinding) binding).getVariableDeclaration();
+            return Signatures.typeName(field.getDeclaringClass()) + "." + field.getName();
+        }
+        return Signatures.typeName((ITypeBinding) binding);
+    }
+
+    // Nom binaire d'un type déclaré, ou son nom dans le source si le binding n'est pas résolu
+    private static String typeName(AbstractTypeDeclaration type) {
+        ITypeBinding binding = type.resolveBinding();
+        return binding != null ? Signatures.typeName(binding) : type.getName().getIdentifier();
+    }
+
+    // Lignes du source couvertes par le corps de la méthode, accolades comprises
+    private static int lineCount(MethodDeclaration method) {
+        Block body = method.getBody();
+        if (body == null || !(method.getRoot() instanceof CompilationUnit))
+            return 0;
+
+        CompilationUnit unit = (CompilationUnit) method.getRoot();
+        int first = unit.getLineNumber(body.getStartPosition());
+        int last = unit.getLineNumber(body.getStartPosition() + body.getLength() - 1);
+        return first < 0 || last < 0 ? 0 : last - first + 1;
+    }
+
+    // Identifiant d'une déclaration de méthode ; sans binding, il est reconstitué à partir du source
+    private static String methodKey(MethodDeclaration method) {
+        IMethodBinding binding = method.resolveBinding();
+        if (binding != null)
+            return Signatures.methodKey(binding);
+
+        StringBuilder key = new StringBuilder();
+        if (method.getParent() instanceof AbstractTypeDeclaration)
+            key.append(typeName((AbstractTypeDeclaration) method.getParent()));
+        key.append('.').append(method.getName().getIdentifier()).append('(');
+        for (int i = 0; i < method.parameters().size(); i++) {
+            SingleVariableDeclaration parameter = (SingleVariableDeclaration) method.parameters().get(i);
+            key.append(i > 0 ? "," : "").append(parameter.getType()).append(parameter.isVarargs() ? "[]" : "");
+        }
+        return key.append(')').toString();
+    }
+}